@@ -1,5 +1,14 @@
 package datawave.microservice.audit;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -10,18 +19,40 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.google.common.base.Preconditions;
 
 import datawave.marking.SecurityMarking;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.config.AuditSinkProperties;
+import datawave.microservice.audit.lane.AuditLanes;
+import datawave.microservice.audit.payload.AuditPayload;
+import datawave.microservice.audit.payload.AuditPayloadBufferPool;
+import datawave.microservice.audit.payload.AuditPayloadHttpMessageConverter;
+import datawave.microservice.audit.retry.AuditSubmissionRetrier;
+import datawave.microservice.audit.sink.AuditSink;
+import datawave.microservice.audit.sink.FanOutAuditSink;
+import datawave.microservice.audit.timeout.AuditTimeoutException;
+import datawave.microservice.audit.timeout.CallTimeLimiter;
+import datawave.microservice.audit.tracing.AuditSpan;
+import datawave.microservice.audit.tracing.AuditTracer;
+import datawave.microservice.audit.transport.AuditRequestHandler;
+import datawave.microservice.audit.transport.AuditTransport;
+import datawave.microservice.audit.transport.LoopbackAuditTransport;
 import datawave.microservice.authorization.jwt.JWTRestTemplate;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.security.authorization.DatawaveUser;
@@ -31,25 +62,76 @@ import datawave.webservice.common.audit.Auditor.AuditType;
 
 /**
  * Simple rest client for submitting requests to the audit service
+ * <p>
+ * If any {@link AuditSink} beans are present, each request is also delivered to those sinks in parallel with the remote audit service, and
+ * {@link #submit(Request)} completes according to the configured {@link FanOutAuditSink.Policy}.
+ * <p>
+ * If {@link AuditLanes} are configured, validated requests are delivered through the lane for their {@link AuditType}, which may deliver them on the calling
+ * thread or queue them for asynchronous delivery.
+ * <p>
+ * If an {@link AuditSubmissionRetrier} is configured, transient failures of the remote audit service are retried, preferably against a different instance.
+ * <p>
+ * If an {@link AuditTracer} is configured, each submission is traced, with child spans for validation, discovery, token creation and the HTTP exchange, and
+ * the trace context is propagated to the audit service.
+ * <p>
+ * If an {@link AuditTransport} is configured, requests are delivered to the audit service through it instead of over HTTP. Otherwise, if an
+ * {@link AuditRequestHandler} bean shows that the audit service is running in the same JVM, requests are handed to it directly.
+ * <p>
+ * {@link #shutdown(Duration)} stops the client accepting requests and drains those already accepted, see {@link AuditClientShutdown}.
  *
  * @see Request
  * @see AuditServiceProvider
+ * @see AuditSink
  */
 @Service
 @ConditionalOnProperty(name = "audit-client.enabled", havingValue = "true", matchIfMissing = true)
 public class AuditClient {
     
     private static final String DEFAULT_REQUEST_PATH = "/v1/audit";
+    private static final int PAYLOAD_BUFFER_POOL_SIZE = 64;
+    private static final int MAX_POOLED_PAYLOAD_BYTES = 256 * 1024;
     
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     private final AuditServiceProvider serviceProvider;
     private final JWTRestTemplate jwtRestTemplate;
+    private final AuditPayloadBufferPool payloadBuffers = new AuditPayloadBufferPool(PAYLOAD_BUFFER_POOL_SIZE, MAX_POOLED_PAYLOAD_BYTES);
+    private final CallTimeLimiter callTimeLimiter = new CallTimeLimiter("auditClientCall-");
     
-    private Supplier<AuditParameters> validationSupplier;
+    private Supplier<AuditParameters> validationSupplier = AuditParameters::new;
+    private AuditValidationCache validationCache;
+    private AuditQueryReferences queryReferences;
+    private final AuditSink remoteSink = new AuditSink() {
+        @Override
+        public void send(Request request, String requestPath) {
+            AuditTransport activeTransport = activeTransport();
+            if (null == activeTransport) {
+                sendToAuditService(request, requestPath);
+            } else {
+                activeTransport.send(request, requestPath);
+            }
+        }
+        
+        @Override
+        public String getName() {
+            AuditTransport activeTransport = activeTransport();
+            return null == activeTransport ? "auditService" : activeTransport.getName();
+        }
+    };
+    private AuditTransport transport;
+    private AuditTransport loopbackTransport;
+    private AuditSink auditSink = remoteSink;
+    private AuditLanes auditLanes;
+    private Consumer<List<PendingAudit>> undeliveredHandler;
+    private AuditSubmissionRetrier submissionRetrier;
+    private AuditTracer tracer = AuditTracer.NOOP;
+    private volatile boolean accepting = true;
+    private final AtomicInteger inFlight = new AtomicInteger();
     
     @Autowired
     public AuditClient(RestTemplateBuilder builder, AuditServiceProvider serviceProvider) {
-        this.jwtRestTemplate = builder.build(JWTRestTemplate.class);
+        AuditServiceProperties.Timeouts timeouts = serviceProvider.getTimeouts();
+        this.jwtRestTemplate = CallTimeLimiter.withTimeouts(builder, timeouts.getConnect(), timeouts.getRead()).build(JWTRestTemplate.class);
+        this.jwtRestTemplate.getMessageConverters().add(0, new AuditPayloadHttpMessageConverter());
         this.serviceProvider = serviceProvider;
     }
     
@@ -69,29 +151,187 @@ public class AuditClient {
             }
         }
         
+        inFlight.incrementAndGet();
+        try {
+            if (!accepting) {
+                throw new IllegalStateException("AuditClient is shut down, audit request rejected");
+            }
+            try (AuditSpan span = tracer.start(AuditTracer.SUBMIT_SPAN)) {
+                span.setAttribute(AuditTracer.AUDIT_TYPE_ATTRIBUTE, null == request.auditType ? null : request.auditType.name());
+                try {
+                    if (serviceProvider.getProperties().isFailFastAudit()) {
+                        Preconditions.checkNotNull(validationSupplier, "failFast validation enabled, but validationSupplier is null");
+                        validate(request);
+                    }
+                    
+                    log.debug("Submitting audit request: {}", request);
+                    
+                    if (null == auditLanes) {
+                        auditSink.send(request, requestPath);
+                    } else {
+                        auditLanes.submit(request.auditType, primaryUserDn(request),
+                                        new PendingAudit(request, requestPath, tracer.wrap(() -> auditSink.send(request, requestPath))));
+                    }
+                } catch (RuntimeException e) {
+                    span.recordError(e);
+                    throw e;
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Delivers a previously accepted request to the audit service, or the configured {@link AuditTransport}, on the calling thread, bypassing the lanes and
+     * any additional sinks. Returns only once the request has been delivered, e.g., so that a spooled request can be removed from the spool.
+     *
+     * @param request
+     *            the request to deliver
+     * @param requestPath
+     *            the path of the audit service endpoint
+     */
+    void resend(Request request, String requestPath) {
         if (serviceProvider.getProperties().isFailFastAudit()) {
             Preconditions.checkNotNull(validationSupplier, "failFast validation enabled, but validationSupplier is null");
-            validate(request, validationSupplier.get());
+            validate(request);
         }
-        
-        log.debug("Submitting audit request: {}", request);
-        
+        remoteSink.send(request, requestPath);
+    }
+    
+    private void validate(Request request) {
+        try (AuditSpan span = tracer.start(AuditTracer.VALIDATION_SPAN)) {
+            try {
+                if (null == validationCache) {
+                    validate(request, validationSupplier.get());
+                } else {
+                    validationCache.validate(request, validationSupplier.get());
+                }
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+    }
+    
+    private static String primaryUserDn(Request request) {
+        if (null == request.userDetails || null == request.userDetails.getPrimaryUser() || null == request.userDetails.getPrimaryUser().getDn()) {
+            return null;
+        }
+        return request.userDetails.getPrimaryUser().getDn().toString();
+    }
+    
+    private void sendToAuditService(Request request, String requestPath) {
+        String queryDigest = null == queryReferences ? null : queryReferences.digest(request);
+        // Encoded once and reused for any retries
+        AuditPayload payload = AuditPayload.encode(null == queryDigest ? request.paramMap : queryReferences.fullForm(request, queryDigest), payloadBuffers);
+        try {
+            if (null == submissionRetrier) {
+                sendToAuditService(request, payload, queryDigest, requestPath, discover(Collections.emptyList()));
+            } else {
+                submissionRetrier.submit(this::discover, auditService -> sendToAuditService(request, payload, queryDigest, requestPath, auditService),
+                                request.deadline);
+            }
+        } finally {
+            payload.release();
+        }
+    }
+    
+    private ServiceInstance discover(List<ServiceInstance> excluded) {
+        try (AuditSpan span = tracer.start(AuditTracer.DISCOVERY_SPAN)) {
+            try {
+                ServiceInstance auditService = excluded.isEmpty() ? serviceProvider.getServiceInstance() : serviceProvider.getServiceInstance(excluded);
+                span.setAttribute(AuditTracer.INSTANCE_ATTRIBUTE, auditService.getUri().toString());
+                return auditService;
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Sends the request by query reference if the instance is expected to hold its query string, falling back to the full form
+     */
+    private void sendToAuditService(Request request, AuditPayload payload, String queryDigest, String requestPath, ServiceInstance auditService) {
+        HttpClientErrorException referenceRejection = null;
+        if (null != queryDigest && queryReferences.canReference(auditService, queryDigest)) {
+            AuditPayload reference = AuditPayload.encode(queryReferences.referenceForm(request, queryDigest), payloadBuffers);
+            try {
+                sendToAuditService(request, reference, requestPath, auditService);
+                return;
+            } catch (HttpClientErrorException e) {
+                if (!queryReferences.rejected(auditService, queryDigest, e)) {
+                    throw e;
+                }
+                log.debug("{} rejected query reference {} with {}, resending in full", auditService.getUri(), queryDigest, e.getRawStatusCode());
+                referenceRejection = e;
+            } finally {
+                // A call abandoned on timeout holds its own reference, so the buffer is only reused once that call is done with it
+                reference.release();
+            }
+        }
+        sendToAuditService(request, payload, requestPath, auditService);
+        if (null != queryDigest) {
+            queryReferences.accepted(auditService, queryDigest, referenceRejection);
+        }
+    }
+    
+    private void sendToAuditService(Request request, AuditPayload payload, String requestPath, ServiceInstance auditService) {
         //@formatter:off
-        ServiceInstance auditService = serviceProvider.getServiceInstance();
         UriComponents uri = UriComponentsBuilder.fromUri(auditService.getUri())
             .path(auditService.getServiceId() + requestPath)
             .build();
 
         log.debug("Submitting audit request to {}", uri);
 
-        ResponseEntity<String> response = jwtRestTemplate.exchange(
-            jwtRestTemplate.createRequestEntity(
-                request.userDetails,
-                request.paramMap,
-                null,
-                HttpMethod.POST, uri),
-            String.class
-        );
+        RequestEntity<AuditPayload> requestEntity;
+        try (AuditSpan span = tracer.start(AuditTracer.TOKEN_SPAN)) {
+            try {
+                requestEntity = jwtRestTemplate.createRequestEntity(
+                    request.userDetails,
+                    payload,
+                    null,
+                    HttpMethod.POST, uri);
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+
+        // Checked before every attempt, so retries stop once the budget is spent
+        Duration budget = CallTimeLimiter.budget(request.deadline, serviceProvider.getTimeouts().getRequest());
+        CallTimeLimiter.checkRemaining(budget, "Audit request to " + uri);
+
+        ResponseEntity<String> response;
+        try (AuditSpan span = tracer.start(AuditTracer.HTTP_SPAN)) {
+            span.setAttribute(AuditTracer.INSTANCE_ATTRIBUTE, auditService.getUri().toString());
+            span.setAttribute(AuditTracer.AUDIT_TYPE_ATTRIBUTE, null == request.auditType ? null : request.auditType.name());
+            // The call writes through its own reference, so that if it is abandoned on timeout the buffer is not reused while it is still being written
+            AuditPayload body = payload.retain();
+            RequestEntity<AuditPayload> tracedEntity = withHeaders(requestEntity, body, budget);
+            serviceProvider.recordStart(auditService);
+            long start = System.nanoTime();
+            try {
+                response = callTimeLimiter.call(() -> {
+                    try {
+                        return jwtRestTemplate.exchange(tracedEntity, String.class);
+                    } finally {
+                        body.release();
+                    }
+                }, budget, "Audit request to " + uri);
+            } catch (HttpClientErrorException e) {
+                // The instance responded, the request itself was bad
+                serviceProvider.recordSuccess(auditService, System.nanoTime() - start);
+                span.recordError(e);
+                throw e;
+            } catch (RuntimeException e) {
+                serviceProvider.recordFailure(auditService);
+                span.recordError(e);
+                throw e;
+            }
+            serviceProvider.recordSuccess(auditService, System.nanoTime() - start);
+        }
 
         if (response.getStatusCode().value() != HttpStatus.OK.value()) {
             String errorMessage = String.format("Audit request failed. Http Status: (%s, %s)",
@@ -103,12 +343,221 @@ public class AuditClient {
         //@formatter:on
     }
     
-    @Autowired
+    private <T> RequestEntity<T> withHeaders(RequestEntity<?> requestEntity, T body, Duration budget) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(requestEntity.getHeaders());
+        tracer.inject(headers);
+        if (null != budget) {
+            headers.set(CallTimeLimiter.REMAINING_BUDGET_HEADER, Long.toString(budget.toMillis()));
+        }
+        return new RequestEntity<>(body, headers, requestEntity.getMethod(), requestEntity.getUrl());
+    }
+    
+    /**
+     * Sends a lightweight, unauthenticated OPTIONS request to the given audit service instance, establishing a pooled connection (including the TLS
+     * handshake) without minting a token or submitting an audit. Any HTTP response, including an error status, means the connection was opened successfully.
+     *
+     * @param auditService
+     *            the instance to connect to
+     */
+    void ping(ServiceInstance auditService) {
+        //@formatter:off
+        UriComponents uri = UriComponentsBuilder.fromUri(auditService.getUri())
+            .path(auditService.getServiceId() + DEFAULT_REQUEST_PATH)
+            .build();
+        //@formatter:on
+        try {
+            jwtRestTemplate.exchange(RequestEntity.options(uri.toUri()).build(), String.class);
+        } catch (RestClientResponseException e) {
+            log.trace("Ignoring warm-up response from {}: {}", uri, e.getRawStatusCode());
+        }
+    }
+    
+    /**
+     * Registers additional sinks which receive every audit request alongside the remote audit service
+     *
+     * @param sinks
+     *            the additional sinks
+     * @param sinkProperties
+     *            the fan-out configuration
+     * @param sinkExecutor
+     *            the executor used to deliver to every sink, including the audit service
+     */
+    @Autowired(required = false)
+    public void setAuditSinks(List<AuditSink> sinks, AuditSinkProperties sinkProperties, @Qualifier("auditSinkExecutor") Executor sinkExecutor) {
+        if (!sinks.isEmpty()) {
+            FanOutAuditSink fanOut = new FanOutAuditSink(remoteSink, sinks, sinkProperties.getPolicy(), sinkExecutor, task -> tracer.wrap(task));
+            log.info("Delivering audit requests via {}", fanOut.getName());
+            this.auditSink = fanOut;
+            applyUndeliveredHandler();
+        }
+    }
+    
+    /**
+     * Replaces HTTP as the way audit requests reach the audit service
+     *
+     * @param transport
+     *            the transport to deliver through
+     */
+    @Autowired(required = false)
+    public void setTransport(AuditTransport transport) {
+        if (null != transport) {
+            log.info("Delivering audit requests to the audit service via {}", transport.getName());
+        }
+        this.transport = transport;
+    }
+    
+    /**
+     * Registers the request handler of an audit service running in this JVM. Unless another {@link AuditTransport} is configured or
+     * {@code audit-client.loopback-enabled} is false, requests are then handed to it directly instead of over HTTP.
+     *
+     * @param requestHandler
+     *            the in-process audit request handler
+     */
+    @Autowired(required = false)
+    public void setLocalRequestHandler(AuditRequestHandler requestHandler) {
+        this.loopbackTransport = null == requestHandler ? null : new LoopbackAuditTransport(requestHandler);
+        if (null != loopbackTransport && serviceProvider.getProperties().isLoopbackEnabled()) {
+            log.info("Found in-process audit request handler, delivering audit requests via {}", loopbackTransport.getName());
+        }
+    }
+    
+    private AuditTransport activeTransport() {
+        if (null != transport) {
+            return transport;
+        }
+        return serviceProvider.getProperties().isLoopbackEnabled() ? loopbackTransport : null;
+    }
+    
+    @Autowired(required = false)
+    public void setTracer(AuditTracer tracer) {
+        this.tracer = null == tracer ? AuditTracer.NOOP : tracer;
+    }
+    
+    @Autowired(required = false)
+    public void setSubmissionRetrier(AuditSubmissionRetrier submissionRetrier) {
+        this.submissionRetrier = submissionRetrier;
+    }
+    
+    @Autowired(required = false)
+    public void setAuditLanes(AuditLanes auditLanes) {
+        this.auditLanes = auditLanes;
+        applyUndeliveredHandler();
+    }
+    
+    /**
+     * Sets the handler for accepted audit requests which an asynchronous lane failed to deliver, or which the audit service failed to receive after a
+     * fan-out to other sinks had already returned, e.g., to spool them for resubmission. Without a handler, such requests are logged and lost.
+     *
+     * @param undeliveredHandler
+     *            receives the undelivered requests, may be null
+     */
+    public void setUndeliveredHandler(Consumer<List<PendingAudit>> undeliveredHandler) {
+        this.undeliveredHandler = undeliveredHandler;
+        applyUndeliveredHandler();
+    }
+    
+    private void applyUndeliveredHandler() {
+        Consumer<List<PendingAudit>> handler = undeliveredHandler;
+        if (null != auditLanes) {
+            auditLanes.setFailureHandler(null == handler ? null : deliveries -> handler.accept(pendingAudits(deliveries)));
+        }
+        if (auditSink instanceof FanOutAuditSink) {
+            ((FanOutAuditSink) auditSink).setUndeliveredHandler(null == handler ? null
+                            : (request, requestPath) -> handler.accept(Collections.singletonList(
+                                            new PendingAudit(request, requestPath, tracer.wrap(() -> remoteSink.send(request, requestPath))))));
+        }
+    }
+    
+    private static List<PendingAudit> pendingAudits(List<Runnable> deliveries) {
+        List<PendingAudit> audits = new ArrayList<>();
+        for (Runnable delivery : deliveries) {
+            if (delivery instanceof PendingAudit) {
+                audits.add((PendingAudit) delivery);
+            }
+        }
+        return audits;
+    }
+    
+    /**
+     * Replaces the HTTP layer used to reach the audit service, e.g., with a TLS-aware factory that supports session resumption
+     *
+     * @param requestFactory
+     *            the request factory to use
+     */
+    @Autowired(required = false)
+    @Qualifier("auditClientRequestFactory")
+    public void setRequestFactory(ClientHttpRequestFactory requestFactory) {
+        AuditServiceProperties.Timeouts timeouts = serviceProvider.getTimeouts();
+        CallTimeLimiter.applyTimeouts(requestFactory, timeouts.getConnect(), timeouts.getRead());
+        this.jwtRestTemplate.setRequestFactory(requestFactory);
+    }
+    
+    /**
+     * Replaces the validator used for failFast validation, which defaults to {@link AuditParameters}
+     *
+     * @param validationSupplier
+     *            supplies the validator for each request
+     */
+    @Autowired(required = false)
     @Qualifier("auditRequestValidator")
     public void setValidationSupplier(Supplier<AuditParameters> validationSupplier) {
         this.validationSupplier = validationSupplier;
     }
     
+    @Autowired(required = false)
+    public void setValidationCache(AuditValidationCache validationCache) {
+        this.validationCache = validationCache;
+    }
+    
+    /**
+     * Sends large query strings by reference once the audit service holds them, see {@link AuditQueryReferences}
+     *
+     * @param queryReferences
+     *            the query references to use
+     */
+    @Autowired(required = false)
+    public void setQueryReferences(AuditQueryReferences queryReferences) {
+        this.queryReferences = queryReferences;
+    }
+    
+    /**
+     * Resumes accepting audit requests after a {@link #shutdown(Duration)}
+     */
+    public void start() {
+        if (null != auditLanes) {
+            auditLanes.start();
+        }
+        accepting = true;
+    }
+    
+    /**
+     * Stops accepting audit requests and waits up to {@code timeout} for submissions in progress to return and for queued requests to be delivered.
+     * Subsequent calls to {@link #submit(Request)} throw {@link IllegalStateException} until the client is {@link #start() started} again.
+     *
+     * @param timeout
+     *            maximum time to wait
+     * @return requests which were accepted but are still queued when the timeout elapsed, and will not be delivered by this client
+     */
+    public List<PendingAudit> shutdown(Duration timeout) {
+        accepting = false;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (inFlight.get() > 0) {
+            log.warn("{} audit submissions were still in progress after {}", inFlight.get(), timeout);
+        }
+        if (null == auditLanes) {
+            return Collections.emptyList();
+        }
+        return pendingAudits(auditLanes.drain(Duration.ofNanos(Math.max(0L, deadline - System.nanoTime()))));
+    }
+    
     public static AuditParameters validate(Request request, AuditParameters validator) {
         Preconditions.checkNotNull(request, "request cannot be null");
         Preconditions.checkNotNull(validator, "validator cannot be null");
@@ -117,6 +566,37 @@ public class AuditClient {
         return validator;
     }
     
+    /**
+     * An accepted audit request whose delivery is queued in an asynchronous {@link AuditLanes lane}, or which was not delivered after being accepted
+     *
+     * @see #shutdown(Duration)
+     */
+    public static class PendingAudit implements Runnable {
+        
+        private final Request request;
+        private final String requestPath;
+        private final Runnable delivery;
+        
+        PendingAudit(Request request, String requestPath, Runnable delivery) {
+            this.request = request;
+            this.requestPath = requestPath;
+            this.delivery = delivery;
+        }
+        
+        public Request getRequest() {
+            return request;
+        }
+        
+        public String getRequestPath() {
+            return requestPath;
+        }
+        
+        @Override
+        public void run() {
+            delivery.run();
+        }
+    }
+    
     /**
      * Audit request for a given query
      *
@@ -129,9 +609,22 @@ public class AuditClient {
         protected MultiValueMap<String,String> paramMap;
         protected DatawaveUserDetails userDetails;
         protected AuditType auditType;
+        protected Instant deadline;
         
         private Request() {}
         
+        /**
+         * Recreates a request from previously accepted parameters, without applying the builder's transformations again
+         */
+        static Request restore(MultiValueMap<String,String> paramMap, DatawaveUserDetails userDetails, AuditType auditType, Instant deadline) {
+            Request request = new Request();
+            request.paramMap = new LinkedMultiValueMap<>(paramMap);
+            request.userDetails = userDetails;
+            request.auditType = auditType;
+            request.deadline = deadline;
+            return request;
+        }
+        
         /**
          * Constructs an audit request and delegates all validation of the request to {@link AuditParameters}
          * 
@@ -172,12 +665,31 @@ public class AuditClient {
             }
             
             this.paramMap = params;
+            this.deadline = b.deadline;
         }
         
         public AuditType getAuditType() {
             return this.auditType;
         }
         
+        /**
+         * @return read-only view of the audit parameters sent to the audit service
+         */
+        public MultiValueMap<String,String> getParamMap() {
+            return CollectionUtils.unmodifiableMultiValueMap(this.paramMap);
+        }
+        
+        public DatawaveUserDetails getUserDetails() {
+            return this.userDetails;
+        }
+        
+        /**
+         * @return the time after which the caller no longer waits for this request to be delivered, or null if there is none
+         */
+        public Instant getDeadline() {
+            return this.deadline;
+        }
+        
         @Override
         public String toString() {
             return ToStringBuilder.reflectionToString(this).toString();
@@ -194,6 +706,7 @@ public class AuditClient {
             protected MultiValueMap<String,String> params;
             protected SecurityMarking marking;
             protected DatawaveUserDetails datawaveUserDetails;
+            protected Instant deadline;
             
             public Builder withQueryExpression(String query) {
                 this.queryExpression = query;
@@ -225,6 +738,28 @@ public class AuditClient {
                 return this;
             }
             
+            /**
+             * Bounds how long the caller waits for delivery to the audit service over HTTP, across all retries. The remaining budget is sent to the audit
+             * service with each attempt.
+             *
+             * @param deadline
+             *            time after which delivery is abandoned with an {@link AuditTimeoutException}
+             * @return this builder
+             */
+            public Builder withDeadline(Instant deadline) {
+                this.deadline = deadline;
+                return this;
+            }
+            
+            /**
+             * Sets a deadline {@code timeout} from now
+             *
+             * @see #withDeadline(Instant)
+             */
+            public Builder withTimeout(Duration timeout) {
+                return withDeadline(Instant.now().plus(timeout));
+            }
+            
             public Request build() {
                 return new Request(this);
             }
@@ -0,0 +1,128 @@
+package datawave.microservice.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditShutdownProperties;
+
+/**
+ * Shuts down the {@link AuditClient} in an orderly way when the application context stops, so that a redeployment does not lose accepted audit requests.
+ * <p>
+ * On stop, the client stops accepting requests and drains those already accepted for up to {@code drainTimeout}. Requests still queued after that are
+ * written to the {@link AuditSpool}, if one is configured, and resubmitted in the background when the application next starts. Requests which an
+ * asynchronous lane fails to deliver while the application is running are spooled the same way. On start, including a restart of the same context, the
+ * client accepts requests again.
+ * <p>
+ * The default phase stops the client after the embedded web server has shut down, so that requests still being served can submit their audits.
+ *
+ * @see AuditShutdownProperties
+ */
+public class AuditClientShutdown implements SmartLifecycle {
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final AuditClient auditClient;
+    private final AuditSpool spool;
+    private final AuditShutdownProperties properties;
+    private volatile boolean running;
+    // Guarded by this
+    private Thread recovery;
+    private boolean recoveryRequested;
+    
+    /**
+     * @param spool
+     *            the spool for requests which could not be delivered, may be null
+     */
+    public AuditClientShutdown(AuditClient auditClient, AuditSpool spool, AuditShutdownProperties properties) {
+        this.auditClient = Preconditions.checkNotNull(auditClient, "auditClient cannot be null");
+        this.spool = spool;
+        this.properties = Preconditions.checkNotNull(properties, "properties cannot be null");
+        if (null != spool) {
+            auditClient.setUndeliveredHandler(this::spoolUndelivered);
+        }
+    }
+    
+    @Override
+    public void start() {
+        auditClient.start();
+        running = true;
+        if (null != spool) {
+            requestRecovery();
+        }
+    }
+    
+    /**
+     * Starts the recovery thread, or if it is still running from an earlier start, has it make another pass over the spool once it is done
+     */
+    private synchronized void requestRecovery() {
+        recoveryRequested = true;
+        if (null == recovery) {
+            recovery = new Thread(this::resubmitSpooled, "auditSpool-recovery");
+            recovery.setDaemon(true);
+            recovery.start();
+        }
+    }
+    
+    private synchronized boolean nextRecoveryPass() {
+        if (!recoveryRequested) {
+            recovery = null;
+            return false;
+        }
+        recoveryRequested = false;
+        return true;
+    }
+    
+    private void resubmitSpooled() {
+        while (nextRecoveryPass()) {
+            try {
+                int resubmitted = spool.resubmit(auditClient);
+                if (resubmitted > 0) {
+                    log.info("Resubmitted {} spooled audit requests from {}", resubmitted, spool.getDirectory());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to resubmit spooled audit requests from {}", spool.getDirectory(), e);
+            }
+        }
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        List<AuditClient.PendingAudit> undelivered = auditClient.shutdown(properties.getDrainTimeout());
+        if (undelivered.isEmpty()) {
+            return;
+        }
+        if (null == spool) {
+            log.error("{} accepted audit requests were not delivered before shutdown and have been lost", undelivered.size());
+            return;
+        }
+        spoolUndelivered(undelivered);
+    }
+    
+    private void spoolUndelivered(List<AuditClient.PendingAudit> undelivered) {
+        try {
+            Path file = spool.write(undelivered);
+            if (null != file) {
+                log.warn("Spooled {} undelivered audit requests to {}", undelivered.size(), file);
+            }
+        } catch (IOException e) {
+            log.error("Failed to spool {} undelivered audit requests, they have been lost", undelivered.size(), e);
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return properties.getPhase();
+    }
+}
@@ -0,0 +1,146 @@
+package datawave.microservice.audit;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditWarmupProperties;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Warms up the audit submission path when the application context is refreshed, before the application reports ready. The warm-up resolves the audit
+ * service instances, opens connections to each of them with unauthenticated OPTIONS requests (which performs the TLS handshake), and repeatedly builds and
+ * validates a synthetic audit request. No token is minted and no audit is submitted. The overall duration is recorded as the {@value #WARMUP_METRIC} timer.
+ *
+ * @see AuditWarmupProperties
+ */
+public class AuditClientWarmup {
+    
+    static final String WARMUP_METRIC = "audit.client.warmup";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final AuditClient auditClient;
+    private final AuditServiceProvider serviceProvider;
+    private final AuditWarmupProperties properties;
+    private final Supplier<AuditParameters> validationSupplier;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean warmedUp = new AtomicBoolean();
+    
+    public AuditClientWarmup(AuditClient auditClient, AuditServiceProvider serviceProvider, AuditWarmupProperties properties,
+                    Supplier<AuditParameters> validationSupplier, MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(auditClient, "auditClient cannot be null");
+        Preconditions.checkNotNull(serviceProvider, "serviceProvider cannot be null");
+        Preconditions.checkNotNull(properties, "properties cannot be null");
+        this.auditClient = auditClient;
+        this.serviceProvider = serviceProvider;
+        this.properties = properties;
+        this.validationSupplier = validationSupplier;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void startup() {
+        if (warmedUp.compareAndSet(false, true)) {
+            warmUp();
+        }
+    }
+    
+    public void warmUp() {
+        log.info("Warming up audit client");
+        long start = System.nanoTime();
+        try {
+            List<ServiceInstance> instances = serviceProvider.getServiceInstances();
+            openConnections(instances);
+            exerciseRequests();
+        } catch (RuntimeException e) {
+            if (properties.isFailFast()) {
+                throw e;
+            }
+            log.warn("Audit client warm-up failed", e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (null != meterRegistry) {
+                Timer.builder(WARMUP_METRIC).register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            log.info("Audit client warm-up completed in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+    
+    private void openConnections(List<ServiceInstance> instances) {
+        if (properties.getConnections() <= 0) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getConnections());
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (ServiceInstance instance : instances) {
+                resolve(instance);
+                for (int i = 0; i < properties.getConnections(); i++) {
+                    futures.add(CompletableFuture.runAsync(() -> auditClient.ping(instance), executor));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            log.debug("Opened {} connections to {} audit service instances", futures.size(), instances.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening audit service connections", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open audit service connections", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void resolve(ServiceInstance instance) {
+        try {
+            InetAddress.getAllByName(instance.getHost());
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to resolve audit service host " + instance.getHost(), e);
+        }
+    }
+    
+    private void exerciseRequests() {
+        if (null == validationSupplier) {
+            return;
+        }
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add(AuditParameters.QUERY_LOGIC_CLASS, "AuditClientWarmup");
+        params.add(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "PUBLIC");
+        for (int i = 0; i < properties.getIterations(); i++) {
+            //@formatter:off
+            AuditClient.Request request = new AuditClient.Request.Builder()
+                    .withParams(params)
+                    .withQueryExpression("WARMUP:" + i)
+                    .withAuditType(AuditType.PASSIVE)
+                    .build();
+            //@formatter:on
+            try {
+                AuditClient.validate(request, validationSupplier.get());
+            } catch (IllegalArgumentException e) {
+                log.trace("Synthetic warm-up request failed validation", e);
+            }
+        }
+    }
+}
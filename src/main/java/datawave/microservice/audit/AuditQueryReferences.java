@@ -0,0 +1,177 @@
+package datawave.microservice.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Replaces large query strings with a digest of their content once an audit service instance has received them in full, so that the audits made for each page
+ * of a paged query do not carry the whole query every time
+ * <p>
+ * A request whose {@link AuditParameters#QUERY_STRING} is at least {@code minQueryLength} characters long is first sent in full, along with the SHA-256 digest
+ * of the query string in {@value #QUERY_DIGEST_PARAM}, for the audit service to store the query string against. Once an instance has accepted the full form,
+ * later requests to that instance with the same query string carry only the digest, until the digest expires.
+ * <p>
+ * An audit service which no longer holds the query string rejects the reference form with {@code 412 Precondition Failed}, or with {@code 400 Bad Request}
+ * naming the {@value #QUERY_DIGEST_PARAM} parameter, and one which does not support it at all rejects it with {@code 400 Bad Request} naming the missing
+ * {@link AuditParameters#QUERY_STRING} parameter. Either way the request is resent in full. If an instance did not support the reference form but accepted
+ * the full form, it is sent only full forms for {@code unsupportedRetryInterval}. Any other rejection, e.g., a validation failure, is not about the reference,
+ * so the request is not resent. Statistics of the remembered digests are published under {@value #CACHE_NAME}.
+ */
+public class AuditQueryReferences {
+    
+    public static final String CACHE_NAME = "audit.client.query-references";
+    
+    /**
+     * Parameter carrying the digest of the query string, in the form {@code sha-256:<hex>}
+     */
+    public static final String QUERY_DIGEST_PARAM = AuditClient.Request.INTERNAL_AUDIT_PARAM_PREFIX + "queryDigest";
+    
+    private static final String DIGEST_PREFIX = "sha-256:";
+    // The query string parameter named on its own, not as part of another parameter name
+    private static final Pattern QUERY_STRING_PARAM = Pattern.compile("(?<![\\w.])" + Pattern.quote(AuditParameters.QUERY_STRING) + "(?![\\w.])");
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final int minQueryLength;
+    private final Cache<String,Boolean> delivered;
+    private final Cache<String,Boolean> unsupported;
+    // Keyed by identity, so that a query string reused for each page is only hashed once
+    private final Cache<String,String> digests = CacheBuilder.newBuilder().weakKeys().maximumSize(1000).build();
+    
+    /**
+     * @param minQueryLength
+     *            query strings at least this many characters long are sent by reference
+     * @param maximumSize
+     *            maximum number of delivered query strings to remember, across all instances
+     * @param expireAfterWrite
+     *            how long an instance is assumed to hold a delivered query string
+     * @param unsupportedRetryInterval
+     *            how long to send only full forms to an instance which rejected the reference form
+     * @param meterRegistry
+     *            registry for cache statistics, may be null
+     */
+    public AuditQueryReferences(int minQueryLength, long maximumSize, Duration expireAfterWrite, Duration unsupportedRetryInterval,
+                    MeterRegistry meterRegistry) {
+        Preconditions.checkArgument(minQueryLength > 0, "minQueryLength must be positive");
+        this.minQueryLength = minQueryLength;
+        this.delivered = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats().build();
+        this.unsupported = CacheBuilder.newBuilder().expireAfterWrite(unsupportedRetryInterval).build();
+        if (null != meterRegistry) {
+            GuavaCacheMetrics.monitor(meterRegistry, delivered, CACHE_NAME);
+        }
+    }
+    
+    /**
+     * @return the digest of the request's query string, or null if it is too short to be sent by reference
+     */
+    String digest(AuditClient.Request request) {
+        List<String> values = request.paramMap.get(AuditParameters.QUERY_STRING);
+        if (null == values || values.size() != 1 || null == values.get(0) || values.get(0).length() < minQueryLength) {
+            return null;
+        }
+        String query = values.get(0);
+        String digest = digests.getIfPresent(query);
+        if (null == digest) {
+            digest = DIGEST_PREFIX + Hashing.sha256().hashString(query, StandardCharsets.UTF_8);
+            digests.put(query, digest);
+        }
+        return digest;
+    }
+    
+    /**
+     * @return whether the instance is expected to hold the query string with the given digest
+     */
+    boolean canReference(ServiceInstance auditService, String digest) {
+        String instance = auditService.getUri().toString();
+        return null == unsupported.getIfPresent(instance) && null != delivered.getIfPresent(key(instance, digest));
+    }
+    
+    /**
+     * @return the request's parameters, with the digest of its query string added
+     */
+    MultiValueMap<String,String> fullForm(AuditClient.Request request, String digest) {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>(request.paramMap);
+        params.set(QUERY_DIGEST_PARAM, digest);
+        return params;
+    }
+    
+    /**
+     * @return the request's parameters, with its query string replaced by the digest
+     */
+    MultiValueMap<String,String> referenceForm(AuditClient.Request request, String digest) {
+        MultiValueMap<String,String> params = fullForm(request, digest);
+        params.remove(AuditParameters.QUERY_STRING);
+        return params;
+    }
+    
+    /**
+     * Records that the instance rejected the reference form of a request
+     *
+     * @return true if the request should be resent in full, false if the rejection was not about the reference
+     */
+    boolean rejected(ServiceInstance auditService, String digest, HttpClientErrorException rejection) {
+        if (!isUnknownReference(rejection) && !isUnsupportedReference(rejection)) {
+            return false;
+        }
+        delivered.invalidate(key(auditService.getUri().toString(), digest));
+        return true;
+    }
+    
+    /**
+     * Records that the instance accepted the full form of a request
+     *
+     * @param referenceRejection
+     *            the rejection of the reference form just before, or null if the reference form was not tried
+     */
+    void accepted(ServiceInstance auditService, String digest, HttpClientErrorException referenceRejection) {
+        String instance = auditService.getUri().toString();
+        if (null != referenceRejection && isUnsupportedReference(referenceRejection)) {
+            log.info("{} does not accept audit requests with query references, sending query strings in full to it", instance);
+            unsupported.put(instance, Boolean.TRUE);
+        }
+        delivered.put(key(instance, digest), Boolean.TRUE);
+    }
+    
+    /**
+     * @return whether the instance supports references but does not hold the referenced query string
+     */
+    private static boolean isUnknownReference(HttpClientErrorException rejection) {
+        if (rejection.getStatusCode() == HttpStatus.PRECONDITION_FAILED) {
+            return true;
+        }
+        return rejection.getStatusCode() == HttpStatus.BAD_REQUEST && rejection.getResponseBodyAsString().contains(QUERY_DIGEST_PARAM);
+    }
+    
+    /**
+     * @return whether the instance rejected the reference form for lacking a query string, i.e., it does not support references
+     */
+    private static boolean isUnsupportedReference(HttpClientErrorException rejection) {
+        if (rejection.getStatusCode() != HttpStatus.BAD_REQUEST) {
+            return false;
+        }
+        String body = rejection.getResponseBodyAsString();
+        return !body.contains(QUERY_DIGEST_PARAM) && QUERY_STRING_PARAM.matcher(body).find();
+    }
+    
+    private static String key(String instance, String digest) {
+        return instance + ' ' + digest;
+    }
+}
@@ -1,10 +1,17 @@
 package datawave.microservice.audit;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -13,9 +20,17 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 
 import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.health.InstanceHealthTracker;
+import datawave.microservice.audit.zone.ZonePreference;
 
 /**
  * Provides a {@link ServiceInstance} representing the remote audit service
+ * <p>
+ * When discovery is used, a background refresher may {@link #publishInstances(List) publish} the current set of instances, after which lookups are served
+ * from that set rather than querying the {@link DiscoveryClient} on the caller's thread.
+ * <p>
+ * If an {@link InstanceHealthTracker} is set, instances it has ejected are skipped during selection, except for probe requests. If a {@link ZonePreference}
+ * is set, the remaining instances are narrowed to those in the local zone, unless traffic needs to spill over to other zones.
  */
 public class AuditServiceProvider {
     
@@ -23,6 +38,9 @@ public class AuditServiceProvider {
     
     protected final AuditServiceProperties properties;
     protected final DiscoveryClient discoveryClient;
+    private final AtomicReference<List<ServiceInstance>> publishedInstances = new AtomicReference<>();
+    private InstanceHealthTracker healthTracker;
+    private ZonePreference zonePreference;
     
     public AuditServiceProvider(AuditServiceProperties properties) {
         this(properties, null);
@@ -44,11 +62,102 @@ public class AuditServiceProvider {
         if (null == this.discoveryClient) {
             return getDefaultServiceInstance();
         }
+        List<ServiceInstance> published = publishedInstances.get();
+        if (null != published) {
+            return selectInstance(published);
+        }
         return discoverInstance(properties.getServiceId());
     }
     
+    /**
+     * Returns an instance other than those given, if one is available. Used to route a retry away from an instance that just failed.
+     *
+     * @param excluded
+     *            instances to avoid
+     * @return an instance not in {@code excluded}, or {@link #getServiceInstance()} if every instance is excluded
+     */
+    public ServiceInstance getServiceInstance(Collection<ServiceInstance> excluded) {
+        if (null == excluded || excluded.isEmpty()) {
+            return getServiceInstance();
+        }
+        Set<URI> excludedUris = excluded.stream().map(ServiceInstance::getUri).collect(Collectors.toSet());
+        List<ServiceInstance> candidates = getServiceInstances().stream().filter(si -> !excludedUris.contains(si.getUri())).collect(Collectors.toList());
+        return candidates.isEmpty() ? getServiceInstance() : selectInstance(candidates);
+    }
+    
+    /**
+     * If internal {@link DiscoveryClient} is null, returns the configured default service instance as a singleton list, otherwise all instances of the audit
+     * service will be discovered automatically
+     *
+     * @return list of {@link ServiceInstance}s representing the remote audit service, never empty
+     */
+    public List<ServiceInstance> getServiceInstances() {
+        if (null == this.discoveryClient) {
+            return Collections.singletonList(getDefaultServiceInstance());
+        }
+        List<ServiceInstance> published = publishedInstances.get();
+        if (null != published) {
+            return published;
+        }
+        return discoverInstances(properties.getServiceId());
+    }
+    
+    /**
+     * Queries the {@link DiscoveryClient} for the current audit service instances and publishes them for subsequent lookups. Unlike
+     * {@link #getServiceInstances()}, this always goes to the discovery client and is never retried.
+     *
+     * @return the newly published instances
+     * @throws IllegalStateException
+     *             if no instances were found, in which case the previously published instances are retained
+     */
+    public List<ServiceInstance> refreshInstances() {
+        List<ServiceInstance> instances = discoverInstances(properties.getServiceId());
+        publishInstances(instances);
+        return instances;
+    }
+    
+    /**
+     * Atomically replaces the set of instances used for lookups
+     *
+     * @param instances
+     *            the current audit service instances, must not be empty
+     */
+    public void publishInstances(List<ServiceInstance> instances) {
+        Preconditions.checkArgument(null != instances && !instances.isEmpty(), "instances must not be null/empty");
+        publishedInstances.set(Collections.unmodifiableList(new ArrayList<>(instances)));
+        if (null != healthTracker) {
+            healthTracker.retainInstances(instances);
+        }
+    }
+    
     protected ServiceInstance discoverInstance(String serviceId) {
         
+        ServiceInstance instance = selectInstance(discoverInstances(serviceId));
+        
+        logger.debug("Located audit service (id: {}) via discovery. URI: {}", serviceId, instance.getUri());
+        
+        return instance;
+    }
+    
+    protected ServiceInstance selectInstance(List<ServiceInstance> instances) {
+        if (null != healthTracker) {
+            ServiceInstance probe = healthTracker.claimProbe(instances);
+            if (null != probe) {
+                return probe;
+            }
+            instances = healthTracker.available(instances);
+        }
+        if (null != zonePreference) {
+            instances = zonePreference.prefer(instances);
+        }
+        if (instances.size() > 1) {
+            logger.info("More than one audit service is available, but I only know how to select the first in the list");
+        }
+        return instances.get(0);
+    }
+    
+    protected List<ServiceInstance> discoverInstances(String serviceId) {
+        
         Preconditions.checkState(!Strings.isNullOrEmpty(serviceId), "service id must not be null/empty");
         Preconditions.checkNotNull(this.discoveryClient, "discovery client must not be null");
         
@@ -58,14 +167,7 @@ public class AuditServiceProvider {
         if (instances.isEmpty()) {
             throw new IllegalStateException("No instances found of audit service (id: " + serviceId + ")");
         }
-        if (instances.size() > 1) {
-            logger.info("More than one audit service is available, but I only know how to select the first in the list");
-        }
-        ServiceInstance instance = instances.get(0);
-        
-        logger.debug("Located audit service (id: {}) via discovery. URI: {}", serviceId, instance.getUri());
-        
-        return instance;
+        return instances;
     }
     
     protected ServiceInstance getDefaultServiceInstance() {
@@ -74,7 +176,81 @@ public class AuditServiceProvider {
         return new DefaultServiceInstance(null, properties.getServiceId(), uri.getHost(), uri.getPort(), uri.getScheme().equals("https"));
     }
     
+    /**
+     * Enables passive health tracking, which excludes ejected instances from selection
+     *
+     * @param healthTracker
+     *            tracks the health of each instance
+     */
+    @Autowired(required = false)
+    public void setHealthTracker(InstanceHealthTracker healthTracker) {
+        this.healthTracker = healthTracker;
+    }
+    
+    /**
+     * Enables zone-aware selection, which prefers instances in the local zone
+     *
+     * @param zonePreference
+     *            determines the local instances and when to spill over to other zones
+     */
+    @Autowired(required = false)
+    public void setZonePreference(ZonePreference zonePreference) {
+        this.zonePreference = zonePreference;
+    }
+    
+    /**
+     * Reports a request about to be sent to the given instance. Must be followed by {@link #recordSuccess(ServiceInstance, long)} or
+     * {@link #recordFailure(ServiceInstance)}.
+     *
+     * @param instance
+     *            the instance handling the request
+     */
+    public void recordStart(ServiceInstance instance) {
+        if (null != zonePreference) {
+            zonePreference.requestStarted(instance);
+        }
+    }
+    
+    /**
+     * Reports a request to the given instance which received a response
+     *
+     * @param instance
+     *            the instance which handled the request
+     * @param latencyNanos
+     *            time taken by the request
+     */
+    public void recordSuccess(ServiceInstance instance, long latencyNanos) {
+        if (null != zonePreference) {
+            zonePreference.requestFinished(instance);
+        }
+        if (null != healthTracker) {
+            healthTracker.recordSuccess(instance, latencyNanos);
+        }
+    }
+    
+    /**
+     * Reports a request to the given instance which failed with an I/O error or a server error
+     *
+     * @param instance
+     *            the instance which failed the request
+     */
+    public void recordFailure(ServiceInstance instance) {
+        if (null != zonePreference) {
+            zonePreference.requestFinished(instance);
+        }
+        if (null != healthTracker) {
+            healthTracker.recordFailure(instance);
+        }
+    }
+    
     AuditServiceProperties getProperties() {
         return properties;
     }
+    
+    /**
+     * @return connection timeouts shared by the clients of the audit service
+     */
+    public AuditServiceProperties.Timeouts getTimeouts() {
+        return properties.getTimeouts();
+    }
 }
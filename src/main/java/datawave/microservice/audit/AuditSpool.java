@@ -0,0 +1,339 @@
+package datawave.microservice.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Local directory holding audit requests which were accepted but could not be delivered before shutdown, so that they can be resubmitted on the next
+ * startup.
+ * <p>
+ * Each call to {@link #write(Collection)} creates one spool file, written under a temporary name and then atomically renamed, so that a crash mid-write
+ * never leaves a partial file to be resubmitted. A record holds the request path, audit type, audit parameters, the time remaining before the request's
+ * deadline, and the requesting user's details, which are needed to authenticate the request when it is resubmitted. Spool files therefore contain user
+ * credentials and the directory should only be readable by the service account. Each record is deserialized on its own, limited in size and restricted to
+ * the classes a record is made of.
+ * <p>
+ * Spooled requests are resubmitted directly to the audit service. A spool file is claimed by atomically renaming it with a {@value #CLAIMED_SUFFIX} suffix
+ * before it is read, so that concurrent resubmissions never send the same requests, and is only removed once each of its requests has been delivered,
+ * spooled again after a transient failure, or set aside after a permanent rejection. Files still claimed when the spool is opened were left by a process
+ * which stopped mid-resubmission, and are returned to the spool. Spool files which cannot be read, and requests which the audit service
+ * rejects as invalid, are left with a {@value #FAILED_SUFFIX} suffix for an operator.
+ */
+public class AuditSpool {
+    
+    static final String FILE_PREFIX = "audit-spool-";
+    static final String FILE_SUFFIX = ".spool";
+    static final String FAILED_SUFFIX = ".failed";
+    static final String CLAIMED_SUFFIX = ".inprogress";
+    
+    static final int MAGIC = 0x44575351;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long NO_DEADLINE = -1L;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+    
+    // Only the types making up a spooled record, i.e., its audit type, parameters and user details, may be deserialized
+    //@formatter:off
+    private static final ObjectInputFilter RECORD_FILTER = ObjectInputFilter.Config.createFilter(String.join(";",
+            "maxdepth=20",
+            "maxrefs=100000",
+            "maxarray=100000",
+            "maxbytes=" + MAX_RECORD_BYTES,
+            "java.lang.Object",
+            "java.lang.String",
+            "java.lang.String$CaseInsensitiveComparator",
+            "java.lang.Enum",
+            "java.lang.Number",
+            "java.lang.Boolean",
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.util.Map$Entry",
+            "java.util.ArrayList",
+            "java.util.LinkedList",
+            "java.util.Arrays$ArrayList",
+            "java.util.HashMap",
+            "java.util.LinkedHashMap",
+            "java.util.TreeMap",
+            "java.util.HashSet",
+            "java.util.LinkedHashSet",
+            "java.util.TreeSet",
+            "java.util.CollSer",
+            "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableSet",
+            "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList",
+            "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$EmptyList",
+            "java.util.Collections$EmptySet",
+            "java.util.Collections$EmptyMap",
+            "java.util.Collections$SingletonList",
+            "java.util.Collections$SingletonSet",
+            "java.util.Collections$SingletonMap",
+            "com.google.common.collect.HashMultimap",
+            "com.google.common.collect.LinkedHashMultimap",
+            "com.google.common.collect.ArrayListMultimap",
+            "com.google.common.collect.Multimaps$UnmodifiableMultimap",
+            "com.google.common.collect.Multimaps$UnmodifiableSetMultimap",
+            "com.google.common.collect.Multimaps$UnmodifiableListMultimap",
+            "com.google.common.collect.ImmutableListMultimap",
+            "com.google.common.collect.ImmutableSetMultimap",
+            "com.google.common.collect.EmptyImmutableListMultimap",
+            "com.google.common.collect.EmptyImmutableSetMultimap",
+            "org.springframework.util.MultiValueMapAdapter",
+            "org.springframework.util.LinkedMultiValueMap",
+            "org.springframework.security.core.authority.SimpleGrantedAuthority",
+            "datawave.webservice.common.audit.Auditor$AuditType",
+            "datawave.microservice.authorization.user.DatawaveUserDetails",
+            "datawave.security.authorization.DatawaveUser",
+            "datawave.security.authorization.DatawaveUser$UserType",
+            "datawave.security.authorization.SubjectIssuerDNPair",
+            "!*"));
+    //@formatter:on
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Path directory;
+    private final AtomicInteger fileSequence = new AtomicInteger();
+    
+    public AuditSpool(Path directory) throws IOException {
+        Preconditions.checkNotNull(directory, "directory cannot be null");
+        this.directory = Files.createDirectories(directory);
+        releaseClaims();
+    }
+    
+    private void releaseClaims() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX + CLAIMED_SUFFIX)) {
+            for (Path claimed : stream) {
+                String name = claimed.getFileName().toString();
+                Path file = claimed.resolveSibling(name.substring(0, name.length() - CLAIMED_SUFFIX.length()));
+                log.warn("Returning {} to the audit spool, its resubmission did not complete", file);
+                Files.move(claimed, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+    
+    /**
+     * Persists the given requests to a new spool file
+     *
+     * @param audits
+     *            the undelivered requests
+     * @return the spool file, or null if there was nothing to write
+     * @throws IOException
+     *             if the spool file could not be written
+     */
+    public Path write(Collection<AuditClient.PendingAudit> audits) throws IOException {
+        if (audits.isEmpty()) {
+            return null;
+        }
+        String name = String.format("%s%s-%06d", FILE_PREFIX, LocalDateTime.now().format(FILE_TIMESTAMP), fileSequence.getAndIncrement());
+        Path temp = directory.resolve(name + ".tmp");
+        List<byte[]> records = new ArrayList<>(audits.size());
+        for (AuditClient.PendingAudit audit : audits) {
+            byte[] record = serialize(audit);
+            if (record.length > MAX_RECORD_BYTES) {
+                log.error("Audit request of {} bytes is too large to spool and has been lost: {}", record.length, audit.getRequest());
+            } else {
+                records.add(record);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(records.size());
+            for (byte[] record : records) {
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+        return Files.move(temp, directory.resolve(name + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static byte[] serialize(AuditClient.PendingAudit audit) throws IOException {
+        AuditClient.Request request = audit.getRequest();
+        // Copied so that the parameter values are held in the list type the filter allows
+        LinkedMultiValueMap<String,String> paramMap = new LinkedMultiValueMap<>(request.paramMap.size());
+        paramMap.addAll(request.paramMap);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(record)) {
+            out.writeUTF(audit.getRequestPath());
+            out.writeObject(request.auditType);
+            out.writeObject(paramMap);
+            out.writeLong(remainingMillis(request.deadline));
+            out.writeObject(request.userDetails);
+        }
+        return record.toByteArray();
+    }
+    
+    /**
+     * Resubmits every spooled request to the audit service through the given client, waiting for each to be delivered. Each spool file is removed once its
+     * requests have been resubmitted; requests which fail again are written to a new spool file, and requests which were rejected as invalid to a new
+     * {@value #FAILED_SUFFIX} file.
+     *
+     * @param auditClient
+     *            the client to resubmit through
+     * @return the number of requests successfully delivered
+     * @throws IOException
+     *             if the spool directory could not be read
+     */
+    public int resubmit(AuditClient auditClient) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        
+        int resubmitted = 0;
+        for (Path file : files) {
+            Path claimed = claim(file);
+            if (null == claimed) {
+                continue;
+            }
+            List<AuditClient.PendingAudit> audits;
+            try {
+                audits = read(claimed);
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                log.error("Unable to read audit spool file {}, leaving it for manual recovery", file, e);
+                Files.move(claimed, file.resolveSibling(file.getFileName() + FAILED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+                continue;
+            }
+            
+            List<AuditClient.PendingAudit> failed = new ArrayList<>();
+            List<AuditClient.PendingAudit> rejected = new ArrayList<>();
+            for (AuditClient.PendingAudit audit : audits) {
+                try {
+                    auditClient.resend(audit.getRequest(), audit.getRequestPath());
+                    resubmitted++;
+                } catch (RuntimeException e) {
+                    if (isRejection(e)) {
+                        log.error("Audit service rejected spooled audit request from {}", file, e);
+                        rejected.add(audit);
+                    } else {
+                        log.debug("Failed to resubmit spooled audit request", e);
+                        failed.add(audit);
+                    }
+                }
+            }
+            write(failed);
+            Path rejectedFile = write(rejected);
+            if (null != rejectedFile) {
+                Files.move(rejectedFile, rejectedFile.resolveSibling(rejectedFile.getFileName() + FAILED_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.delete(claimed);
+            if (!failed.isEmpty()) {
+                log.warn("Failed to resubmit {} of {} audit requests from {}, spooled them again", failed.size(), audits.size(), file);
+            }
+            if (!rejected.isEmpty()) {
+                log.error("{} of {} audit requests from {} were rejected, left them for manual recovery", rejected.size(), audits.size(), file);
+            }
+        }
+        return resubmitted;
+    }
+    
+    /**
+     * Atomically renames the spool file so that no other resubmission reads it
+     *
+     * @return the claimed file, or null if another resubmission claimed it first
+     */
+    private static Path claim(Path file) throws IOException {
+        try {
+            return Files.move(file, file.resolveSibling(file.getFileName() + CLAIMED_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Whether resubmitting the request again cannot succeed, because it failed validation or the audit service rejected it as invalid
+     */
+    private static boolean isRejection(RuntimeException e) {
+        if (e instanceof HttpClientErrorException) {
+            HttpStatus status = ((HttpClientErrorException) e).getStatusCode();
+            return status != HttpStatus.REQUEST_TIMEOUT && status != HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return e instanceof IllegalArgumentException;
+    }
+    
+    /**
+     * The budget left rather than the deadline itself, so that time spent spooled does not count against it. A request whose deadline passed while it was
+     * queued has already been accepted, so it is resubmitted without a deadline rather than failing every attempt.
+     */
+    private static long remainingMillis(Instant deadline) {
+        if (null == deadline) {
+            return NO_DEADLINE;
+        }
+        long remaining = Duration.between(Instant.now(), deadline).toMillis();
+        return remaining > 0 ? remaining : NO_DEADLINE;
+    }
+    
+    private List<AuditClient.PendingAudit> read(Path file) throws IOException, ClassNotFoundException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new StreamCorruptedException("Not an audit spool file: " + file);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new StreamCorruptedException("Invalid record count " + count + " in " + file);
+            }
+            List<AuditClient.PendingAudit> audits = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    throw new StreamCorruptedException("Invalid record length " + length + " in " + file);
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                audits.add(deserialize(record));
+            }
+            return audits;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static AuditClient.PendingAudit deserialize(byte[] record) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(record))) {
+            in.setObjectInputFilter(RECORD_FILTER);
+            String requestPath = in.readUTF();
+            AuditType auditType = (AuditType) in.readObject();
+            MultiValueMap<String,String> paramMap = (MultiValueMap<String,String>) in.readObject();
+            long remainingMillis = in.readLong();
+            Instant deadline = remainingMillis == NO_DEADLINE ? null : Instant.now().plusMillis(remainingMillis);
+            DatawaveUserDetails userDetails = (DatawaveUserDetails) in.readObject();
+            return new AuditClient.PendingAudit(AuditClient.Request.restore(paramMap, userDetails, auditType, deadline), requestPath, null);
+        }
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,85 @@
+package datawave.microservice.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.util.MultiValueMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Remembers audit parameter sets which passed client-side validation, so that repeated submissions of an identical set, such as those made for each page of
+ * a paged query, skip revalidation
+ * <p>
+ * Parameter sets are keyed by a 128-bit hash of their sorted contents, and only successful validations are cached. Memoization is only safe for the stock
+ * {@link AuditParameters} validator, so validation is always performed in full when the configured validator is of any other type. Cache statistics are
+ * published under {@value #CACHE_NAME}.
+ */
+public class AuditValidationCache {
+    
+    public static final String CACHE_NAME = "audit.client.validation";
+    
+    private final Cache<HashCode,Boolean> validated;
+    
+    public AuditValidationCache(long maximumSize, Duration expireAfterWrite, MeterRegistry meterRegistry) {
+        this.validated = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats().build();
+        if (null != meterRegistry) {
+            GuavaCacheMetrics.monitor(meterRegistry, validated, CACHE_NAME);
+        }
+    }
+    
+    /**
+     * Validates the given request, unless an identical parameter set was recently validated by a stock {@link AuditParameters} instance
+     *
+     * @param request
+     *            the request to validate
+     * @param validator
+     *            the validator to use on a cache miss
+     * @throws IllegalArgumentException
+     *             if validation fails
+     */
+    public void validate(AuditClient.Request request, AuditParameters validator) {
+        if (validator.getClass() != AuditParameters.class) {
+            AuditClient.validate(request, validator);
+            return;
+        }
+        HashCode key = hash(request.paramMap);
+        if (null == validated.getIfPresent(key)) {
+            AuditClient.validate(request, validator);
+            validated.put(key, Boolean.TRUE);
+        }
+    }
+    
+    static HashCode hash(MultiValueMap<String,String> params) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (Map.Entry<String,List<String>> entry : new TreeMap<>(params).entrySet()) {
+            putString(hasher, entry.getKey());
+            List<String> values = entry.getValue();
+            hasher.putInt(null == values ? -1 : values.size());
+            if (null != values) {
+                values.forEach(value -> putString(hasher, value));
+            }
+        }
+        return hasher.hash();
+    }
+    
+    private static void putString(Hasher hasher, String value) {
+        // Length-prefixed, so that adjacent strings cannot run together
+        if (null == value) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,23 +1,144 @@
 package datawave.microservice.audit.config;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.function.Supplier;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.AuditClientShutdown;
+import datawave.microservice.audit.AuditClientWarmup;
+import datawave.microservice.audit.AuditQueryReferences;
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.AuditSpool;
+import datawave.microservice.audit.AuditValidationCache;
+import datawave.microservice.audit.health.InstanceHealthTracker;
+import datawave.microservice.audit.lane.AuditLanes;
+import datawave.microservice.audit.retry.AuditSubmissionRetrier;
+import datawave.microservice.audit.sink.FileAuditSink;
+import datawave.microservice.audit.zone.ZonePreference;
 import datawave.webservice.common.audit.AuditParameters;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @ConditionalOnProperty(name = "audit-client.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties({AuditSinkProperties.class, AuditLaneProperties.class, AuditWarmupProperties.class, AuditRetryProperties.class,
+                AuditHealthProperties.class, AuditZoneProperties.class, AuditValidationCacheProperties.class, AuditShutdownProperties.class,
+                AuditQueryReferenceProperties.class})
 public class AuditClientConfiguration {
+    // Spring Cloud Stream binds a lone Supplier bean as a stream function, so with Spring Cloud Function present the audit client uses its built-in default
     @Bean
     @Qualifier("auditRequestValidator")
     @ConditionalOnMissingBean(name = "auditRequestValidator")
+    @ConditionalOnMissingClass("org.springframework.cloud.function.context.FunctionCatalog")
     @ConditionalOnProperty(name = "datawave.defaults.AuditParametersSupplier.enabled", havingValue = "true", matchIfMissing = true)
     public Supplier<AuditParameters> auditValidationSupplier() {
         return AuditParameters::new;
     }
+    
+    @Bean
+    @Qualifier("auditSinkExecutor")
+    @ConditionalOnMissingBean(name = "auditSinkExecutor")
+    public ThreadPoolTaskExecutor auditSinkExecutor(AuditSinkProperties sinkProperties) {
+        // A pool only grows past its core size once the queue is full, so every thread is a core thread and idle ones time out instead
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sinkProperties.getMaxPoolSize());
+        executor.setMaxPoolSize(sinkProperties.getMaxPoolSize());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(sinkProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("auditSink-");
+        executor.setDaemon(true);
+        return executor;
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.sinks.file.enabled", havingValue = "true")
+    public FileAuditSink fileAuditSink(AuditSinkProperties sinkProperties) throws IOException {
+        AuditSinkProperties.FileSinkProperties fileProperties = sinkProperties.getFile();
+        return new FileAuditSink(Paths.get(fileProperties.getDirectory()), fileProperties.getFilePrefix(), fileProperties.getFileSize().toBytes(),
+                        fileProperties.getDurabilityWindow(), fileProperties.getQueueCapacity(), fileProperties.getMaxBatchSize(),
+                        fileProperties.getWriteTimeout());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.lanes.enabled", havingValue = "true")
+    public AuditLanes auditLanes(AuditLaneProperties laneProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new AuditLanes(laneProperties, meterRegistry.getIfAvailable());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.warmup.enabled", havingValue = "true")
+    public AuditClientWarmup auditClientWarmup(AuditClient auditClient, AuditServiceProvider serviceProvider, AuditWarmupProperties warmupProperties,
+                    @Qualifier("auditRequestValidator") ObjectProvider<Supplier<AuditParameters>> validationSupplier,
+                    ObjectProvider<MeterRegistry> meterRegistry) {
+        return new AuditClientWarmup(auditClient, serviceProvider, warmupProperties, validationSupplier.getIfAvailable(() -> AuditParameters::new),
+                        meterRegistry.getIfAvailable());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.retry.enabled", havingValue = "true")
+    public AuditSubmissionRetrier auditSubmissionRetrier(AuditRetryProperties retryProperties) {
+        return new AuditSubmissionRetrier(retryProperties);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.health.enabled", havingValue = "true")
+    public InstanceHealthTracker auditInstanceHealthTracker(AuditHealthProperties healthProperties) {
+        return new InstanceHealthTracker(healthProperties);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.zone.enabled", havingValue = "true")
+    public ZonePreference auditZonePreference(AuditZoneProperties zoneProperties, Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        String localZone = null != zoneProperties.getLocalZone() ? zoneProperties.getLocalZone() : environment.getProperty("spring.cloud.loadbalancer.zone");
+        if (null == localZone || localZone.isEmpty()) {
+            throw new IllegalStateException("Zone-aware selection requires audit-client.zone.local-zone or spring.cloud.loadbalancer.zone");
+        }
+        return new ZonePreference(localZone, zoneProperties, meterRegistry.getIfAvailable());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.validation-cache.enabled", havingValue = "true")
+    public AuditValidationCache auditValidationCache(AuditValidationCacheProperties cacheProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new AuditValidationCache(cacheProperties.getMaximumSize(), cacheProperties.getExpireAfterWrite(), meterRegistry.getIfAvailable());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.query-references.enabled", havingValue = "true")
+    public AuditQueryReferences auditQueryReferences(AuditQueryReferenceProperties referenceProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        //@formatter:off
+        return new AuditQueryReferences(
+                referenceProperties.getMinQueryLength(),
+                referenceProperties.getMaximumSize(),
+                referenceProperties.getExpireAfterWrite(),
+                referenceProperties.getUnsupportedRetryInterval(),
+                meterRegistry.getIfAvailable());
+        //@formatter:on
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "audit-client.shutdown.enabled", havingValue = "true")
+    public AuditClientShutdown auditClientShutdown(AuditClient auditClient, AuditShutdownProperties shutdownProperties) throws IOException {
+        AuditSpool spool = shutdownProperties.isSpoolEnabled() ? new AuditSpool(Paths.get(shutdownProperties.getSpoolDirectory())) : null;
+        return new AuditClientShutdown(auditClient, spool, shutdownProperties);
+    }
 }
@@ -0,0 +1,110 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Passive health tracking of audit service instances, see {@link datawave.microservice.audit.health.InstanceHealthTracker}
+ */
+@ConfigurationProperties(prefix = "audit-client.health")
+public class AuditHealthProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Number of consecutive failed submissions after which an instance is ejected
+     */
+    private int consecutiveErrors = 5;
+    
+    /**
+     * An instance is ejected when its average latency exceeds the median of its peers by this factor
+     */
+    private double latencyFactor = 3.0;
+    
+    /**
+     * Number of latency samples required before an instance is compared against its peers, or is used as a peer
+     */
+    private int minLatencySamples = 20;
+    
+    /**
+     * Ejection time of the first ejection, doubled for each subsequent ejection of the same instance
+     */
+    private Duration baseEjectionTime = Duration.ofSeconds(5);
+    
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+    
+    /**
+     * Maximum percentage of known instances which may be ejected at once
+     */
+    private int maxEjectionPercent = 50;
+    
+    /**
+     * Time after which an unanswered probe no longer blocks the next probe of the same instance
+     */
+    private Duration probeTimeout = Duration.ofSeconds(10);
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+    
+    public void setConsecutiveErrors(int consecutiveErrors) {
+        this.consecutiveErrors = consecutiveErrors;
+    }
+    
+    public double getLatencyFactor() {
+        return latencyFactor;
+    }
+    
+    public void setLatencyFactor(double latencyFactor) {
+        this.latencyFactor = latencyFactor;
+    }
+    
+    public int getMinLatencySamples() {
+        return minLatencySamples;
+    }
+    
+    public void setMinLatencySamples(int minLatencySamples) {
+        this.minLatencySamples = minLatencySamples;
+    }
+    
+    public Duration getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+    
+    public void setBaseEjectionTime(Duration baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+    
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+    
+    public void setMaxEjectionTime(Duration maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+    
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+    
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+    
+    public Duration getProbeTimeout() {
+        return probeTimeout;
+    }
+    
+    public void setProbeTimeout(Duration probeTimeout) {
+        this.probeTimeout = probeTimeout;
+    }
+}
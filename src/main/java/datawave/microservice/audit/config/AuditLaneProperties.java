@@ -0,0 +1,286 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Properties for the per-{@link AuditType} submission lanes, see {@link datawave.microservice.audit.lane.AuditLanes}
+ */
+@ConfigurationProperties(prefix = "audit-client.lanes")
+public class AuditLaneProperties {
+    
+    /**
+     * How a lane delivers audit requests
+     */
+    public enum Mode {
+        /**
+         * Deliver on the submitting thread, which waits for the acknowledgement
+         */
+        SYNC,
+        /**
+         * Queue the request and deliver it from the lane's worker threads
+         */
+        ASYNC
+    }
+    
+    /**
+     * What a lane does when it has no capacity for another request
+     */
+    public enum Overflow {
+        /**
+         * Wait until capacity is available
+         */
+        BLOCK,
+        /**
+         * Fail the submission
+         */
+        REJECT,
+        /**
+         * Deliver on the submitting thread, bypassing the lane's limits
+         */
+        CALLER_RUNS,
+        /**
+         * Drop the request, logging a warning
+         */
+        DISCARD
+    }
+    
+    /**
+     * Queue between submitting threads and the workers of an ASYNC lane
+     */
+    public enum QueueType {
+        /**
+         * {@link java.util.concurrent.ArrayBlockingQueue}, which takes a single lock on every offer and poll
+         */
+        ARRAY,
+        /**
+         * Lock-free {@link datawave.microservice.audit.lane.RingBufferAuditQueue}, for lanes with many concurrent submitters
+         */
+        RING_BUFFER
+    }
+    
+    /**
+     * How threads wait on a {@link QueueType#RING_BUFFER} queue, workers for requests and submitters for space
+     */
+    public enum WaitStrategy {
+        /**
+         * Spin continuously. Lowest latency, but each idle worker occupies a core
+         */
+        BUSY_SPIN,
+        /**
+         * Spin briefly, then yield the processor between checks
+         */
+        YIELD,
+        /**
+         * Spin and yield briefly, then park for increasing intervals of up to 1ms
+         */
+        PARK
+    }
+    
+    private boolean enabled = false;
+    
+    /**
+     * Lane settings by audit type. Requests without an audit type use the {@link AuditType#ACTIVE} lane
+     */
+    private Map<AuditType,Lane> types = new EnumMap<>(AuditType.class);
+    
+    public AuditLaneProperties() {
+        Lane active = new Lane();
+        active.setMode(Mode.SYNC);
+        active.setConcurrency(64);
+        types.put(AuditType.ACTIVE, active);
+        
+        Lane localOnly = new Lane();
+        localOnly.setMode(Mode.SYNC);
+        localOnly.setConcurrency(16);
+        types.put(AuditType.LOCALONLY, localOnly);
+        
+        types.put(AuditType.PASSIVE, asyncLane());
+        types.put(AuditType.NONE, asyncLane());
+    }
+    
+    private static Lane asyncLane() {
+        Lane lane = new Lane();
+        lane.setMode(Mode.ASYNC);
+        lane.setConcurrency(4);
+        lane.setMaxBatchSize(256);
+        return lane;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public Map<AuditType,Lane> getTypes() {
+        return types;
+    }
+    
+    public void setTypes(Map<AuditType,Lane> types) {
+        this.types = types;
+    }
+    
+    public static class Lane {
+        
+        private Mode mode = Mode.SYNC;
+        
+        /**
+         * For SYNC lanes, the maximum number of concurrent deliveries. For ASYNC lanes, the number of worker threads
+         */
+        private int concurrency = 16;
+        
+        /**
+         * Maximum number of queued requests (ASYNC lanes only)
+         */
+        private int queueCapacity = 10000;
+        
+        private Overflow overflow = Overflow.BLOCK;
+        
+        /**
+         * How long a SYNC lane submission waits for a delivery slot before the overflow action applies. Not used with {@link Overflow#BLOCK}
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+        
+        /**
+         * Maximum number of requests a worker takes from the queue at once (ASYNC lanes only)
+         */
+        private int maxBatchSize = 1;
+        
+        /**
+         * How long a worker waits for a batch to fill before delivering it (ASYNC lanes only). Each request in a batch is still delivered with its own call,
+         * so a non-zero linger only delays delivery
+         */
+        private Duration linger = Duration.ZERO;
+        
+        /**
+         * Whether to share the queue fairly between users, by primary user DN (ASYNC lanes only)
+         */
+        private boolean fairQueuing = false;
+        
+        /**
+         * Maximum number of queued requests for a single user, when queuing fairly
+         */
+        private int perUserCapacity = 1000;
+        
+        /**
+         * Relative share of the lane for specific users, by primary user DN, when queuing fairly. Users not listed have a weight of 1. DNs must be bracketed
+         * when used as property keys, e.g., {@code user-weights.[cn=user, o=org]=4}
+         */
+        private Map<String,Integer> userWeights = new HashMap<>();
+        
+        /**
+         * Queue between submitters and workers (ASYNC lanes only). Cannot be {@link QueueType#RING_BUFFER} when queuing fairly
+         */
+        private QueueType queueType = QueueType.ARRAY;
+        
+        /**
+         * How threads wait on a {@link QueueType#RING_BUFFER} queue
+         */
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+        
+        public Mode getMode() {
+            return mode;
+        }
+        
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+        
+        public int getConcurrency() {
+            return concurrency;
+        }
+        
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public Overflow getOverflow() {
+            return overflow;
+        }
+        
+        public void setOverflow(Overflow overflow) {
+            this.overflow = overflow;
+        }
+        
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+        
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+        
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+        
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+        
+        public Duration getLinger() {
+            return linger;
+        }
+        
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+        
+        public boolean isFairQueuing() {
+            return fairQueuing;
+        }
+        
+        public void setFairQueuing(boolean fairQueuing) {
+            this.fairQueuing = fairQueuing;
+        }
+        
+        public int getPerUserCapacity() {
+            return perUserCapacity;
+        }
+        
+        public void setPerUserCapacity(int perUserCapacity) {
+            this.perUserCapacity = perUserCapacity;
+        }
+        
+        public Map<String,Integer> getUserWeights() {
+            return userWeights;
+        }
+        
+        public void setUserWeights(Map<String,Integer> userWeights) {
+            this.userWeights = userWeights;
+        }
+        
+        public QueueType getQueueType() {
+            return queueType;
+        }
+        
+        public void setQueueType(QueueType queueType) {
+            this.queueType = queueType;
+        }
+        
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+        
+        public void setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sending large query strings by reference, see {@link datawave.microservice.audit.AuditQueryReferences}
+ */
+@ConfigurationProperties(prefix = "audit-client.query-references")
+public class AuditQueryReferenceProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Query strings at least this many characters long are sent in full once per audit service instance, then by digest
+     */
+    private int minQueryLength = 64 * 1024;
+    
+    /**
+     * Maximum number of delivered query strings to remember, across all instances
+     */
+    private long maximumSize = 10000;
+    
+    /**
+     * How long an audit service instance is assumed to hold a delivered query string. Should not exceed the audit service's own retention.
+     */
+    private Duration expireAfterWrite = Duration.ofHours(1);
+    
+    /**
+     * How long to send only full query strings to an instance which rejected a query reference
+     */
+    private Duration unsupportedRetryInterval = Duration.ofMinutes(10);
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getMinQueryLength() {
+        return minQueryLength;
+    }
+    
+    public void setMinQueryLength(int minQueryLength) {
+        this.minQueryLength = minQueryLength;
+    }
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+    
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+    
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+    
+    public Duration getUnsupportedRetryInterval() {
+        return unsupportedRetryInterval;
+    }
+    
+    public void setUnsupportedRetryInterval(Duration unsupportedRetryInterval) {
+        this.unsupportedRetryInterval = unsupportedRetryInterval;
+    }
+}
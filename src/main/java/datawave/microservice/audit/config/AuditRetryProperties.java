@@ -0,0 +1,139 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Retry settings for audit submission, see {@link datawave.microservice.audit.retry.AuditSubmissionRetrier}. Backoff settings mirror those of
+ * {@link datawave.microservice.audit.config.discovery.RetryProperties}.
+ */
+@ConfigurationProperties("audit-client.retry")
+public class AuditRetryProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Initial retry interval in milliseconds.
+     */
+    private long initialInterval = 100;
+    /**
+     * Multiplier for next interval.
+     */
+    private double multiplier = 2.0;
+    /**
+     * Maximum interval for backoff.
+     */
+    private long maxInterval = 2000;
+    /**
+     * Maximum number of attempts.
+     */
+    private int maxAttempts = 3;
+    
+    /**
+     * Whether the audit service discards duplicate submissions. Only then are failures which may occur after the request was sent, such as read timeouts
+     * and {@code 502} or {@code 504} responses, retried.
+     */
+    private boolean deduplicated = false;
+    
+    private Budget budget = new Budget();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getInitialInterval() {
+        return this.initialInterval;
+    }
+    
+    public void setInitialInterval(long initialInterval) {
+        this.initialInterval = initialInterval;
+    }
+    
+    public double getMultiplier() {
+        return this.multiplier;
+    }
+    
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+    
+    public long getMaxInterval() {
+        return this.maxInterval;
+    }
+    
+    public void setMaxInterval(long maxInterval) {
+        this.maxInterval = maxInterval;
+    }
+    
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+    
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+    
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+    
+    public void setDeduplicated(boolean deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+    
+    public Budget getBudget() {
+        return budget;
+    }
+    
+    public void setBudget(Budget budget) {
+        this.budget = budget;
+    }
+    
+    /**
+     * Limits retries to a fraction of the submissions made within a sliding window, so that an outage does not multiply the load on the audit service
+     */
+    public static class Budget {
+        
+        /**
+         * Maximum ratio of retries to submissions within the window.
+         */
+        private double maxRetryRatio = 0.1;
+        /**
+         * Retries always permitted within the window, regardless of the ratio.
+         */
+        private int minRetries = 10;
+        /**
+         * Length of the sliding window.
+         */
+        private Duration window = Duration.ofSeconds(10);
+        
+        public double getMaxRetryRatio() {
+            return maxRetryRatio;
+        }
+        
+        public void setMaxRetryRatio(double maxRetryRatio) {
+            this.maxRetryRatio = maxRetryRatio;
+        }
+        
+        public int getMinRetries() {
+            return minRetries;
+        }
+        
+        public void setMinRetries(int minRetries) {
+            this.minRetries = minRetries;
+        }
+        
+        public Duration getWindow() {
+            return window;
+        }
+        
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package datawave.microservice.audit.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -22,6 +24,21 @@ public class AuditServiceProperties {
      */
     private boolean failFastAudit = true;
     
+    /**
+     * How audit requests reach the audit service
+     */
+    private Transport transport = Transport.HTTP;
+    
+    /**
+     * Whether requests are handed directly to an in-process audit service, if one is present, rather than sent over HTTP
+     */
+    private boolean loopbackEnabled = true;
+    
+    /**
+     * Connection timeouts for both the audit and replay clients, and the time budget for each audit submission
+     */
+    private Timeouts timeouts = new Timeouts();
+    
     public String getUri() {
         return uri;
     }
@@ -53,4 +70,82 @@ public class AuditServiceProperties {
     public void setFailFastAudit(boolean failFastAudit) {
         this.failFastAudit = failFastAudit;
     }
+    
+    public Transport getTransport() {
+        return transport;
+    }
+    
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+    
+    public boolean isLoopbackEnabled() {
+        return loopbackEnabled;
+    }
+    
+    public void setLoopbackEnabled(boolean loopbackEnabled) {
+        this.loopbackEnabled = loopbackEnabled;
+    }
+    
+    public Timeouts getTimeouts() {
+        return timeouts;
+    }
+    
+    public void setTimeouts(Timeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+    
+    public enum Transport {
+        /**
+         * Post each request to the audit service over HTTP
+         */
+        HTTP,
+        /**
+         * Publish requests to a Spring Cloud Stream binding, see {@link AuditStreamProperties}
+         */
+        STREAM
+    }
+    
+    public static class Timeouts {
+        
+        /**
+         * Maximum time to establish a connection to an audit service instance
+         */
+        private Duration connect = Duration.ofSeconds(5);
+        
+        /**
+         * Maximum time to wait for data on an established connection. Bounds every call, so it should exceed the longest per-operation replay timeout.
+         */
+        private Duration read = Duration.ofSeconds(60);
+        
+        /**
+         * Maximum time a caller waits for a single audit submission, or null to rely on the connect and read timeouts alone. A shorter deadline set on the
+         * request itself takes precedence.
+         */
+        private Duration request;
+        
+        public Duration getConnect() {
+            return connect;
+        }
+        
+        public void setConnect(Duration connect) {
+            this.connect = connect;
+        }
+        
+        public Duration getRead() {
+            return read;
+        }
+        
+        public void setRead(Duration read) {
+            this.read = read;
+        }
+        
+        public Duration getRequest() {
+            return request;
+        }
+        
+        public void setRequest(Duration request) {
+            this.request = request;
+        }
+    }
 }
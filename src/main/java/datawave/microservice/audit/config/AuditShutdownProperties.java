@@ -0,0 +1,75 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Properties for draining the audit client on shutdown, see {@link datawave.microservice.audit.AuditClientShutdown}
+ */
+@ConfigurationProperties(prefix = "audit-client.shutdown")
+public class AuditShutdownProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Maximum time to wait for in-progress and queued audit requests to be delivered
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+    
+    /**
+     * Whether requests which could not be delivered in time are spooled to disk and resubmitted on the next startup
+     */
+    private boolean spoolEnabled = true;
+    
+    /**
+     * Directory for spooled requests. Spooled requests include user details, so the directory should only be readable by the service account.
+     */
+    private String spoolDirectory = "audit-spool";
+    
+    /**
+     * Lifecycle phase of the shutdown. The default stops the client after the embedded web server, which stops at {@link SmartLifecycle#DEFAULT_PHASE}.
+     */
+    private int phase = SmartLifecycle.DEFAULT_PHASE - 2048;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+    
+    public void setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+    
+    public boolean isSpoolEnabled() {
+        return spoolEnabled;
+    }
+    
+    public void setSpoolEnabled(boolean spoolEnabled) {
+        this.spoolEnabled = spoolEnabled;
+    }
+    
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+    
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+    
+    public int getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+}
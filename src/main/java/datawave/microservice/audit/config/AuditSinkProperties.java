@@ -0,0 +1,159 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import datawave.microservice.audit.sink.FanOutAuditSink;
+
+/**
+ * Properties controlling delivery to additional {@link datawave.microservice.audit.sink.AuditSink}s
+ */
+@ConfigurationProperties(prefix = "audit-client.sinks")
+public class AuditSinkProperties {
+    
+    /**
+     * When a fan-out delivery to the remote audit service and any additional sinks is considered complete
+     */
+    private FanOutAuditSink.Policy policy = FanOutAuditSink.Policy.ALL;
+    
+    /**
+     * Number of threads delivering to sinks. Threads are started as deliveries arrive, before any are queued, and stop when idle
+     */
+    private int maxPoolSize = 32;
+    
+    /**
+     * Maximum number of deliveries waiting for a thread once every thread is busy
+     */
+    private int queueCapacity = 10000;
+    
+    /**
+     * Local file sink, see {@link datawave.microservice.audit.sink.FileAuditSink}
+     */
+    private FileSinkProperties file = new FileSinkProperties();
+    
+    public FanOutAuditSink.Policy getPolicy() {
+        return policy;
+    }
+    
+    public void setPolicy(FanOutAuditSink.Policy policy) {
+        this.policy = policy;
+    }
+    
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public FileSinkProperties getFile() {
+        return file;
+    }
+    
+    public void setFile(FileSinkProperties file) {
+        this.file = file;
+    }
+    
+    public static class FileSinkProperties {
+        
+        private boolean enabled = false;
+        
+        private String directory = "audit";
+        
+        private String filePrefix = "audit-";
+        
+        /**
+         * Size each file is preallocated to before rotating to the next
+         */
+        private DataSize fileSize = DataSize.ofMegabytes(256);
+        
+        /**
+         * How long the writer waits to gather records from concurrent producers before issuing a single fsync for all of them
+         */
+        private Duration durabilityWindow = Duration.ofMillis(2);
+        
+        private int queueCapacity = 65536;
+        
+        private int maxBatchSize = 8192;
+        
+        /**
+         * How long a send waits for its record to be queued and forced to disk before failing
+         */
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getDirectory() {
+            return directory;
+        }
+        
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+        
+        public String getFilePrefix() {
+            return filePrefix;
+        }
+        
+        public void setFilePrefix(String filePrefix) {
+            this.filePrefix = filePrefix;
+        }
+        
+        public DataSize getFileSize() {
+            return fileSize;
+        }
+        
+        public void setFileSize(DataSize fileSize) {
+            this.fileSize = fileSize;
+        }
+        
+        public Duration getDurabilityWindow() {
+            return durabilityWindow;
+        }
+        
+        public void setDurabilityWindow(Duration durabilityWindow) {
+            this.durabilityWindow = durabilityWindow;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+        
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+        
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+        
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package datawave.microservice.audit.config;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.SubscribableChannel;
+
+import datawave.microservice.audit.transport.AuditTransport;
+import datawave.microservice.audit.transport.StreamAuditTransport;
+
+@Configuration
+@ConditionalOnClass(name = "org.springframework.cloud.stream.function.StreamBridge")
+@ConditionalOnProperty(name = "audit-client.transport", havingValue = "stream")
+@EnableConfigurationProperties(AuditStreamProperties.class)
+public class AuditStreamConfiguration {
+    @Bean
+    @ConditionalOnMissingBean(AuditTransport.class)
+    public StreamAuditTransport streamAuditTransport(StreamBridge streamBridge, AuditStreamProperties streamProperties, BeanFactory beanFactory) {
+        if (!streamProperties.isBrokerAuthenticated()) {
+            throw new IllegalStateException("The stream audit transport carries no signed credential, "
+                            + "set audit-client.stream.broker-authenticated once the broker authenticates publishers");
+        }
+        if (null == streamProperties.getConfirmChannel()) {
+            return new StreamAuditTransport(streamBridge, streamProperties.getBinding(), null);
+        }
+        StreamAuditTransport transport = new StreamAuditTransport(streamBridge, streamProperties.getBinding(), streamProperties.getConfirmTimeout());
+        beanFactory.getBean(streamProperties.getConfirmChannel(), SubscribableChannel.class).subscribe(transport);
+        // The binding's own error channel, so that failed publishes of other bindings are not delivered to the transport
+        String errorChannel = null == streamProperties.getErrorChannel() ? streamProperties.getBinding() + ".errors" : streamProperties.getErrorChannel();
+        beanFactory.getBean(errorChannel, SubscribableChannel.class).subscribe(transport);
+        return transport;
+    }
+}
@@ -0,0 +1,80 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties for the message bus transport, see {@link datawave.microservice.audit.transport.StreamAuditTransport}
+ */
+@ConfigurationProperties(prefix = "audit-client.stream")
+public class AuditStreamProperties {
+    
+    /**
+     * Output binding to publish audit messages to. If no binding with this name is configured, it is used as the destination name.
+     */
+    private String binding = "audit";
+    
+    /**
+     * Confirms that the broker authenticates publishers and only lets trusted services publish to the binding's destination. Messages carry the user DN in a
+     * header but no signed credential, so the audit service trusts every message on the destination, and the transport will not start unless this is set.
+     */
+    private boolean brokerAuthenticated = false;
+    
+    /**
+     * Name of the channel the binder sends publisher confirms to, e.g., the Rabbit binder's {@code confirmAckChannel} or the Kafka binder's
+     * {@code recordMetadataChannel}. If unset, a submission completes once the binding accepts the message.
+     */
+    private String confirmChannel;
+    
+    /**
+     * Name of the channel failed publishes are reported to when confirms are enabled. Defaults to the binding's own error channel, {@code <binding>.errors},
+     * which the binder creates when the binding has {@code error-channel-enabled} set.
+     */
+    private String errorChannel;
+    
+    /**
+     * How long to wait for a publisher confirm before failing the submission
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(10);
+    
+    public String getBinding() {
+        return binding;
+    }
+    
+    public void setBinding(String binding) {
+        this.binding = binding;
+    }
+    
+    public boolean isBrokerAuthenticated() {
+        return brokerAuthenticated;
+    }
+    
+    public void setBrokerAuthenticated(boolean brokerAuthenticated) {
+        this.brokerAuthenticated = brokerAuthenticated;
+    }
+    
+    public String getConfirmChannel() {
+        return confirmChannel;
+    }
+    
+    public void setConfirmChannel(String confirmChannel) {
+        this.confirmChannel = confirmChannel;
+    }
+    
+    public String getErrorChannel() {
+        return errorChannel;
+    }
+    
+    public void setErrorChannel(String errorChannel) {
+        this.errorChannel = errorChannel;
+    }
+    
+    public Duration getConfirmTimeout() {
+        return confirmTimeout;
+    }
+    
+    public void setConfirmTimeout(Duration confirmTimeout) {
+        this.confirmTimeout = confirmTimeout;
+    }
+}
@@ -0,0 +1,49 @@
+package datawave.microservice.audit.config;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import datawave.microservice.audit.tls.HandshakeMetricsSSLSocketFactory;
+import datawave.microservice.audit.tls.SslContextLoader;
+import datawave.microservice.audit.tls.TlsClientHttpRequestFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "audit-client.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AuditTlsProperties.class)
+public class AuditTlsConfiguration {
+    @Bean
+    @Qualifier("auditClientRequestFactory")
+    @ConditionalOnMissingBean(name = "auditClientRequestFactory")
+    @ConditionalOnProperty(name = "audit-client.tls.enabled", havingValue = "true")
+    public ClientHttpRequestFactory auditClientRequestFactory(AuditTlsProperties tlsProperties, Environment environment,
+                    ObjectProvider<RestTemplateBuilder> restTemplateBuilder, ObjectProvider<MeterRegistry> meterRegistry) {
+        Ssl outboundSsl = Binder.get(environment).bind("server.outbound-ssl", Ssl.class).orElseGet(Ssl::new);
+        SSLContext sslContext = SslContextLoader.load(outboundSsl, tlsProperties.getProtocol());
+        SSLSocketFactory socketFactory = sslContext.getSocketFactory();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (null != registry) {
+            socketFactory = new HandshakeMetricsSSLSocketFactory(socketFactory, registry);
+        }
+        ClientHttpRequestFactory configured = restTemplateBuilder.getIfAvailable(RestTemplateBuilder::new).buildRequestFactory();
+        if (null == configured) {
+            configured = new SimpleClientHttpRequestFactory();
+        }
+        return new TlsClientHttpRequestFactory(configured, sslContext, tlsProperties.getSessionCacheSize(),
+                        (int) tlsProperties.getSessionTimeout().getSeconds(), socketFactory);
+    }
+}
@@ -0,0 +1,58 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties for the TLS layer used by the audit and replay clients. Key and trust stores are taken from {@code server.outbound-ssl}.
+ */
+@ConfigurationProperties(prefix = "audit-client.tls")
+public class AuditTlsProperties {
+    
+    private boolean enabled = false;
+    
+    private String protocol = "TLS";
+    
+    /**
+     * Maximum number of client TLS sessions cached for resumption, 0 for no limit
+     */
+    private int sessionCacheSize = 1000;
+    
+    /**
+     * How long a cached client TLS session may be resumed, 0 for no limit
+     */
+    private Duration sessionTimeout = Duration.ofHours(1);
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getProtocol() {
+        return protocol;
+    }
+    
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+    
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+    
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+    
+    public Duration getSessionTimeout() {
+        return sessionTimeout;
+    }
+    
+    public void setSessionTimeout(Duration sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+}
@@ -0,0 +1,24 @@
+package datawave.microservice.audit.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.audit.tracing.AuditTracer;
+import datawave.microservice.audit.tracing.OpenTelemetryAuditTracer;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+
+@Configuration
+@ConditionalOnClass(name = "io.opentelemetry.api.OpenTelemetry")
+@ConditionalOnProperty(name = {"audit-client.enabled", "audit-client.tracing.enabled"}, havingValue = "true", matchIfMissing = true)
+public class AuditTracingConfiguration {
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditTracer auditTracer(ObjectProvider<OpenTelemetry> openTelemetry) {
+        return new OpenTelemetryAuditTracer(openTelemetry.getIfAvailable(GlobalOpenTelemetry::get));
+    }
+}
@@ -0,0 +1,48 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Memoization of client-side audit validation, see {@link datawave.microservice.audit.AuditValidationCache}
+ */
+@ConfigurationProperties(prefix = "audit-client.validation-cache")
+public class AuditValidationCacheProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Maximum number of validated parameter sets to remember
+     */
+    private long maximumSize = 10000;
+    
+    /**
+     * How long a validated parameter set is remembered
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+    
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+    
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
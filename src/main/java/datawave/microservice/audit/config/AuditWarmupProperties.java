@@ -0,0 +1,74 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties for the optional audit client warm-up, see {@link datawave.microservice.audit.AuditClientWarmup}
+ */
+@ConfigurationProperties(prefix = "audit-client.warmup")
+public class AuditWarmupProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Number of connections to open to each audit service instance
+     */
+    private int connections = 4;
+    
+    /**
+     * Number of times to build and validate a synthetic audit request, so the submission path is compiled before real traffic arrives
+     */
+    private int iterations = 2000;
+    
+    /**
+     * Maximum time to spend opening connections
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+    
+    /**
+     * Whether a failed warm-up should prevent the application from starting
+     */
+    private boolean failFast = false;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getConnections() {
+        return connections;
+    }
+    
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+    
+    public int getIterations() {
+        return iterations;
+    }
+    
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+    
+    public Duration getTimeout() {
+        return timeout;
+    }
+    
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+    
+    public boolean isFailFast() {
+        return failFast;
+    }
+    
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+}
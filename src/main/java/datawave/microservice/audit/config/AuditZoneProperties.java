@@ -0,0 +1,72 @@
+package datawave.microservice.audit.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Zone-aware selection of audit service instances, see {@link datawave.microservice.audit.zone.ZonePreference}
+ */
+@ConfigurationProperties(prefix = "audit-client.zone")
+public class AuditZoneProperties {
+    
+    private boolean enabled = false;
+    
+    /**
+     * Zone of this client. Defaults to {@code spring.cloud.loadbalancer.zone} when not set.
+     */
+    private String localZone;
+    
+    /**
+     * Service instance metadata key holding the zone of an audit service instance
+     */
+    private String metadataKey = "zone";
+    
+    /**
+     * Traffic spills over to other zones when fewer than this many local instances are available, e.g., because the others were ejected
+     */
+    private int minLocalInstances = 1;
+    
+    /**
+     * Traffic spills over to other zones when every local instance has at least this many requests in flight, 0 for no limit
+     */
+    private int maxInFlightPerInstance = 0;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getLocalZone() {
+        return localZone;
+    }
+    
+    public void setLocalZone(String localZone) {
+        this.localZone = localZone;
+    }
+    
+    public String getMetadataKey() {
+        return metadataKey;
+    }
+    
+    public void setMetadataKey(String metadataKey) {
+        this.metadataKey = metadataKey;
+    }
+    
+    public int getMinLocalInstances() {
+        return minLocalInstances;
+    }
+    
+    public void setMinLocalInstances(int minLocalInstances) {
+        this.minLocalInstances = minLocalInstances;
+    }
+    
+    public int getMaxInFlightPerInstance() {
+        return maxInFlightPerInstance;
+    }
+    
+    public void setMaxInFlightPerInstance(int maxInFlightPerInstance) {
+        this.maxInFlightPerInstance = maxInFlightPerInstance;
+    }
+}
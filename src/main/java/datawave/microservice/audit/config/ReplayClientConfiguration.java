@@ -0,0 +1,61 @@
+package datawave.microservice.audit.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.audit.replay.partition.LocalReplayFileSystem;
+import datawave.microservice.audit.replay.partition.ReplayFileSystem;
+import datawave.microservice.audit.replay.partition.ReplayPartitioner;
+import datawave.microservice.audit.replay.progress.ReplayProgressTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "audit-client.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ReplayClientProperties.class)
+public class ReplayClientConfiguration {
+    @Bean
+    @Qualifier("replayClientExecutor")
+    @ConditionalOnMissingBean(name = "replayClientExecutor")
+    public ThreadPoolTaskExecutor replayClientExecutor(ReplayClientProperties replayClientProperties) {
+        ReplayClientProperties.ExecutorProperties executorProperties = replayClientProperties.getExecutor();
+        // A pool only grows past its core size once the queue is full, so every thread is a core thread and idle ones time out instead
+        int poolSize = Math.max(executorProperties.getMaxPoolSize(), replayClientProperties.getBulkConcurrency());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(executorProperties.getQueueCapacity());
+        executor.setThreadNamePrefix(executorProperties.getThreadNamePrefix());
+        executor.setDaemon(true);
+        return executor;
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ReplayFileSystem replayFileSystem() {
+        return new LocalReplayFileSystem();
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ReplayPartitioner replayPartitioner(ReplayClient replayClient, AuditServiceProvider serviceProvider, ReplayFileSystem replayFileSystem) {
+        return new ReplayPartitioner(replayClient, serviceProvider, replayFileSystem);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ReplayProgressTracker replayProgressTracker(ReplayClient replayClient, ObjectProvider<MeterRegistry> meterRegistry,
+                    ReplayClientProperties replayClientProperties) {
+        ReplayClientProperties.ProgressProperties progressProperties = replayClientProperties.getProgress();
+        return new ReplayProgressTracker(replayClient, meterRegistry.getIfAvailable(), progressProperties.getWindowSize(),
+                        progressProperties.getMaxSampleAge());
+    }
+}
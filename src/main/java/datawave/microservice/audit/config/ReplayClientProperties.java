@@ -0,0 +1,224 @@
+package datawave.microservice.audit.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties for the audit replay client
+ */
+@ConfigurationProperties(prefix = "audit-client.replay")
+public class ReplayClientProperties {
+    
+    /**
+     * Executor used by the asynchronous {@link datawave.microservice.audit.replay.ReplayClient} operations
+     */
+    private ExecutorProperties executor = new ExecutorProperties();
+    
+    /**
+     * Maximum number of replay requests in flight at once for a single bulk operation. The default executor is sized to at least this many threads, a
+     * custom {@code replayClientExecutor} should be too
+     */
+    private int bulkConcurrency = 8;
+    
+    /**
+     * Sliding window used by the {@link datawave.microservice.audit.replay.progress.ReplayProgressTracker}
+     */
+    private ProgressProperties progress = new ProgressProperties();
+    
+    /**
+     * Optional cache for status and statusAll responses
+     */
+    private StatusCacheProperties statusCache = new StatusCacheProperties();
+    
+    /**
+     * How long a caller waits for each type of replay operation. By default no operation has a budget, and every call runs on the caller's thread.
+     */
+    private TimeoutProperties timeouts = new TimeoutProperties();
+    
+    public ExecutorProperties getExecutor() {
+        return executor;
+    }
+    
+    public void setExecutor(ExecutorProperties executor) {
+        this.executor = executor;
+    }
+    
+    public int getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+    
+    public void setBulkConcurrency(int bulkConcurrency) {
+        this.bulkConcurrency = bulkConcurrency;
+    }
+    
+    public ProgressProperties getProgress() {
+        return progress;
+    }
+    
+    public void setProgress(ProgressProperties progress) {
+        this.progress = progress;
+    }
+    
+    public StatusCacheProperties getStatusCache() {
+        return statusCache;
+    }
+    
+    public void setStatusCache(StatusCacheProperties statusCache) {
+        this.statusCache = statusCache;
+    }
+    
+    public TimeoutProperties getTimeouts() {
+        return timeouts;
+    }
+    
+    public void setTimeouts(TimeoutProperties timeouts) {
+        this.timeouts = timeouts;
+    }
+    
+    public static class ExecutorProperties {
+        
+        /**
+         * Number of threads running async operations. Threads are started as operations arrive, before any are queued, and stop when idle
+         */
+        private int maxPoolSize = 16;
+        
+        /**
+         * Maximum number of async operations waiting for a thread once every thread is busy
+         */
+        private int queueCapacity = 1000;
+        
+        private String threadNamePrefix = "replayClient-";
+        
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+        
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public String getThreadNamePrefix() {
+            return threadNamePrefix;
+        }
+        
+        public void setThreadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+    }
+    
+    public static class ProgressProperties {
+        
+        /**
+         * Maximum number of status samples kept per replay
+         */
+        private int windowSize = 30;
+        
+        /**
+         * Samples older than this, relative to the newest sample, are discarded
+         */
+        private Duration maxSampleAge = Duration.ofMinutes(10);
+        
+        public int getWindowSize() {
+            return windowSize;
+        }
+        
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+        
+        public Duration getMaxSampleAge() {
+            return maxSampleAge;
+        }
+        
+        public void setMaxSampleAge(Duration maxSampleAge) {
+            this.maxSampleAge = maxSampleAge;
+        }
+    }
+    
+    public static class StatusCacheProperties {
+        
+        private boolean enabled = false;
+        
+        /**
+         * How long a status response may be reused. Any mutating call made through the same client invalidates the cache immediately.
+         */
+        private Duration ttl = Duration.ofSeconds(2);
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Duration getTtl() {
+            return ttl;
+        }
+        
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+    
+    public static class TimeoutProperties {
+        
+        /**
+         * Applies to operations without an entry in {@link #operations}, or null to rely on the connect and read timeouts of {@code audit-client.timeouts}.
+         * A call with a timeout runs on a separate thread, so that the caller can give up on it.
+         */
+        private Duration defaultTimeout;
+        
+        /**
+         * Per-operation timeouts, keyed by operation name, e.g., {@code status}, {@code statusAll} or {@code create}. Status calls are cheap and can fail
+         * fast, e.g., after 5s, while create has the audit service list the replay path before responding and needs longer, e.g., 60s.
+         */
+        private Map<String,Duration> operations = new LinkedHashMap<>();
+        
+        public Duration getDefaultTimeout() {
+            return defaultTimeout;
+        }
+        
+        public void setDefaultTimeout(Duration defaultTimeout) {
+            this.defaultTimeout = defaultTimeout;
+        }
+        
+        public Map<String,Duration> getOperations() {
+            return operations;
+        }
+        
+        public void setOperations(Map<String,Duration> operations) {
+            this.operations = operations;
+        }
+        
+        /**
+         * @param operation
+         *            the operation name, matched ignoring case and dashes so that {@code status-all} also matches {@code statusAll}
+         * @return the timeout for the operation
+         */
+        public Duration getTimeout(String operation) {
+            String key = normalize(operation);
+            for (Map.Entry<String,Duration> entry : operations.entrySet()) {
+                if (normalize(entry.getKey()).equals(key)) {
+                    return entry.getValue();
+                }
+            }
+            return defaultTimeout;
+        }
+        
+        private static String normalize(String operation) {
+            return operation.replace("-", "").toLowerCase();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package datawave.microservice.audit.config.discovery;
 
+import java.util.List;
+
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -31,9 +34,9 @@ import datawave.microservice.audit.config.AuditServiceProperties;
 @Configuration
 @ConditionalOnBean(DiscoveryClient.class)
 @ConditionalOnProperty(name = "audit-client.discovery.enabled", havingValue = "true")
-@EnableConfigurationProperties(AuditServiceDiscoveryProperties.class)
+@EnableConfigurationProperties({AuditServiceDiscoveryProperties.class, RetryProperties.class})
 @EnableDiscoveryClient
-public class AuditServiceDiscoveryConfiguration {
+public class AuditServiceDiscoveryConfiguration implements DisposableBean {
     
     private static Logger logger = LoggerFactory.getLogger(AuditServiceDiscoveryConfiguration.class);
     
@@ -41,17 +44,20 @@ public class AuditServiceDiscoveryConfiguration {
     private final AuditServiceDiscoveryProperties discoveryProperties;
     private final AuditServiceProvider instanceProvider;
     private final HeartbeatMonitor monitor;
+    private final AuditServiceDiscoveryRefresher refresher;
     
     //@formatter:off
     @Autowired
     public AuditServiceDiscoveryConfiguration(
             AuditServiceProperties serviceProperties,
             AuditServiceDiscoveryProperties discoveryProperties,
-            AuditServiceProvider instanceProvider) {
+            AuditServiceProvider instanceProvider,
+            RetryProperties retryProperties) {
         this.serviceProperties = serviceProperties;
         this.discoveryProperties = discoveryProperties;
         this.instanceProvider = instanceProvider;
         this.monitor = new HeartbeatMonitor();
+        this.refresher = new AuditServiceDiscoveryRefresher(instanceProvider, discoveryProperties.getRefreshDebounce(), retryProperties);
     }
     //@formatter:on
     
@@ -70,18 +76,27 @@ public class AuditServiceDiscoveryConfiguration {
         refresh();
     }
     
+    /**
+     * Hands the refresh off to the background {@link AuditServiceDiscoveryRefresher}, so that discovery and its retries never block the event thread
+     */
     @EventListener(HeartbeatEvent.class)
     public void heartbeat(HeartbeatEvent event) {
         if (monitor.update(event.getValue())) {
-            refresh();
+            refresher.requestRefresh();
         }
     }
     
+    @Override
+    public void destroy() {
+        refresher.close();
+    }
+    
     private void refresh() {
         logger.debug("Refreshing audit service instance");
         try {
-            ServiceInstance si = instanceProvider.getServiceInstance();
-            logger.debug("Audit server located. URI [{}]", si.getUri());
+            List<ServiceInstance> instances = instanceProvider.getServiceInstances();
+            instanceProvider.publishInstances(instances);
+            logger.debug("Audit server located. URI [{}]", instances.get(0).getUri());
         } catch (Exception e) {
             if (discoveryProperties.isFailFast()) {
                 throw e;
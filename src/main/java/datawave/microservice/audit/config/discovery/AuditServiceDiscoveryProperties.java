@@ -1,5 +1,7 @@
 package datawave.microservice.audit.config.discovery;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,6 +12,11 @@ public class AuditServiceDiscoveryProperties {
     
     private boolean failFast = false;
     
+    /**
+     * Heartbeat-triggered refreshes arriving within this interval are coalesced into a single lookup
+     */
+    private Duration refreshDebounce = Duration.ofSeconds(1);
+    
     public boolean isFailFast() {
         return failFast;
     }
@@ -18,4 +25,12 @@ public class AuditServiceDiscoveryProperties {
         this.failFast = failFast;
     }
     
+    public Duration getRefreshDebounce() {
+        return refreshDebounce;
+    }
+    
+    public void setRefreshDebounce(Duration refreshDebounce) {
+        this.refreshDebounce = refreshDebounce;
+    }
+    
 }
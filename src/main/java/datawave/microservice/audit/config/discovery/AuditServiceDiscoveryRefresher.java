@@ -0,0 +1,104 @@
+package datawave.microservice.audit.config.discovery;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.retry.JitterBackoff;
+
+/**
+ * Refreshes the audit service instances published by an {@link AuditServiceProvider} on a dedicated scheduler thread, so that discovery never blocks the
+ * thread requesting the refresh
+ * <p>
+ * Refresh requests arriving within the debounce interval are coalesced into a single lookup. Failed lookups are retried on the scheduler using exponential
+ * backoff with full jitter ({@link JitterBackoff}), as configured by {@link RetryProperties}, and a newer refresh supersedes any retries still pending from
+ * an older one. If every attempt fails, the previously published instances remain in use.
+ */
+public class AuditServiceDiscoveryRefresher implements AutoCloseable {
+    
+    private static Logger logger = LoggerFactory.getLogger(AuditServiceDiscoveryRefresher.class);
+    
+    private final AuditServiceProvider instanceProvider;
+    private final Duration debounce;
+    private final RetryProperties retryProperties;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    
+    public AuditServiceDiscoveryRefresher(AuditServiceProvider instanceProvider, Duration debounce, RetryProperties retryProperties) {
+        this(instanceProvider, debounce, retryProperties, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "auditDiscoveryRefresh");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+    
+    public AuditServiceDiscoveryRefresher(AuditServiceProvider instanceProvider, Duration debounce, RetryProperties retryProperties,
+                    ScheduledExecutorService scheduler) {
+        Preconditions.checkNotNull(instanceProvider, "instanceProvider cannot be null");
+        Preconditions.checkNotNull(debounce, "debounce cannot be null");
+        Preconditions.checkNotNull(retryProperties, "retryProperties cannot be null");
+        Preconditions.checkNotNull(scheduler, "scheduler cannot be null");
+        this.instanceProvider = instanceProvider;
+        this.debounce = debounce;
+        this.retryProperties = retryProperties;
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * Schedules a refresh after the debounce interval, unless one is already scheduled. Returns immediately.
+     */
+    public void requestRefresh() {
+        if (pending.compareAndSet(false, true)) {
+            scheduler.schedule(this::startRefresh, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            logger.trace("Audit service refresh already pending");
+        }
+    }
+    
+    private void startRefresh() {
+        // Cleared before the lookup, so that a request arriving during the lookup triggers another refresh
+        pending.set(false);
+        attempt(generation.incrementAndGet(), 1);
+    }
+    
+    private void attempt(long refreshGeneration, int attempt) {
+        if (refreshGeneration != generation.get()) {
+            logger.debug("Audit service refresh superseded by a newer refresh");
+            return;
+        }
+        logger.debug("Refreshing audit service instances, attempt {}", attempt);
+        try {
+            List<ServiceInstance> instances = instanceProvider.refreshInstances();
+            logger.debug("Published {} audit service instances", instances.size());
+        } catch (Exception e) {
+            if (attempt >= retryProperties.getMaxAttempts()) {
+                logger.warn("Audit service refresh failed after " + attempt + " attempts, keeping previous instances", e);
+                return;
+            }
+            long delay = backoff(attempt);
+            logger.debug("Audit service refresh failed, retrying in {} ms: {}", delay, e.getMessage());
+            scheduler.schedule(() -> attempt(refreshGeneration, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    long backoff(int attempt) {
+        return JitterBackoff.delay(retryProperties.getInitialInterval(), retryProperties.getMultiplier(), retryProperties.getMaxInterval(), attempt);
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
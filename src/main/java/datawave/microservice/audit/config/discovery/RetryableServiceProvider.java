@@ -1,5 +1,8 @@
 package datawave.microservice.audit.config.discovery;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.retry.annotation.Retryable;
@@ -18,4 +21,18 @@ public class RetryableServiceProvider extends AuditServiceProvider {
     public ServiceInstance getServiceInstance() {
         return super.getServiceInstance();
     }
+    
+    /**
+     * Not retried here: this is only used to choose the instance for a submission retry, which the submission retrier already backs off and bounds
+     */
+    @Override
+    public ServiceInstance getServiceInstance(Collection<ServiceInstance> excluded) {
+        return super.getServiceInstance(excluded);
+    }
+    
+    @Override
+    @Retryable(interceptor = "auditDiscoveryRetryInterceptor")
+    public List<ServiceInstance> getServiceInstances() {
+        return super.getServiceInstances();
+    }
 }
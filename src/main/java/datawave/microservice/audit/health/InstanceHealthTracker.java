@@ -0,0 +1,269 @@
+package datawave.microservice.audit.health;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditHealthProperties;
+
+/**
+ * Passive health tracking of audit service instances, based on the outcome and latency of real submissions
+ * <p>
+ * An instance is ejected after a number of consecutive failures, or when its average latency is an outlier relative to its peers. An ejected instance
+ * receives no traffic for its ejection time, which doubles with each ejection (up to a maximum) and resets once the instance has stayed healthy for the
+ * maximum ejection time. Once the ejection time has passed, a single probe request is routed to the instance: if it succeeds the instance is reinstated,
+ * otherwise it is ejected again.
+ * <p>
+ * No more than the configured percentage of known instances is ejected at once, and if every instance is ejected, all of them are considered available.
+ * Instances are known from the time they are first seen until they drop out of discovery, see {@link #retainInstances(Collection)}.
+ */
+public class InstanceHealthTracker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InstanceHealthTracker.class);
+    
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+    
+    private final AuditHealthProperties properties;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<URI,InstanceState> states = new ConcurrentHashMap<>();
+    // Reserved before an instance is ejected, so that concurrent ejections cannot exceed the maximum ejection percentage
+    private final AtomicInteger ejectedCount = new AtomicInteger();
+    
+    public InstanceHealthTracker(AuditHealthProperties properties) {
+        this(properties, System::nanoTime);
+    }
+    
+    InstanceHealthTracker(AuditHealthProperties properties, LongSupplier nanoClock) {
+        Preconditions.checkNotNull(properties, "properties cannot be null");
+        Preconditions.checkArgument(properties.getConsecutiveErrors() > 0, "consecutiveErrors must be positive");
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+    }
+    
+    /**
+     * @param instances
+     *            candidate instances
+     * @return the candidates which are not ejected, or all of them if every candidate is ejected
+     */
+    public List<ServiceInstance> available(List<ServiceInstance> instances) {
+        List<ServiceInstance> available = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!state(instance).ejected) {
+                available.add(instance);
+            }
+        }
+        return available.isEmpty() ? instances : available;
+    }
+    
+    /**
+     * Claims the probe of an ejected instance whose ejection time has passed, if any. At most one probe per instance is outstanding at a time.
+     *
+     * @param instances
+     *            candidate instances
+     * @return the instance to probe, or null if no probe is due
+     */
+    public ServiceInstance claimProbe(List<ServiceInstance> instances) {
+        long now = nanoClock.getAsLong();
+        for (ServiceInstance instance : instances) {
+            if (state(instance).tryClaimProbe(now)) {
+                logger.debug("Probing ejected audit service instance {}", instance.getUri());
+                return instance;
+            }
+        }
+        return null;
+    }
+    
+    public void recordSuccess(ServiceInstance instance, long latencyNanos) {
+        state(instance).recordSuccess(latencyNanos, nanoClock.getAsLong());
+    }
+    
+    public void recordFailure(ServiceInstance instance) {
+        state(instance).recordFailure(nanoClock.getAsLong());
+    }
+    
+    public boolean isEjected(ServiceInstance instance) {
+        InstanceState state = states.get(instance.getUri());
+        return null != state && state.ejected;
+    }
+    
+    public List<URI> getEjectedInstances() {
+        List<URI> ejected = new ArrayList<>();
+        states.forEach((uri, state) -> {
+            if (state.ejected) {
+                ejected.add(uri);
+            }
+        });
+        return Collections.unmodifiableList(ejected);
+    }
+    
+    /**
+     * Stops tracking instances which are no longer in discovery, so that they no longer count towards the maximum ejection percentage
+     *
+     * @param instances
+     *            the current instances
+     */
+    public void retainInstances(Collection<ServiceInstance> instances) {
+        Set<URI> current = instances.stream().map(ServiceInstance::getUri).collect(Collectors.toSet());
+        for (URI uri : new ArrayList<>(states.keySet())) {
+            if (!current.contains(uri)) {
+                InstanceState state = states.remove(uri);
+                if (null != state) {
+                    logger.debug("No longer tracking audit service instance {}", uri);
+                    state.remove();
+                }
+            }
+        }
+    }
+    
+    private InstanceState state(ServiceInstance instance) {
+        return states.computeIfAbsent(instance.getUri(), InstanceState::new);
+    }
+    
+    /**
+     * Atomically counts one more ejected instance, if that stays within the maximum ejection percentage
+     */
+    private boolean tryReserveEjection() {
+        while (true) {
+            int ejected = ejectedCount.get();
+            if ((ejected + 1) * 100L > (long) properties.getMaxEjectionPercent() * states.size()) {
+                return false;
+            }
+            if (ejectedCount.compareAndSet(ejected, ejected + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private double peerMedianLatency(InstanceState self) {
+        List<Double> peers = new ArrayList<>();
+        for (InstanceState state : states.values()) {
+            if (state != self && !state.ejected && state.samples >= properties.getMinLatencySamples()) {
+                peers.add(state.latencyEwma);
+            }
+        }
+        if (peers.isEmpty()) {
+            return Double.NaN;
+        }
+        Collections.sort(peers);
+        int mid = peers.size() / 2;
+        return peers.size() % 2 == 1 ? peers.get(mid) : (peers.get(mid - 1) + peers.get(mid)) / 2;
+    }
+    
+    private class InstanceState {
+        
+        private final URI uri;
+        private volatile boolean ejected;
+        private volatile double latencyEwma;
+        private volatile int samples;
+        private int consecutiveErrors;
+        private int ejections;
+        private long ejectedUntil;
+        private long reinstatedAt;
+        private long probeClaimedAt;
+        private boolean probing;
+        private boolean removed;
+        
+        InstanceState(URI uri) {
+            this.uri = uri;
+        }
+        
+        synchronized boolean tryClaimProbe(long now) {
+            if (!ejected || now - ejectedUntil < 0) {
+                return false;
+            }
+            if (probing && now - probeClaimedAt < properties.getProbeTimeout().toNanos()) {
+                return false;
+            }
+            probing = true;
+            probeClaimedAt = now;
+            return true;
+        }
+        
+        synchronized void recordSuccess(long latencyNanos, long now) {
+            if (ejected) {
+                if (probing) {
+                    logger.info("Reinstating audit service instance {} after successful probe", uri);
+                    ejected = false;
+                    ejectedCount.decrementAndGet();
+                    probing = false;
+                    reinstatedAt = now;
+                    samples = 0;
+                    consecutiveErrors = 0;
+                }
+                return;
+            }
+            consecutiveErrors = 0;
+            latencyEwma = samples == 0 ? latencyNanos : LATENCY_EWMA_ALPHA * latencyNanos + (1 - LATENCY_EWMA_ALPHA) * latencyEwma;
+            samples++;
+            if (samples >= properties.getMinLatencySamples()) {
+                double peerMedian = peerMedianLatency(this);
+                if (latencyEwma > properties.getLatencyFactor() * peerMedian) {
+                    eject(now, String.format("average latency %.1f ms exceeds peer median %.1f ms", latencyEwma / 1e6, peerMedian / 1e6));
+                }
+            }
+        }
+        
+        synchronized void recordFailure(long now) {
+            if (ejected) {
+                if (probing) {
+                    probing = false;
+                    reeject(now, "probe failed");
+                }
+                return;
+            }
+            if (++consecutiveErrors >= properties.getConsecutiveErrors()) {
+                eject(now, consecutiveErrors + " consecutive errors");
+            }
+        }
+        
+        synchronized void remove() {
+            removed = true;
+            if (ejected) {
+                ejected = false;
+                ejectedCount.decrementAndGet();
+            }
+        }
+        
+        private void eject(long now, String reason) {
+            if (removed) {
+                return;
+            }
+            if (!tryReserveEjection()) {
+                logger.debug("Not ejecting audit service instance {} ({}), too many instances ejected", uri, reason);
+                return;
+            }
+            if (now - reinstatedAt > properties.getMaxEjectionTime().toNanos()) {
+                ejections = 0;
+            }
+            reeject(now, reason);
+        }
+        
+        private void reeject(long now, String reason) {
+            ejections++;
+            long maxEjectionNanos = properties.getMaxEjectionTime().toNanos();
+            long ejectionNanos = properties.getBaseEjectionTime().toNanos();
+            for (int i = 1; i < ejections && ejectionNanos < maxEjectionNanos; i++) {
+                ejectionNanos *= 2;
+            }
+            ejectionNanos = Math.min(ejectionNanos, maxEjectionNanos);
+            ejectedUntil = now + ejectionNanos;
+            ejected = true;
+            consecutiveErrors = 0;
+            logger.warn("Ejecting audit service instance {} for {} ms: {}", uri, ejectionNanos / 1_000_000, reason);
+        }
+    }
+}
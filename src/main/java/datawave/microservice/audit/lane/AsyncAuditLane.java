@@ -0,0 +1,231 @@
+package datawave.microservice.audit.lane;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lane which queues requests and delivers them from dedicated worker threads, so the submitting thread only pays for the handoff. Workers take up to
+ * {@code maxBatchSize} requests from the queue at a time, optionally lingering for a batch to fill. A batch only saves queue handoffs: each request is still
+ * delivered with its own call, so lingering adds latency without saving any calls to the audit service. Since the submitter has already moved on, failed
+ * deliveries are passed to the lane's {@link #setFailureHandler failure handler}.
+ * <p>
+ * With {@code fairQueuing} enabled, requests are queued per user in a {@link FairAuditQueue}, so that a user flooding the lane cannot delay other users'
+ * audits. With the {@code RING_BUFFER} queue type, requests are handed off through a lock-free {@link RingBufferAuditQueue} instead, and workers claim each
+ * batch with a single atomic update.
+ */
+public class AsyncAuditLane extends AuditLane {
+    
+    static final String QUEUE_SIZE_METRIC = "audit.lane.queue.size";
+    static final long CLOSE_TIMEOUT_SECONDS = 30;
+    static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(CLOSE_TIMEOUT_SECONDS);
+    
+    private final BlockingQueue<Runnable> queue;
+    // Each worker with the requests it has taken from the queue but not yet started delivering, so that a drain can reclaim them
+    private final Map<Thread,Deque<Runnable>> workers = new LinkedHashMap<>();
+    private volatile boolean running;
+    private volatile int generation;
+    
+    public AsyncAuditLane(AuditType auditType, AuditLaneProperties.Lane properties, MeterRegistry meterRegistry) {
+        super(auditType, properties, meterRegistry);
+        boolean ringBuffer = properties.getQueueType() == AuditLaneProperties.QueueType.RING_BUFFER;
+        Preconditions.checkArgument(!(ringBuffer && properties.isFairQueuing()), "%s audit lane cannot queue fairly with a RING_BUFFER queue", auditType);
+        if (properties.isFairQueuing()) {
+            Map<String,Integer> userWeights = properties.getUserWeights();
+            this.queue = new FairAuditQueue<>(properties.getQueueCapacity(), properties.getPerUserCapacity(), AsyncAuditLane::userOf,
+                            user -> userWeights.getOrDefault(user, 1));
+        } else if (ringBuffer) {
+            this.queue = new RingBufferAuditQueue<>(properties.getQueueCapacity(), properties.getWaitStrategy());
+        } else {
+            this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        }
+        if (null != meterRegistry) {
+            Gauge.builder(QUEUE_SIZE_METRIC, queue, BlockingQueue::size).tag("auditType", auditType.name()).register(meterRegistry);
+        }
+        start();
+    }
+    
+    /**
+     * Starts the workers, unless the lane is already running. Workers left over from before a {@link #drain(Duration)} stop once the queue is empty.
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        workers.entrySet().removeIf(worker -> !worker.getKey().isAlive() && worker.getValue().isEmpty());
+        int workerGeneration = ++generation;
+        running = true;
+        for (int i = 0; i < properties.getConcurrency(); i++) {
+            Deque<Runnable> batch = new ConcurrentLinkedDeque<>();
+            Thread worker = new Thread(() -> work(batch, workerGeneration), "auditLane-" + auditType.name().toLowerCase() + "-" + i);
+            worker.setDaemon(true);
+            workers.put(worker, batch);
+            worker.start();
+        }
+    }
+    
+    @Override
+    public void submit(Runnable delivery) {
+        submit(null, delivery);
+    }
+    
+    @Override
+    public void submit(String user, Runnable delivery) {
+        if (properties.isFairQueuing()) {
+            delivery = new UserDelivery(user, delivery);
+        }
+        if (!running) {
+            overflow(delivery);
+            return;
+        }
+        if (properties.getOverflow() == AuditLaneProperties.Overflow.BLOCK) {
+            try {
+                queue.put(delivery);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the " + auditType + " audit lane", e);
+            }
+        } else if (!queue.offer(delivery)) {
+            overflow(delivery);
+        }
+    }
+    
+    private void work(Deque<Runnable> batch, int workerGeneration) {
+        long lingerNanos = properties.getLinger().toNanos();
+        while ((running && generation == workerGeneration) || !queue.isEmpty()) {
+            try {
+                Runnable first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.getMaxBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    Runnable next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Delivers the batch one request at a time, taking each from the batch as it starts, so that a concurrent {@link #drain(Duration)} reclaims only the
+     * requests not yet started
+     */
+    private void deliver(Deque<Runnable> batch) {
+        List<Runnable> failed = new ArrayList<>();
+        Runnable delivery;
+        while (null != (delivery = batch.poll())) {
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                log.warn("Asynchronous delivery of {} audit request failed", auditType, e);
+                failed.add(unwrap(delivery));
+            }
+        }
+        if (!failed.isEmpty()) {
+            failed(failed);
+        }
+    }
+    
+    private static Runnable unwrap(Runnable delivery) {
+        return delivery instanceof UserDelivery ? ((UserDelivery) delivery).delivery : delivery;
+    }
+    
+    private static String userOf(Runnable delivery) {
+        return delivery instanceof UserDelivery ? ((UserDelivery) delivery).user : "";
+    }
+    
+    public int getQueueSize() {
+        return queue.size();
+    }
+    
+    /**
+     * Stops accepting requests and waits up to {@code timeout} for the workers to deliver what is already queued. Requests still queued after that, including
+     * those in the workers' batches, are removed and returned; deliveries the workers have already started are left to finish.
+     */
+    @Override
+    public synchronized List<Runnable> drain(Duration timeout) {
+        running = false;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Thread worker : workers.keySet()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Runnable> undelivered = new ArrayList<>();
+        queue.drainTo(undelivered);
+        for (Deque<Runnable> batch : workers.values()) {
+            Runnable delivery;
+            while (null != (delivery = batch.poll())) {
+                undelivered.add(delivery);
+            }
+        }
+        undelivered.replaceAll(AsyncAuditLane::unwrap);
+        if (!undelivered.isEmpty()) {
+            log.warn("{} {} audit requests were not delivered within {}", undelivered.size(), auditType, timeout);
+        }
+        return undelivered;
+    }
+    
+    /**
+     * Stops accepting requests and waits up to {@value #CLOSE_TIMEOUT_SECONDS} seconds for the workers to deliver everything already queued. Requests still
+     * queued after that are passed to the failure handler.
+     */
+    @Override
+    public void close() {
+        List<Runnable> undelivered = drain(CLOSE_TIMEOUT);
+        if (!undelivered.isEmpty()) {
+            failed(undelivered);
+        }
+    }
+    
+    private static class UserDelivery implements Runnable {
+        private final String user;
+        private final Runnable delivery;
+        
+        UserDelivery(String user, Runnable delivery) {
+            this.user = null == user ? "" : user;
+            this.delivery = delivery;
+        }
+        
+        @Override
+        public void run() {
+            delivery.run();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package datawave.microservice.audit.lane;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A submission lane for audit requests of a single {@link AuditType}, with its own concurrency limit and overflow behavior
+ *
+ * @see SyncAuditLane
+ * @see AsyncAuditLane
+ */
+public abstract class AuditLane implements AutoCloseable {
+    
+    static final String OVERFLOW_METRIC = "audit.lane.overflow";
+    
+    protected final Logger log = LoggerFactory.getLogger(this.getClass());
+    protected final AuditType auditType;
+    protected final AuditLaneProperties.Lane properties;
+    private final Counter overflowCounter;
+    private volatile Consumer<List<Runnable>> failureHandler;
+    
+    protected AuditLane(AuditType auditType, AuditLaneProperties.Lane properties, MeterRegistry meterRegistry) {
+        this.auditType = auditType;
+        this.properties = properties;
+        //@formatter:off
+        this.overflowCounter = null == meterRegistry ? null : Counter.builder(OVERFLOW_METRIC)
+                .tag("auditType", auditType.name())
+                .tag("action", properties.getOverflow().name())
+                .register(meterRegistry);
+        //@formatter:on
+    }
+    
+    /**
+     * Submits the delivery of an audit request to this lane
+     *
+     * @param delivery
+     *            delivers the audit request, throwing if delivery fails
+     */
+    public abstract void submit(Runnable delivery);
+    
+    /**
+     * Submits the delivery of an audit request made on behalf of the given user. Lanes which do not distinguish between users ignore the user.
+     *
+     * @param user
+     *            the primary user DN of the request, may be null
+     * @param delivery
+     *            delivers the audit request, throwing if delivery fails
+     */
+    public void submit(String user, Runnable delivery) {
+        submit(delivery);
+    }
+    
+    /**
+     * Applies the overflow action for a delivery which the lane has no capacity for. {@link AuditLaneProperties.Overflow#BLOCK} is handled by the lanes
+     * themselves.
+     */
+    protected void overflow(Runnable delivery) {
+        if (null != overflowCounter) {
+            overflowCounter.increment();
+        }
+        switch (properties.getOverflow()) {
+            case CALLER_RUNS:
+                delivery.run();
+                break;
+            case DISCARD:
+                log.warn("Discarded {} audit request, lane is at capacity", auditType);
+                break;
+            case REJECT:
+            case BLOCK:
+            default:
+                throw new RejectedExecutionException(auditType + " audit lane is at capacity");
+        }
+    }
+    
+    /**
+     * Sets the handler for deliveries which failed after the submitter moved on, e.g., to spool them for later resubmission. Without a handler, such
+     * deliveries are logged and lost.
+     *
+     * @param failureHandler
+     *            receives the failed deliveries, may be null
+     */
+    public void setFailureHandler(Consumer<List<Runnable>> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+    
+    /**
+     * Passes deliveries which failed, or will no longer be attempted, to the failure handler
+     */
+    protected void failed(List<Runnable> deliveries) {
+        Consumer<List<Runnable>> handler = failureHandler;
+        if (null == handler) {
+            log.error("{} {} audit requests could not be delivered and have been lost", deliveries.size(), auditType);
+            return;
+        }
+        try {
+            handler.accept(deliveries);
+        } catch (RuntimeException e) {
+            log.error("Failed to hand off {} undelivered {} audit requests, they have been lost", deliveries.size(), auditType, e);
+        }
+    }
+    
+    public AuditType getAuditType() {
+        return auditType;
+    }
+    
+    /**
+     * Resumes accepting requests after a {@link #drain(Duration)}
+     */
+    public void start() {}
+    
+    /**
+     * Stops accepting requests and waits up to {@code timeout} for queued requests to be delivered
+     *
+     * @param timeout
+     *            maximum time to wait
+     * @return deliveries still queued when the timeout elapsed, which this lane will no longer deliver
+     */
+    public List<Runnable> drain(Duration timeout) {
+        close();
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,110 @@
+package datawave.microservice.audit.lane;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes audit requests to a separate submission lane per {@link AuditType}, so that a flood of one type cannot delay another. Typically mandatory
+ * {@link AuditType#ACTIVE} audits use a {@link SyncAuditLane}, while {@link AuditType#PASSIVE} audits use an {@link AsyncAuditLane} which delivers them in
+ * the background.
+ *
+ * @see AuditLaneProperties
+ */
+public class AuditLanes implements AutoCloseable {
+    
+    private final Map<AuditType,AuditLane> lanes = new EnumMap<>(AuditType.class);
+    
+    public AuditLanes(AuditLaneProperties properties, MeterRegistry meterRegistry) {
+        Preconditions.checkNotNull(properties, "properties cannot be null");
+        Preconditions.checkArgument(properties.getTypes().containsKey(AuditType.ACTIVE), "a lane must be configured for %s", AuditType.ACTIVE);
+        for (Map.Entry<AuditType,AuditLaneProperties.Lane> entry : properties.getTypes().entrySet()) {
+            lanes.put(entry.getKey(), createLane(entry.getKey(), entry.getValue(), meterRegistry));
+        }
+    }
+    
+    protected AuditLane createLane(AuditType auditType, AuditLaneProperties.Lane properties, MeterRegistry meterRegistry) {
+        if (properties.getMode() == AuditLaneProperties.Mode.ASYNC) {
+            return new AsyncAuditLane(auditType, properties, meterRegistry);
+        }
+        return new SyncAuditLane(auditType, properties, meterRegistry);
+    }
+    
+    /**
+     * Submits the delivery of an audit request to the lane for its audit type
+     *
+     * @param auditType
+     *            the audit type of the request. Requests without an audit type, or whose type has no lane, use the {@link AuditType#ACTIVE} lane
+     * @param delivery
+     *            delivers the audit request
+     */
+    public void submit(AuditType auditType, Runnable delivery) {
+        getLane(auditType).submit(delivery);
+    }
+    
+    /**
+     * Submits the delivery of an audit request made on behalf of the given user to the lane for its audit type
+     *
+     * @param auditType
+     *            the audit type of the request
+     * @param user
+     *            the primary user DN of the request, used by lanes which queue fairly between users
+     * @param delivery
+     *            delivers the audit request
+     */
+    public void submit(AuditType auditType, String user, Runnable delivery) {
+        getLane(auditType).submit(user, delivery);
+    }
+    
+    /**
+     * Sets the handler for deliveries which an asynchronous lane failed to deliver
+     *
+     * @see AuditLane#setFailureHandler(Consumer)
+     */
+    public void setFailureHandler(Consumer<List<Runnable>> failureHandler) {
+        lanes.values().forEach(lane -> lane.setFailureHandler(failureHandler));
+    }
+    
+    public AuditLane getLane(AuditType auditType) {
+        AuditLane lane = null == auditType ? null : lanes.get(auditType);
+        return null == lane ? lanes.get(AuditType.ACTIVE) : lane;
+    }
+    
+    /**
+     * Resumes accepting requests on all lanes after a {@link #drain(Duration)}
+     *
+     * @see AuditLane#start()
+     */
+    public void start() {
+        lanes.values().forEach(AuditLane::start);
+    }
+    
+    /**
+     * Stops all lanes accepting requests and waits up to {@code timeout} in total for queued requests to be delivered
+     *
+     * @return deliveries still queued when the timeout elapsed
+     * @see AuditLane#drain(Duration)
+     */
+    public List<Runnable> drain(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Runnable> undelivered = new ArrayList<>();
+        for (AuditLane lane : lanes.values()) {
+            undelivered.addAll(lane.drain(Duration.ofNanos(Math.max(0L, deadline - System.nanoTime()))));
+        }
+        return undelivered;
+    }
+    
+    @Override
+    public void close() {
+        lanes.values().forEach(AuditLane::close);
+    }
+}
@@ -0,0 +1,284 @@
+package datawave.microservice.audit.lane;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Bounded blocking queue which shares its output fairly between keys, typically users, using deficit round-robin over a sub-queue per key
+ * <p>
+ * Each key with queued elements takes a turn in round-robin order, and may dequeue as many elements per turn as its weight. Each sub-queue is bounded by
+ * {@code perKeyCapacity}, so a single key cannot fill the whole queue, and producers for a full key block (or are refused) without affecting other keys.
+ * Sub-queues are discarded once empty.
+ *
+ * @param <E>
+ *            element type
+ */
+public class FairAuditQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    
+    private final int capacity;
+    private final int perKeyCapacity;
+    private final Function<? super E,String> keyFunction;
+    private final ToIntFunction<String> weightFunction;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Map<String,SubQueue> subQueues = new HashMap<>();
+    private final ArrayDeque<SubQueue> rotation = new ArrayDeque<>();
+    private int count;
+    
+    /**
+     * @param capacity
+     *            maximum number of elements across all keys
+     * @param perKeyCapacity
+     *            maximum number of elements for a single key
+     * @param keyFunction
+     *            extracts the key of an element
+     * @param weightFunction
+     *            number of elements a key may dequeue per turn, at least 1
+     */
+    public FairAuditQueue(int capacity, int perKeyCapacity, Function<? super E,String> keyFunction, ToIntFunction<String> weightFunction) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        Preconditions.checkArgument(perKeyCapacity > 0, "perKeyCapacity must be positive");
+        Preconditions.checkNotNull(keyFunction, "keyFunction cannot be null");
+        Preconditions.checkNotNull(weightFunction, "weightFunction cannot be null");
+        this.capacity = capacity;
+        this.perKeyCapacity = perKeyCapacity;
+        this.keyFunction = keyFunction;
+        this.weightFunction = weightFunction;
+    }
+    
+    @Override
+    public boolean offer(E e) {
+        Preconditions.checkNotNull(e);
+        String key = keyFunction.apply(e);
+        lock.lock();
+        try {
+            if (isFull(key)) {
+                return false;
+            }
+            enqueue(key, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Preconditions.checkNotNull(e);
+        String key = keyFunction.apply(e);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (isFull(key)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(key, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void put(E e) throws InterruptedException {
+        Preconditions.checkNotNull(e);
+        String key = keyFunction.apply(e);
+        lock.lockInterruptibly();
+        try {
+            while (isFull(key)) {
+                notFull.await();
+            }
+            enqueue(key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            return count == 0 ? null : rotation.peekFirst().elements.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Preconditions.checkNotNull(c);
+        Preconditions.checkArgument(c != this, "cannot drain to self");
+        lock.lock();
+        try {
+            int drained = 0;
+            while (count > 0 && drained < maxElements) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return number of keys with queued elements
+     */
+    public int getKeyCount() {
+        lock.lock();
+        try {
+            return subQueues.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Iterates over a snapshot of the queued elements, in no particular order
+     */
+    @Override
+    public Iterator<E> iterator() {
+        lock.lock();
+        try {
+            List<E> snapshot = new ArrayList<>(count);
+            for (SubQueue subQueue : rotation) {
+                snapshot.addAll(subQueue.elements);
+            }
+            return snapshot.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean isFull(String key) {
+        if (count >= capacity) {
+            return true;
+        }
+        SubQueue subQueue = subQueues.get(key);
+        return null != subQueue && subQueue.elements.size() >= perKeyCapacity;
+    }
+    
+    private void enqueue(String key, E e) {
+        SubQueue subQueue = subQueues.computeIfAbsent(key, SubQueue::new);
+        if (subQueue.elements.isEmpty()) {
+            rotation.addLast(subQueue);
+        }
+        subQueue.elements.addLast(e);
+        count++;
+        notEmpty.signal();
+    }
+    
+    private E dequeue() {
+        SubQueue subQueue = rotation.peekFirst();
+        if (subQueue.deficit == 0) {
+            // Start of this key's turn
+            subQueue.deficit = Math.max(1, weightFunction.applyAsInt(subQueue.key));
+        }
+        E e = subQueue.elements.pollFirst();
+        subQueue.deficit--;
+        count--;
+        if (subQueue.elements.isEmpty()) {
+            rotation.pollFirst();
+            subQueues.remove(subQueue.key);
+        } else if (subQueue.deficit == 0) {
+            rotation.addLast(rotation.pollFirst());
+        }
+        // Producers may be waiting on different keys
+        notFull.signalAll();
+        return e;
+    }
+    
+    private class SubQueue {
+        private final String key;
+        private final ArrayDeque<E> elements = new ArrayDeque<>();
+        private int deficit;
+        
+        SubQueue(String key) {
+            this.key = key;
+        }
+    }
+}
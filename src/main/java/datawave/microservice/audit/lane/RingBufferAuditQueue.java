@@ -0,0 +1,329 @@
+package datawave.microservice.audit.lane;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditLaneProperties.WaitStrategy;
+
+/**
+ * Bounded lock-free queue over a preallocated ring of slots, which hands elements from many producers to many consumers without the lock that
+ * {@link java.util.concurrent.ArrayBlockingQueue} takes on every offer and poll
+ * <p>
+ * Each slot carries a sequence number telling producers and consumers whether it is free or holds a published element, after Dmitry Vyukov's bounded MPMC
+ * queue. A producer claims a slot with a single CAS on the tail, and a consumer claims a whole run of published slots with a single CAS on the head, so
+ * batching consumers pay for the handoff once per batch. Nothing is allocated per element, and the capacity is rounded up to a power of two of at least 2.
+ * <p>
+ * Consumers finding the queue empty, and producers finding it full, wait according to the {@link WaitStrategy}. Producers never signal consumers, so with
+ * {@link WaitStrategy#PARK} an idle consumer notices a new element up to {@value #MAX_PARK_NANOS}ns late.
+ * <p>
+ * {@link #size()} is an estimate while producers or consumers are active, and {@link #iterator()} returns a weakly consistent snapshot.
+ *
+ * @param <E>
+ *            element type
+ */
+public class RingBufferAuditQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    
+    static final long MAX_PARK_NANOS = 1_000_000L;
+    private static final long MIN_PARK_NANOS = 1_000L;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final int MAX_CAPACITY = 1 << 30;
+    
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle POSITION;
+    static {
+        try {
+            POSITION = MethodHandles.lookup().findVarHandle(PositionValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private final int capacity;
+    private final int mask;
+    private final long[] sequences;
+    private final Object[] elements;
+    private final WaitStrategy waitStrategy;
+    private final Position head = new Position();
+    private final Position tail = new Position();
+    
+    /**
+     * @param capacity
+     *            minimum number of elements the queue can hold, rounded up to a power of two of at least 2
+     * @param waitStrategy
+     *            how consumers wait for elements, and producers for space
+     */
+    public RingBufferAuditQueue(int capacity, WaitStrategy waitStrategy) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        Preconditions.checkArgument(capacity <= MAX_CAPACITY, "capacity cannot exceed %s", MAX_CAPACITY);
+        this.waitStrategy = Preconditions.checkNotNull(waitStrategy, "waitStrategy cannot be null");
+        // A slot's sequence number must be able to tell a free slot from a published one, which needs at least two slots
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.sequences = new long[size];
+        this.elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+    }
+    
+    @Override
+    public boolean offer(E e) {
+        Preconditions.checkNotNull(e);
+        long pos = tail.value;
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = (long) SEQUENCE.getAcquire(sequences, index) - pos;
+            if (diff == 0) {
+                if (POSITION.compareAndSet(tail, pos, pos + 1)) {
+                    elements[index] = e;
+                    SEQUENCE.setRelease(sequences, index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The slot still holds the element from the previous lap
+                return false;
+            }
+            pos = tail.value;
+        }
+    }
+    
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+        while (!offer(e)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            idleCount = idle(idleCount, remaining);
+        }
+        return true;
+    }
+    
+    @Override
+    public void put(E e) throws InterruptedException {
+        int idleCount = 0;
+        while (!offer(e)) {
+            idleCount = idle(idleCount, MAX_PARK_NANOS);
+        }
+    }
+    
+    @Override
+    public E poll() {
+        long pos = head.value;
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = (long) SEQUENCE.getAcquire(sequences, index) - (pos + 1);
+            if (diff == 0) {
+                if (POSITION.compareAndSet(head, pos, pos + 1)) {
+                    return consume(index, pos);
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+            pos = head.value;
+        }
+    }
+    
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+        E e;
+        while (null == (e = poll())) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            idleCount = idle(idleCount, remaining);
+        }
+        return e;
+    }
+    
+    @Override
+    public E take() throws InterruptedException {
+        int idleCount = 0;
+        E e;
+        while (null == (e = poll())) {
+            idleCount = idle(idleCount, MAX_PARK_NANOS);
+        }
+        return e;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long pos = head.value;
+            int index = (int) pos & mask;
+            if ((long) SEQUENCE.getAcquire(sequences, index) - (pos + 1) < 0) {
+                return null;
+            }
+            E e = (E) ELEMENT.getOpaque(elements, index);
+            // Retry if a consumer took the element while it was being read
+            if (null != e && head.value == pos) {
+                return e;
+            }
+        }
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Preconditions.checkNotNull(c);
+        Preconditions.checkArgument(c != this, "cannot drain a queue into itself");
+        int drained = 0;
+        while (drained < maxElements) {
+            int claimed = drainRun(c, maxElements - drained);
+            if (claimed == 0) {
+                break;
+            }
+            drained += claimed;
+        }
+        return drained;
+    }
+    
+    /**
+     * Claims the run of published elements at the head, up to {@code maxElements}, with a single CAS
+     */
+    private int drainRun(Collection<? super E> c, int maxElements) {
+        int limit = Math.min(maxElements, capacity);
+        long pos = head.value;
+        while (true) {
+            long diff = (long) SEQUENCE.getAcquire(sequences, (int) pos & mask) - (pos + 1);
+            if (diff < 0) {
+                return 0;
+            }
+            if (diff == 0) {
+                int run = 1;
+                while (run < limit && (long) SEQUENCE.getAcquire(sequences, (int) (pos + run) & mask) == pos + run + 1) {
+                    run++;
+                }
+                if (POSITION.compareAndSet(head, pos, pos + run)) {
+                    for (int i = 0; i < run; i++) {
+                        c.add(consume((int) (pos + i) & mask, pos + i));
+                    }
+                    return run;
+                }
+            }
+            pos = head.value;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private E consume(int index, long pos) {
+        E e = (E) elements[index];
+        elements[index] = null;
+        // Frees the slot for the producer one lap ahead
+        SEQUENCE.setRelease(sequences, index, pos + capacity);
+        return e;
+    }
+    
+    private int idle(int idleCount, long maxParkNanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELD:
+                if (idleCount < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                break;
+            case PARK:
+            default:
+                if (idleCount < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    // Backs off exponentially, so a long idle period costs few wake-ups
+                    int parks = Math.min(idleCount - SPIN_TRIES - YIELD_TRIES, 10);
+                    LockSupport.parkNanos(Math.min(maxParkNanos, Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << parks)));
+                }
+                break;
+        }
+        return idleCount == Integer.MAX_VALUE ? idleCount : idleCount + 1;
+    }
+    
+    @Override
+    public int size() {
+        while (true) {
+            long before = head.value;
+            long currentTail = tail.value;
+            if (head.value == before) {
+                return (int) Math.max(0L, Math.min(capacity, currentTail - before));
+            }
+        }
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+    
+    /**
+     * @return the number of elements the queue can hold, after rounding up
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<>();
+        long end = tail.value;
+        for (long pos = head.value; pos < end; pos++) {
+            int index = (int) pos & mask;
+            if ((long) SEQUENCE.getAcquire(sequences, index) == pos + 1) {
+                E e = (E) ELEMENT.getOpaque(elements, index);
+                if (null != e) {
+                    snapshot.add(e);
+                }
+            }
+        }
+        return snapshot.iterator();
+    }
+    
+    // Head and tail are padded onto their own cache lines, so producers and consumers do not invalidate each other's position
+    
+    @SuppressWarnings("unused")
+    private static class PositionPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+    
+    private static class PositionValue extends PositionPadding {
+        volatile long value;
+    }
+    
+    @SuppressWarnings("unused")
+    private static final class Position extends PositionValue {
+        long q1, q2, q3, q4, q5, q6, q7;
+    }
+}
@@ -0,0 +1,48 @@
+package datawave.microservice.audit.lane;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.webservice.common.audit.Auditor.AuditType;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lane which delivers on the submitting thread, so the caller waits for the audit service to acknowledge the request. At most {@code concurrency}
+ * deliveries run at once.
+ */
+public class SyncAuditLane extends AuditLane {
+    
+    private final Semaphore permits;
+    
+    public SyncAuditLane(AuditType auditType, AuditLaneProperties.Lane properties, MeterRegistry meterRegistry) {
+        super(auditType, properties, meterRegistry);
+        this.permits = new Semaphore(properties.getConcurrency());
+    }
+    
+    @Override
+    public void submit(Runnable delivery) {
+        boolean acquired;
+        try {
+            if (properties.getOverflow() == AuditLaneProperties.Overflow.BLOCK) {
+                permits.acquire();
+                acquired = true;
+            } else {
+                acquired = permits.tryAcquire(properties.getAcquireTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + auditType + " audit lane", e);
+        }
+        
+        if (!acquired) {
+            overflow(delivery);
+            return;
+        }
+        try {
+            delivery.run();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package datawave.microservice.audit.payload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.MultiValueMap;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.sink.AuditRecordEncoder;
+
+/**
+ * Form-encoded audit parameters held in a pooled buffer, ready to be written to the audit service as a request body. The payload can be written any number
+ * of times, e.g., once per retry, until it is {@link #release() released}.
+ * <p>
+ * A call which may outlive its caller, e.g., one abandoned when the caller's time budget runs out, writes through its own {@link #retain() reference}. The
+ * buffer only returns to the pool once every reference has been released, so it is never reused while a write is still in progress.
+ *
+ * @see AuditPayloadHttpMessageConverter
+ */
+public class AuditPayload {
+    
+    private final AuditPayloadBufferPool pool;
+    private final ByteBuffer buffer;
+    private final AtomicInteger references;
+    private final AtomicBoolean released = new AtomicBoolean();
+    
+    private AuditPayload(AuditPayloadBufferPool pool, ByteBuffer buffer, AtomicInteger references) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.references = references;
+    }
+    
+    public static AuditPayload encode(MultiValueMap<String,String> params, AuditPayloadBufferPool pool) {
+        ByteBuffer buffer = pool.acquire(AuditRecordEncoder.encodedLength(params));
+        AuditRecordEncoder.encode(params, buffer);
+        buffer.flip();
+        return new AuditPayload(pool, buffer, new AtomicInteger(1));
+    }
+    
+    /**
+     * Takes another reference to the same buffer, which must be released separately. A reference which is never released leaves its buffer to the garbage
+     * collector rather than returning it to the pool.
+     *
+     * @return the new reference
+     */
+    public AuditPayload retain() {
+        checkedBuffer();
+        references.incrementAndGet();
+        return new AuditPayload(pool, buffer, references);
+    }
+    
+    public int getLength() {
+        return checkedBuffer().remaining();
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        ByteBuffer buffer = checkedBuffer();
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    
+    /**
+     * Releases this reference, returning the buffer to its pool once no other reference remains. This reference cannot be written afterwards.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true) && references.decrementAndGet() == 0) {
+            pool.release(buffer);
+        }
+    }
+    
+    private ByteBuffer checkedBuffer() {
+        Preconditions.checkState(!released.get(), "AuditPayload has been released");
+        return buffer;
+    }
+}
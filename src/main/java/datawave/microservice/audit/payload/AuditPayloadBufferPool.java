@@ -0,0 +1,64 @@
+package datawave.microservice.audit.payload;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Pool of reusable buffers for encoded audit payloads, so that steady-state submissions do not allocate a new buffer per request. Buffers are reused most
+ * recently released first, which keeps the working set small and warm. Buffers larger than {@code maxBufferSize} are not retained, so that an occasional
+ * very large payload does not pin memory.
+ */
+public class AuditPayloadBufferPool {
+    
+    private static final int MIN_BUFFER_SIZE = 4096;
+    
+    private final int maxPooledBuffers;
+    private final int maxBufferSize;
+    private final ConcurrentLinkedDeque<ByteBuffer> buffers = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    
+    public AuditPayloadBufferPool(int maxPooledBuffers, int maxBufferSize) {
+        Preconditions.checkArgument(maxPooledBuffers >= 0, "maxPooledBuffers cannot be negative");
+        Preconditions.checkArgument(maxBufferSize > 0, "maxBufferSize must be positive");
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.maxBufferSize = maxBufferSize;
+    }
+    
+    /**
+     * @return a cleared, array-backed buffer with at least {@code length} bytes of capacity
+     */
+    public ByteBuffer acquire(int length) {
+        ByteBuffer buffer = buffers.pollFirst();
+        if (null != buffer) {
+            pooled.decrementAndGet();
+            if (buffer.capacity() >= length) {
+                buffer.clear();
+                return buffer;
+            }
+        }
+        // Round up, so a buffer which has grown for one payload also fits similar ones
+        int capacity = length <= MIN_BUFFER_SIZE ? MIN_BUFFER_SIZE : Integer.highestOneBit(length - 1) << 1;
+        return ByteBuffer.allocate(capacity >= length ? capacity : length);
+    }
+    
+    /**
+     * Returns a buffer obtained from {@link #acquire(int)}. The caller must not use it afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() > maxBufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() <= maxPooledBuffers) {
+            buffers.offerFirst(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+    
+    public int getPooledCount() {
+        return pooled.get();
+    }
+}
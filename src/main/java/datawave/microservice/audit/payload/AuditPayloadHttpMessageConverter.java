@@ -0,0 +1,46 @@
+package datawave.microservice.audit.payload;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Writes an {@link AuditPayload} request body straight from its buffer, with its exact content length, in place of the form converter's string building and
+ * copying. Write only.
+ */
+public class AuditPayloadHttpMessageConverter extends AbstractHttpMessageConverter<AuditPayload> {
+    
+    public AuditPayloadHttpMessageConverter() {
+        super(new MediaType(MediaType.APPLICATION_FORM_URLENCODED, StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AuditPayload.class == clazz;
+    }
+    
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    protected AuditPayload readInternal(Class<? extends AuditPayload> clazz, HttpInputMessage inputMessage) throws IOException {
+        throw new HttpMessageNotReadableException("AuditPayload cannot be read", inputMessage);
+    }
+    
+    @Override
+    protected Long getContentLength(AuditPayload payload, MediaType contentType) {
+        return (long) payload.getLength();
+    }
+    
+    @Override
+    protected void writeInternal(AuditPayload payload, HttpOutputMessage outputMessage) throws IOException {
+        payload.writeTo(outputMessage.getBody());
+    }
+}
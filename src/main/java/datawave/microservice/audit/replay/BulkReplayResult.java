@@ -0,0 +1,48 @@
+package datawave.microservice.audit.replay;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk replay creation request, keyed by pathUri
+ *
+ * @see ReplayClient#bulkCreate(java.util.Collection)
+ * @see ReplayClient#bulkCreateAndStart(java.util.Collection)
+ */
+public class BulkReplayResult {
+    
+    private final Map<String,String> replayIds = new LinkedHashMap<>();
+    private final Map<String,Throwable> failures = new LinkedHashMap<>();
+    
+    synchronized void addReplayId(String pathUri, String id) {
+        replayIds.put(pathUri, id);
+    }
+    
+    synchronized void addFailure(String pathUri, Throwable failure) {
+        failures.put(pathUri, failure);
+    }
+    
+    /**
+     * @return the audit replay id for each pathUri whose replay was created successfully
+     */
+    public synchronized Map<String,String> getReplayIds() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(replayIds));
+    }
+    
+    /**
+     * @return the failure for each pathUri whose replay could not be created
+     */
+    public synchronized Map<String,Throwable> getFailures() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+    
+    public synchronized boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "BulkReplayResult{replayIds=" + replayIds + ", failures=" + failures.keySet() + "}";
+    }
+}
@@ -1,14 +1,35 @@
 package datawave.microservice.audit.replay;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -16,14 +37,28 @@ import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.config.ReplayClientProperties;
 import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.timeout.CallTimeLimiter;
+import datawave.microservice.audit.tracing.AuditSpan;
+import datawave.microservice.audit.tracing.AuditTracer;
 import datawave.microservice.authorization.jwt.JWTRestTemplate;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.security.authorization.SubjectIssuerDNPair;
 
 /**
  * Simple rest client for submitting requests to the audit replay service
+ * <p>
+ * Every operation also has a non-blocking {@code *Async} variant, which runs the request on the configured {@code replayClientExecutor} and returns a
+ * {@link CompletableFuture}. Validation failures are reported through the returned future.
+ * <p>
+ * If {@code audit-client.replay.status-cache.enabled} is set, status and statusAll responses are cached per user for a short TTL, with concurrent identical
+ * lookups coalesced into a single request. Any mutating call made through this client invalidates the cache. Cached {@link Status} instances are shared
+ * between callers and should not be modified.
  *
  * @see Request
  * @see AuditServiceProvider
@@ -77,12 +112,81 @@ public class ReplayClient {
     private final AuditServiceProvider serviceProvider;
     private final JWTRestTemplate jwtRestTemplate;
     
+    private final ThreadPoolExecutor defaultAsyncExecutor = defaultAsyncExecutor();
+    private Executor asyncExecutor = defaultAsyncExecutor;
+    private int bulkConcurrency = new ReplayClientProperties().getBulkConcurrency();
+    private ReplayStatusCache statusCache;
+    private AuditTracer tracer = AuditTracer.NOOP;
+    private final CallTimeLimiter callTimeLimiter = new CallTimeLimiter("replayClientCall-");
+    private final Map<ReplayMethod,Duration> operationTimeouts = new EnumMap<>(ReplayMethod.class);
+    
     @Autowired
     public ReplayClient(RestTemplateBuilder builder, AuditServiceProvider serviceProvider) {
-        this.jwtRestTemplate = builder.build(JWTRestTemplate.class);
+        AuditServiceProperties.Timeouts timeouts = serviceProvider.getTimeouts();
+        this.jwtRestTemplate = CallTimeLimiter.withTimeouts(builder, timeouts.getConnect(), timeouts.getRead()).build(JWTRestTemplate.class);
         this.serviceProvider = serviceProvider;
     }
     
+    @Autowired(required = false)
+    @Qualifier("replayClientExecutor")
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        Preconditions.checkNotNull(asyncExecutor, "asyncExecutor cannot be null");
+        this.asyncExecutor = asyncExecutor;
+    }
+    
+    /**
+     * Fallback for clients created outside of a Spring context, sized like the default {@code replayClientExecutor} so that blocking HTTP calls never run on a
+     * pool shared with the rest of the application. Threads are only started when an async operation is first used.
+     */
+    private static ThreadPoolExecutor defaultAsyncExecutor() {
+        ReplayClientProperties.ExecutorProperties executorProperties = new ReplayClientProperties().getExecutor();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(executorProperties.getMaxPoolSize(), executorProperties.getMaxPoolSize(), 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(executorProperties.getQueueCapacity()),
+                        new ThreadFactoryBuilder().setNameFormat(executorProperties.getThreadNamePrefix() + "%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    @Autowired(required = false)
+    public void setTracer(AuditTracer tracer) {
+        this.tracer = null == tracer ? AuditTracer.NOOP : tracer;
+    }
+    
+    @Autowired(required = false)
+    public void setReplayClientProperties(ReplayClientProperties replayClientProperties) {
+        Preconditions.checkArgument(replayClientProperties.getBulkConcurrency() > 0, "bulkConcurrency must be positive");
+        this.bulkConcurrency = replayClientProperties.getBulkConcurrency();
+        if (defaultAsyncExecutor.getMaximumPoolSize() < bulkConcurrency) {
+            // Otherwise bulk operations would be limited by the pool rather than by bulkConcurrency
+            defaultAsyncExecutor.setMaximumPoolSize(bulkConcurrency);
+            defaultAsyncExecutor.setCorePoolSize(bulkConcurrency);
+        }
+        ReplayClientProperties.StatusCacheProperties statusCacheProperties = replayClientProperties.getStatusCache();
+        this.statusCache = statusCacheProperties.isEnabled() ? new ReplayStatusCache(statusCacheProperties.getTtl()) : null;
+        for (ReplayMethod replayMethod : ReplayMethod.values()) {
+            Duration timeout = replayClientProperties.getTimeouts().getTimeout(replayMethod.getName());
+            if (null == timeout) {
+                operationTimeouts.remove(replayMethod);
+            } else {
+                operationTimeouts.put(replayMethod, timeout);
+            }
+        }
+    }
+    
+    /**
+     * Replaces the HTTP layer used to reach the audit service, e.g., with a TLS-aware factory that supports session resumption
+     *
+     * @param requestFactory
+     *            the request factory to use
+     */
+    @Autowired(required = false)
+    @Qualifier("auditClientRequestFactory")
+    public void setRequestFactory(ClientHttpRequestFactory requestFactory) {
+        AuditServiceProperties.Timeouts timeouts = serviceProvider.getTimeouts();
+        CallTimeLimiter.applyTimeouts(requestFactory, timeouts.getConnect(), timeouts.getRead());
+        this.jwtRestTemplate.setRequestFactory(requestFactory);
+    }
+    
     /**
      * Creates an audit replay request
      *
@@ -93,13 +197,27 @@ public class ReplayClient {
      * @return the audit replay id
      */
     public String create(Request request) {
-        validateRequest(request);
-        Preconditions.checkNotNull(request.paramMap, "pathUri cannot be null");
-        Preconditions.checkNotNull(request.paramMap.get("pathUri"), "pathUri cannot be null");
+        validateCreateRequest(request);
         
         return (String) submitRequest(ReplayMethod.CREATE, request);
     }
     
+    /**
+     * Creates an audit replay request on a specific audit service instance
+     *
+     * @param request
+     *            Used to set applicable parameters and to specify the user details for this request. See {@link #create(Request)}
+     * @param auditService
+     *            The audit service instance which should own the replay
+     * @return the audit replay id
+     */
+    public String create(Request request, ServiceInstance auditService) {
+        validateCreateRequest(request);
+        Preconditions.checkNotNull(auditService, "auditService cannot be null");
+        
+        return (String) submitRequest(ReplayMethod.CREATE, request, auditService);
+    }
+    
     /**
      * Creates an audit replay request, and starts it
      *
@@ -110,13 +228,27 @@ public class ReplayClient {
      * @return the audit replay id
      */
     public String createAndStart(Request request) {
-        validateRequest(request);
-        Preconditions.checkNotNull(request.paramMap, "pathUri cannot be null");
-        Preconditions.checkNotNull(request.paramMap.get("pathUri"), "pathUri cannot be null");
+        validateCreateRequest(request);
         
         return (String) submitRequest(ReplayMethod.CREATE_AND_START, request);
     }
     
+    /**
+     * Creates an audit replay request on a specific audit service instance, and starts it
+     *
+     * @param request
+     *            Used to set applicable parameters and to specify the user details for this request. See {@link #createAndStart(Request)}
+     * @param auditService
+     *            The audit service instance which should own the replay
+     * @return the audit replay id
+     */
+    public String createAndStart(Request request, ServiceInstance auditService) {
+        validateCreateRequest(request);
+        Preconditions.checkNotNull(auditService, "auditService cannot be null");
+        
+        return (String) submitRequest(ReplayMethod.CREATE_AND_START, request, auditService);
+    }
+    
     /**
      * Starts an audit replay
      *
@@ -132,6 +264,23 @@ public class ReplayClient {
         return (String) submitRequest(ReplayMethod.START, request);
     }
     
+    /**
+     * Starts an audit replay owned by a specific audit service instance
+     *
+     * @param request
+     *            Used to set applicable parameters and to specify the user details for this request. See {@link #start(Request)}
+     * @param auditService
+     *            The audit service instance which owns the replay
+     * @return status, indicating whether the audit replay was started successfully
+     */
+    public String start(Request request, ServiceInstance auditService) {
+        validateRequest(request);
+        Preconditions.checkNotNull(request.id, "id cannot be null");
+        Preconditions.checkNotNull(auditService, "auditService cannot be null");
+        
+        return (String) submitRequest(ReplayMethod.START, request, auditService);
+    }
+    
     /**
      * Starts all audit replays
      *
@@ -160,6 +309,23 @@ public class ReplayClient {
         return (Status) submitRequest(ReplayMethod.STATUS, request);
     }
     
+    /**
+     * Gets the status of an audit replay owned by a specific audit service instance
+     *
+     * @param request
+     *            Used to set applicable parameters and to specify the user details for this request. See {@link #status(Request)}
+     * @param auditService
+     *            The audit service instance which owns the replay
+     * @return the status of the audit replay
+     */
+    public Status status(Request request, ServiceInstance auditService) {
+        validateRequest(request);
+        Preconditions.checkNotNull(request.id, "id cannot be null");
+        Preconditions.checkNotNull(auditService, "auditService cannot be null");
+        
+        return (Status) submitRequest(ReplayMethod.STATUS, request, auditService);
+    }
+    
     /**
      * Lists the status for all audit replays
      *
@@ -221,6 +387,23 @@ public class ReplayClient {
         return (String) submitRequest(ReplayMethod.STOP, request);
     }
     
+    /**
+     * Stops an audit replay owned by a specific audit service instance
+     *
+     * @param request
+     *            Used to set applicable parameters and to specify the user details for this request. See {@link #stop(Request)}
+     * @param auditService
+     *            The audit service instance which owns the replay
+     * @return status, indicating whether the audit replay was successfully stopped
+     */
+    public String stop(Request request, ServiceInstance auditService) {
+        validateRequest(request);
+        Preconditions.checkNotNull(request.id, "id cannot be null");
+        Preconditions.checkNotNull(auditService, "auditService cannot be null");
+        
+        return (String) submitRequest(ReplayMethod.STOP, request, auditService);
+    }
+    
     /**
      * Stops all audit replays
      *
@@ -289,32 +472,419 @@ public class ReplayClient {
         return (String) submitRequest(ReplayMethod.DELETE_ALL, request);
     }
     
+    /**
+     * Creates an audit replay request asynchronously
+     *
+     * @param request
+     *            See {@link #create(Request)}
+     * @return future completed with the result of {@link #create(Request)}
+     */
+    public CompletableFuture<String> createAsync(Request request) {
+        return supplyAsync(() -> create(request));
+    }
+    
+    /**
+     * Creates an audit replay request on a specific audit service instance asynchronously
+     *
+     * @param request
+     *            See {@link #create(Request, ServiceInstance)}
+     * @param auditService
+     *            The audit service instance which should own the replay
+     * @return future completed with the result of {@link #create(Request, ServiceInstance)}
+     */
+    public CompletableFuture<String> createAsync(Request request, ServiceInstance auditService) {
+        return supplyAsync(() -> create(request, auditService));
+    }
+    
+    /**
+     * Creates an audit replay request and starts it asynchronously
+     *
+     * @param request
+     *            See {@link #createAndStart(Request)}
+     * @return future completed with the result of {@link #createAndStart(Request)}
+     */
+    public CompletableFuture<String> createAndStartAsync(Request request) {
+        return supplyAsync(() -> createAndStart(request));
+    }
+    
+    /**
+     * Creates an audit replay request and starts it on a specific audit service instance asynchronously
+     *
+     * @param request
+     *            See {@link #createAndStart(Request, ServiceInstance)}
+     * @param auditService
+     *            The audit service instance which should own the replay
+     * @return future completed with the result of {@link #createAndStart(Request, ServiceInstance)}
+     */
+    public CompletableFuture<String> createAndStartAsync(Request request, ServiceInstance auditService) {
+        return supplyAsync(() -> createAndStart(request, auditService));
+    }
+    
+    /**
+     * Starts an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #start(Request)}
+     * @return future completed with the result of {@link #start(Request)}
+     */
+    public CompletableFuture<String> startAsync(Request request) {
+        return supplyAsync(() -> start(request));
+    }
+    
+    /**
+     * Starts all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #startAll(Request)}
+     * @return future completed with the result of {@link #startAll(Request)}
+     */
+    public CompletableFuture<String> startAllAsync(Request request) {
+        return supplyAsync(() -> startAll(request));
+    }
+    
+    /**
+     * Gets the status of an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #status(Request)}
+     * @return future completed with the result of {@link #status(Request)}
+     */
+    public CompletableFuture<Status> statusAsync(Request request) {
+        return supplyAsync(() -> status(request));
+    }
+    
+    /**
+     * Lists the status for all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #statusAll(Request)}
+     * @return future completed with the result of {@link #statusAll(Request)}
+     */
+    public CompletableFuture<Status[]> statusAllAsync(Request request) {
+        return supplyAsync(() -> statusAll(request));
+    }
+    
+    /**
+     * Updates an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #update(Request)}
+     * @return future completed with the result of {@link #update(Request)}
+     */
+    public CompletableFuture<String> updateAsync(Request request) {
+        return supplyAsync(() -> update(request));
+    }
+    
+    /**
+     * Updates all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #updateAll(Request)}
+     * @return future completed with the result of {@link #updateAll(Request)}
+     */
+    public CompletableFuture<String> updateAllAsync(Request request) {
+        return supplyAsync(() -> updateAll(request));
+    }
+    
+    /**
+     * Stops an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #stop(Request)}
+     * @return future completed with the result of {@link #stop(Request)}
+     */
+    public CompletableFuture<String> stopAsync(Request request) {
+        return supplyAsync(() -> stop(request));
+    }
+    
+    /**
+     * Stops all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #stopAll(Request)}
+     * @return future completed with the result of {@link #stopAll(Request)}
+     */
+    public CompletableFuture<String> stopAllAsync(Request request) {
+        return supplyAsync(() -> stopAll(request));
+    }
+    
+    /**
+     * Resumes an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #resume(Request)}
+     * @return future completed with the result of {@link #resume(Request)}
+     */
+    public CompletableFuture<String> resumeAsync(Request request) {
+        return supplyAsync(() -> resume(request));
+    }
+    
+    /**
+     * Resumes all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #resumeAll(Request)}
+     * @return future completed with the result of {@link #resumeAll(Request)}
+     */
+    public CompletableFuture<String> resumeAllAsync(Request request) {
+        return supplyAsync(() -> resumeAll(request));
+    }
+    
+    /**
+     * Deletes an audit replay asynchronously
+     *
+     * @param request
+     *            See {@link #delete(Request)}
+     * @return future completed with the result of {@link #delete(Request)}
+     */
+    public CompletableFuture<String> deleteAsync(Request request) {
+        return supplyAsync(() -> delete(request));
+    }
+    
+    /**
+     * Deletes all audit replays asynchronously
+     *
+     * @param request
+     *            See {@link #deleteAll(Request)}
+     * @return future completed with the result of {@link #deleteAll(Request)}
+     */
+    public CompletableFuture<String> deleteAllAsync(Request request) {
+        return supplyAsync(() -> deleteAll(request));
+    }
+    
+    /**
+     * Creates one audit replay per request, keeping at most {@code audit-client.replay.bulk-concurrency} requests in flight at once. Each request must specify
+     * a distinct pathUri, and all requests are validated before any are submitted.
+     *
+     * @param requests
+     *            The create requests, built as for {@link #create(Request)}
+     * @return the audit replay id for each successfully created pathUri, plus the failure for each pathUri which could not be created
+     */
+    public BulkReplayResult bulkCreate(Collection<Request> requests) {
+        return submitBulk(requests, false);
+    }
+    
+    /**
+     * Creates and starts one audit replay per request, keeping at most {@code audit-client.replay.bulk-concurrency} requests in flight at once. Each request
+     * must specify a distinct pathUri, and all requests are validated before any are submitted.
+     *
+     * @param requests
+     *            The create requests, built as for {@link #createAndStart(Request)}
+     * @return the audit replay id for each successfully created pathUri, plus the failure for each pathUri which could not be created
+     */
+    public BulkReplayResult bulkCreateAndStart(Collection<Request> requests) {
+        return submitBulk(requests, true);
+    }
+    
+    /**
+     * Creates one audit replay per pathUri, sharing the given sendRate and replayUnfinishedFiles settings
+     *
+     * @param datawaveUserDetails
+     *            the user details for the create requests
+     * @param pathUris
+     *            the paths where the audit file(s) to be replayed can be found
+     * @param sendRate
+     *            the number of messages to send per second for each replay, or null to use the audit service default
+     * @param replayUnfinishedFiles
+     *            indicates whether files from an unfinished audit replay should be included, or null to use the audit service default
+     * @return see {@link #bulkCreate(Collection)}
+     */
+    public BulkReplayResult bulkCreate(DatawaveUserDetails datawaveUserDetails, Collection<String> pathUris, Long sendRate, Boolean replayUnfinishedFiles) {
+        return bulkCreate(toRequests(datawaveUserDetails, pathUris, sendRate, replayUnfinishedFiles));
+    }
+    
+    /**
+     * Creates and starts one audit replay per pathUri, sharing the given sendRate and replayUnfinishedFiles settings
+     *
+     * @param datawaveUserDetails
+     *            the user details for the create requests
+     * @param pathUris
+     *            the paths where the audit file(s) to be replayed can be found
+     * @param sendRate
+     *            the number of messages to send per second for each replay, or null to use the audit service default
+     * @param replayUnfinishedFiles
+     *            indicates whether files from an unfinished audit replay should be included, or null to use the audit service default
+     * @return see {@link #bulkCreateAndStart(Collection)}
+     */
+    public BulkReplayResult bulkCreateAndStart(DatawaveUserDetails datawaveUserDetails, Collection<String> pathUris, Long sendRate,
+                    Boolean replayUnfinishedFiles) {
+        return bulkCreateAndStart(toRequests(datawaveUserDetails, pathUris, sendRate, replayUnfinishedFiles));
+    }
+    
+    private static List<Request> toRequests(DatawaveUserDetails datawaveUserDetails, Collection<String> pathUris, Long sendRate,
+                    Boolean replayUnfinishedFiles) {
+        Preconditions.checkNotNull(pathUris, "pathUris cannot be null");
+        //@formatter:off
+        return pathUris.stream()
+                .map(pathUri -> new Request.Builder()
+                        .withDatawaveUserDetails(datawaveUserDetails)
+                        .withPathUri(pathUri)
+                        .withSendRate(sendRate)
+                        .withReplayUnfinishedFiles(replayUnfinishedFiles)
+                        .build())
+                .collect(Collectors.toList());
+        //@formatter:on
+    }
+    
+    private BulkReplayResult submitBulk(Collection<Request> requests, boolean start) {
+        Preconditions.checkNotNull(requests, "requests cannot be null");
+        
+        Map<String,Request> requestsByPath = new LinkedHashMap<>();
+        for (Request request : requests) {
+            validateCreateRequest(request);
+            String pathUri = request.paramMap.getFirst("pathUri");
+            Preconditions.checkArgument(null == requestsByPath.put(pathUri, request), "duplicate pathUri: %s", pathUri);
+        }
+        
+        log.debug("Submitting bulk {} request for {} paths", start ? ReplayMethod.CREATE_AND_START.getName() : ReplayMethod.CREATE.getName(),
+                        requestsByPath.size());
+        
+        BulkReplayResult result = new BulkReplayResult();
+        Semaphore permits = new Semaphore(bulkConcurrency);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requestsByPath.size());
+        try {
+            for (Map.Entry<String,Request> entry : requestsByPath.entrySet()) {
+                String pathUri = entry.getKey();
+                permits.acquire();
+                CompletableFuture<String> future;
+                try {
+                    future = start ? createAndStartAsync(entry.getValue()) : createAsync(entry.getValue());
+                } catch (RuntimeException e) {
+                    future = new CompletableFuture<>();
+                    future.completeExceptionally(e);
+                }
+                futures.add(future.handle((id, throwable) -> {
+                    permits.release();
+                    if (null == throwable) {
+                        result.addReplayId(pathUri, id);
+                    } else {
+                        log.warn("Failed to create replay for pathUri " + pathUri, throwable);
+                        result.addFailure(pathUri, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                    }
+                    return null;
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting bulk replay requests", e);
+        } finally {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+        return result;
+    }
+    
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, asyncExecutor);
+    }
+    
     protected void validateRequest(Request request) {
         Preconditions.checkNotNull(request, "request cannot be null");
         Preconditions.checkNotNull(request.datawaveUserDetails, "DatawaveUserDetails cannot be null");
     }
     
+    protected void validateCreateRequest(Request request) {
+        validateRequest(request);
+        Preconditions.checkNotNull(request.paramMap, "pathUri cannot be null");
+        Preconditions.checkNotNull(request.paramMap.get("pathUri"), "pathUri cannot be null");
+    }
+    
     private Object submitRequest(ReplayMethod replayMethod, Request request) {
+        return submitRequest(replayMethod, request, null);
+    }
+    
+    /**
+     * Submits the request to the given audit service instance, or to the instance chosen by the {@link AuditServiceProvider} if null
+     */
+    private Object submitRequest(ReplayMethod replayMethod, Request request, ServiceInstance auditService) {
+        ReplayStatusCache cache = this.statusCache;
+        if (null == cache) {
+            return exchange(replayMethod, request, auditService);
+        }
+        if (replayMethod.getHttpMethod() == HttpMethod.GET) {
+            // Cached responses are only shared by requests for the same user, so a request must identify its user to use the cache
+            SubjectIssuerDNPair dn = Preconditions.checkNotNull(request.datawaveUserDetails.getPrimaryUser().getDn(), "primary user DN cannot be null");
+            return cache.get(new ReplayStatusCache.Key(dn.toString(), replayMethod.getName(), request.id), () -> exchange(replayMethod, request, auditService));
+        }
+        try {
+            return exchange(replayMethod, request, auditService);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+    
+    private Object exchange(ReplayMethod replayMethod, Request request, ServiceInstance auditService) {
+        try (AuditSpan span = tracer.start(AuditTracer.REPLAY_SPAN)) {
+            span.setAttribute(AuditTracer.REPLAY_METHOD_ATTRIBUTE, replayMethod.getName());
+            try {
+                return exchange(replayMethod, request, null == auditService ? discover() : auditService, span);
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+    }
+    
+    private ServiceInstance discover() {
+        try (AuditSpan span = tracer.start(AuditTracer.DISCOVERY_SPAN)) {
+            try {
+                return serviceProvider.getServiceInstance();
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+    }
+    
+    private Object exchange(ReplayMethod replayMethod, Request request, ServiceInstance auditService, AuditSpan replaySpan) {
         log.debug("Submitting {} request: {}", replayMethod.getName(), request.paramMap);
         
         String subPath = (request.id != null) ? request.id + "/" + replayMethod.getName() : replayMethod.getName();
+        replaySpan.setAttribute(AuditTracer.INSTANCE_ATTRIBUTE, auditService.getUri().toString());
         
         //@formatter:off
-        ServiceInstance auditService = serviceProvider.getServiceInstance();
         UriComponents uri = UriComponentsBuilder.fromUri(auditService.getUri())
                 .path(auditService.getServiceId() + DEFAULT_REQUEST_BASE_PATH + "/" + subPath)
                 .build();
 
         log.debug("Submitting {} request to {}", replayMethod.getName(), uri);
 
-        ResponseEntity<?> response = jwtRestTemplate.exchange(
-                jwtRestTemplate.createRequestEntity(
+        RequestEntity<MultiValueMap<String,String>> requestEntity;
+        try (AuditSpan span = tracer.start(AuditTracer.TOKEN_SPAN)) {
+            try {
+                requestEntity = jwtRestTemplate.createRequestEntity(
                         request.datawaveUserDetails,
                         request.paramMap,
                         null,
-                        replayMethod.getHttpMethod(), uri),
-                replayMethod.getResponseClass()
-        );
+                        replayMethod.getHttpMethod(), uri);
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
+
+        Duration timeout = operationTimeouts.get(replayMethod);
+
+        ResponseEntity<?> response;
+        try (AuditSpan span = tracer.start(AuditTracer.HTTP_SPAN)) {
+            span.setAttribute(AuditTracer.INSTANCE_ATTRIBUTE, auditService.getUri().toString());
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(requestEntity.getHeaders());
+            tracer.inject(headers);
+            if (null != timeout) {
+                headers.set(CallTimeLimiter.REMAINING_BUDGET_HEADER, Long.toString(timeout.toMillis()));
+            }
+            RequestEntity<MultiValueMap<String,String>> tracedEntity = new RequestEntity<>(
+                    requestEntity.getBody(), headers, requestEntity.getMethod(), requestEntity.getUrl());
+            try {
+                response = callTimeLimiter.call(
+                        () -> jwtRestTemplate.exchange(tracedEntity, replayMethod.getResponseClass()),
+                        timeout,
+                        replayMethod.getName() + " request to " + uri);
+            } catch (RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            }
+        }
 
         if (response.getStatusCode().value() != HttpStatus.OK.value()) {
             String errorMessage = String.format("%s request failed. Http Status: (%s, %s)",
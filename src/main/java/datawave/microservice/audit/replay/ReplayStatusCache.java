@@ -0,0 +1,125 @@
+package datawave.microservice.audit.replay;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Short-lived cache for replay status responses. Concurrent lookups of the same key are coalesced into a single load, completed responses are reused until
+ * the TTL expires, and failed loads are never cached. {@link #invalidateAll()} is called by the {@link ReplayClient} after every mutating call. A load still
+ * in flight when the cache is invalidated completes for the callers already waiting on it, but its response is never reused.
+ */
+class ReplayStatusCache {
+    
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<Key,Entry> entries = new ConcurrentHashMap<>();
+    // Incremented by every invalidation, so that a load which overlapped one can tell that its response may be stale
+    private final AtomicLong generation = new AtomicLong();
+    
+    ReplayStatusCache(Duration ttl) {
+        this(ttl, System::nanoTime);
+    }
+    
+    ReplayStatusCache(Duration ttl, LongSupplier nanoClock) {
+        Preconditions.checkArgument(null != ttl && !ttl.isNegative() && !ttl.isZero(), "ttl must be positive");
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+    
+    Object get(Key key, Supplier<Object> loader) {
+        while (true) {
+            Entry entry = entries.get(key);
+            if (null != entry && (entry.generation != generation.get() || entry.isExpired(nanoClock.getAsLong()))) {
+                entries.remove(key, entry);
+                continue;
+            }
+            if (null == entry) {
+                Entry created = new Entry(generation.get());
+                entry = entries.putIfAbsent(key, created);
+                if (null == entry) {
+                    return load(key, created, loader);
+                }
+            }
+            try {
+                return entry.future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+    }
+    
+    private Object load(Key key, Entry entry, Supplier<Object> loader) {
+        try {
+            Object value = loader.get();
+            entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+            entry.future.complete(value);
+            if (entry.generation != generation.get()) {
+                entries.remove(key, entry);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+    
+    static class Key {
+        
+        private final String user;
+        private final String method;
+        private final String id;
+        
+        Key(String user, String method, String id) {
+            this.user = user;
+            this.method = method;
+            this.id = id;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(user, key.user) && Objects.equals(method, key.method) && Objects.equals(id, key.id);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(user, method, id);
+        }
+    }
+    
+    private static class Entry {
+        
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private final long generation;
+        private volatile long expiresAt;
+        
+        Entry(long generation) {
+            this.generation = generation;
+        }
+        
+        boolean isExpired(long now) {
+            return future.isDone() && !future.isCompletedExceptionally() && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package datawave.microservice.audit.replay.partition;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link ReplayFileSystem} backed by the local file system. Accepts either plain paths or {@code file:} URIs.
+ */
+public class LocalReplayFileSystem implements ReplayFileSystem {
+    
+    @Override
+    public List<FileEntry> listFiles(String pathUri) throws IOException {
+        final Path root = toPath(pathUri);
+        if (Files.isRegularFile(root)) {
+            List<FileEntry> entries = new ArrayList<>();
+            entries.add(new FileEntry("", Files.size(root)));
+            return entries;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            //@formatter:off
+            return paths
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .map(path -> new FileEntry(root.relativize(path).toString().replace('\\', '/'), size(path)))
+                    .collect(Collectors.toList());
+            //@formatter:on
+        }
+    }
+    
+    private static Path toPath(String pathUri) {
+        return pathUri.startsWith("file:") ? Paths.get(URI.create(pathUri)) : Paths.get(pathUri);
+    }
+    
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to determine size of " + path, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package datawave.microservice.audit.replay.partition;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Minimal file system abstraction used to enumerate the audit files found beneath a replay path. Implementations are expected to list files recursively.
+ *
+ * @see LocalReplayFileSystem
+ * @see ReplayPartitioner
+ */
+public interface ReplayFileSystem {
+    
+    /**
+     * Lists all regular files found beneath the given path
+     *
+     * @param pathUri
+     *            the path where the audit file(s) to be replayed can be found
+     * @return the files found, with paths relative to {@code pathUri}. If {@code pathUri} refers to a single file, its relative path is empty
+     * @throws IOException
+     *             if the path cannot be listed
+     */
+    List<FileEntry> listFiles(String pathUri) throws IOException;
+    
+    /**
+     * A single file found beneath a replay path
+     */
+    class FileEntry {
+        
+        private final String relativePath;
+        private final long length;
+        
+        public FileEntry(String relativePath, long length) {
+            this.relativePath = relativePath;
+            this.length = length;
+        }
+        
+        public String getRelativePath() {
+            return relativePath;
+        }
+        
+        public long getLength() {
+            return length;
+        }
+        
+        @Override
+        public String toString() {
+            return relativePath + " (" + length + " bytes)";
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package datawave.microservice.audit.replay.partition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.audit.replay.partition.ReplayFileSystem.FileEntry;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+
+/**
+ * Plans and creates partitioned audit replays. The files beneath a replay path are split into size-balanced partitions, and one replay is created per
+ * partition, spread across the available audit service instances. The requested total send rate is split among the partitions in proportion to their size,
+ * so that all partitions finish at roughly the same time.
+ * <p>
+ * Partitions containing more than one file are expressed to the audit service as a glob of the form {@code pathUri/{file1,file2,...}}, which the replay
+ * service resolves via its Hadoop file system. Each replay is owned by the instance which created it, so the replays are started, queried and stopped through
+ * this class rather than through the instance-agnostic {@link ReplayClient} operations.
+ *
+ * @see ReplayFileSystem
+ * @see ReplayClient
+ */
+public class ReplayPartitioner {
+    
+    private static final String GLOB_SPECIAL_CHARS = "\\{}[],*?";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ReplayClient replayClient;
+    private final AuditServiceProvider serviceProvider;
+    private final ReplayFileSystem fileSystem;
+    
+    public ReplayPartitioner(ReplayClient replayClient, AuditServiceProvider serviceProvider, ReplayFileSystem fileSystem) {
+        Preconditions.checkNotNull(replayClient, "replayClient cannot be null");
+        Preconditions.checkNotNull(serviceProvider, "serviceProvider cannot be null");
+        Preconditions.checkNotNull(fileSystem, "fileSystem cannot be null");
+        this.replayClient = replayClient;
+        this.serviceProvider = serviceProvider;
+        this.fileSystem = fileSystem;
+    }
+    
+    /**
+     * Lists the files beneath the given path and splits them into size-balanced partitions
+     *
+     * @param pathUri
+     *            the path where the audit file(s) to be replayed can be found
+     * @param numPartitions
+     *            the desired number of partitions. Fewer partitions are planned if there are fewer files, or if the total send rate is lower
+     * @param totalSendRate
+     *            the total number of messages to send per second across all partitions, or null to use the audit service default
+     * @return the partition plan
+     * @throws IOException
+     *             if the path cannot be listed
+     */
+    public Plan plan(String pathUri, int numPartitions, Long totalSendRate) throws IOException {
+        Preconditions.checkNotNull(pathUri, "pathUri cannot be null");
+        Preconditions.checkArgument(numPartitions > 0, "numPartitions must be positive");
+        Preconditions.checkArgument(null == totalSendRate || totalSendRate > 0, "totalSendRate must be positive");
+        
+        List<FileEntry> files = fileSystem.listFiles(pathUri);
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files found to replay beneath " + pathUri);
+        }
+        
+        // Every partition is sent at least one message per second, so there can be no more partitions than the total send rate allows
+        int maxPartitions = null == totalSendRate ? files.size() : (int) Math.min(files.size(), totalSendRate);
+        List<List<FileEntry>> bins = partition(files, Math.min(numPartitions, maxPartitions));
+        long[] sendRates = null == totalSendRate ? null : splitSendRate(bins, totalSendRate);
+        
+        List<Partition> partitions = new ArrayList<>(bins.size());
+        for (int i = 0; i < bins.size(); i++) {
+            List<FileEntry> bin = bins.get(i);
+            bin.sort(Comparator.comparing(FileEntry::getRelativePath));
+            partitions.add(new Partition(i, toPathUri(pathUri, bin), bin, null == sendRates ? null : sendRates[i]));
+        }
+        
+        log.debug("Planned {} replay partitions for {} files beneath {}", partitions.size(), files.size(), pathUri);
+        
+        return new Plan(pathUri, partitions);
+    }
+    
+    /**
+     * Creates one replay per planned partition, assigning partitions to the available audit service instances in round-robin order
+     *
+     * @param plan
+     *            the partition plan
+     * @param datawaveUserDetails
+     *            the user details for the create requests
+     * @param replayUnfinishedFiles
+     *            indicates whether files from an unfinished audit replay should be included, or null to use the audit service default
+     * @param start
+     *            whether the replays should be started once created
+     * @return the created replays, one per partition
+     */
+    public List<PartitionedReplay> execute(Plan plan, DatawaveUserDetails datawaveUserDetails, Boolean replayUnfinishedFiles, boolean start) {
+        Preconditions.checkNotNull(plan, "plan cannot be null");
+        
+        List<ServiceInstance> instances = serviceProvider.getServiceInstances();
+        List<PartitionedReplay> replays = new ArrayList<>(plan.getPartitions().size());
+        for (Partition partition : plan.getPartitions()) {
+            ServiceInstance instance = instances.get(partition.getIndex() % instances.size());
+            
+            //@formatter:off
+            ReplayClient.Request request = new ReplayClient.Request.Builder()
+                    .withDatawaveUserDetails(datawaveUserDetails)
+                    .withPathUri(partition.getPathUri())
+                    .withSendRate(partition.getSendRate())
+                    .withReplayUnfinishedFiles(replayUnfinishedFiles)
+                    .build();
+            //@formatter:on
+            
+            try {
+                String id = start ? replayClient.createAndStart(request, instance) : replayClient.create(request, instance);
+                replays.add(new PartitionedReplay(partition, instance, id));
+            } catch (RuntimeException e) {
+                log.warn("Failed to create replay for partition {} of {}. Replays already created: {}", partition.getIndex(), plan.getPathUri(), replays);
+                throw e;
+            }
+        }
+        return replays;
+    }
+    
+    /**
+     * Starts each of the given replays on the audit service instance which owns it
+     *
+     * @param replays
+     *            the replays returned by {@link #execute(Plan, DatawaveUserDetails, Boolean, boolean)}
+     * @param datawaveUserDetails
+     *            the user details for the start requests
+     * @return the result of each start request, in the order of {@code replays}
+     */
+    public List<String> start(List<PartitionedReplay> replays, DatawaveUserDetails datawaveUserDetails) {
+        return forEachReplay(replays, datawaveUserDetails, replayClient::start);
+    }
+    
+    /**
+     * Gets the status of each of the given replays from the audit service instance which owns it
+     *
+     * @param replays
+     *            the replays returned by {@link #execute(Plan, DatawaveUserDetails, Boolean, boolean)}
+     * @param datawaveUserDetails
+     *            the user details for the status requests
+     * @return the status of each replay, in the order of {@code replays}
+     */
+    public List<Status> status(List<PartitionedReplay> replays, DatawaveUserDetails datawaveUserDetails) {
+        return forEachReplay(replays, datawaveUserDetails, replayClient::status);
+    }
+    
+    /**
+     * Stops each of the given replays on the audit service instance which owns it
+     *
+     * @param replays
+     *            the replays returned by {@link #execute(Plan, DatawaveUserDetails, Boolean, boolean)}
+     * @param datawaveUserDetails
+     *            the user details for the stop requests
+     * @return the result of each stop request, in the order of {@code replays}
+     */
+    public List<String> stop(List<PartitionedReplay> replays, DatawaveUserDetails datawaveUserDetails) {
+        return forEachReplay(replays, datawaveUserDetails, replayClient::stop);
+    }
+    
+    private static <T> List<T> forEachReplay(List<PartitionedReplay> replays, DatawaveUserDetails datawaveUserDetails,
+                    BiFunction<ReplayClient.Request,ServiceInstance,T> operation) {
+        Preconditions.checkNotNull(replays, "replays cannot be null");
+        
+        List<T> results = new ArrayList<>(replays.size());
+        for (PartitionedReplay replay : replays) {
+            //@formatter:off
+            ReplayClient.Request request = new ReplayClient.Request.Builder()
+                    .withDatawaveUserDetails(datawaveUserDetails)
+                    .withId(replay.getId())
+                    .build();
+            //@formatter:on
+            results.add(operation.apply(request, replay.getServiceInstance()));
+        }
+        return results;
+    }
+    
+    /**
+     * Longest-processing-time-first assignment of files to partitions, which keeps the partitions within 4/3 of the optimal maximum size
+     */
+    static List<List<FileEntry>> partition(List<FileEntry> files, int numPartitions) {
+        List<List<FileEntry>> bins = new ArrayList<>(numPartitions);
+        long[] binSizes = new long[numPartitions];
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(Comparator.<Integer> comparingLong(i -> binSizes[i]).thenComparingInt(i -> i));
+        for (int i = 0; i < numPartitions; i++) {
+            bins.add(new ArrayList<>());
+            smallest.add(i);
+        }
+        
+        List<FileEntry> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingLong(FileEntry::getLength).reversed().thenComparing(FileEntry::getRelativePath));
+        for (FileEntry file : sorted) {
+            int bin = smallest.poll();
+            bins.get(bin).add(file);
+            binSizes[bin] += file.getLength();
+            smallest.add(bin);
+        }
+        return bins;
+    }
+    
+    /**
+     * Splits the total send rate among the partitions in proportion to their size using the largest remainder method, so that the rates sum to the total.
+     * One message per second is reserved for every partition before the rest is split, so that no partition is left without a rate.
+     */
+    static long[] splitSendRate(List<List<FileEntry>> bins, long totalSendRate) {
+        int n = bins.size();
+        Preconditions.checkArgument(totalSendRate >= n, "totalSendRate cannot be less than the number of partitions");
+        long[] sizes = new long[n];
+        long totalSize = 0;
+        for (int i = 0; i < n; i++) {
+            sizes[i] = bins.get(i).stream().mapToLong(FileEntry::getLength).sum();
+            totalSize += sizes[i];
+        }
+        if (totalSize == 0) {
+            for (int i = 0; i < n; i++) {
+                sizes[i] = 1;
+            }
+            totalSize = n;
+        }
+        
+        long[] rates = new long[n];
+        double[] remainders = new double[n];
+        long remaining = totalSendRate - n;
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            double share = (double) remaining * sizes[i] / totalSize;
+            rates[i] = (long) Math.floor(share);
+            remainders[i] = share - rates[i];
+            assigned += rates[i];
+        }
+        
+        List<Integer> byRemainder = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            byRemainder.add(i);
+        }
+        byRemainder.sort(Comparator.<Integer> comparingDouble(i -> remainders[i]).reversed().thenComparingInt(i -> i));
+        for (int i = 0; assigned < remaining; i = (i + 1) % n) {
+            rates[byRemainder.get(i)]++;
+            assigned++;
+        }
+        
+        for (int i = 0; i < n; i++) {
+            rates[i]++;
+        }
+        return rates;
+    }
+    
+    static String toPathUri(String pathUri, List<FileEntry> files) {
+        String base = pathUri.endsWith("/") ? pathUri.substring(0, pathUri.length() - 1) : pathUri;
+        if (files.size() == 1) {
+            String relativePath = files.get(0).getRelativePath();
+            return relativePath.isEmpty() ? pathUri : base + "/" + relativePath;
+        }
+        return base + "/{" + files.stream().map(f -> escapeGlob(f.getRelativePath())).collect(Collectors.joining(",")) + "}";
+    }
+    
+    private static String escapeGlob(String path) {
+        StringBuilder sb = new StringBuilder(path.length());
+        for (char c : path.toCharArray()) {
+            if (GLOB_SPECIAL_CHARS.indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * The planned partitions for a replay path
+     */
+    public static class Plan {
+        
+        private final String pathUri;
+        private final List<Partition> partitions;
+        
+        Plan(String pathUri, List<Partition> partitions) {
+            this.pathUri = pathUri;
+            this.partitions = Collections.unmodifiableList(partitions);
+        }
+        
+        public String getPathUri() {
+            return pathUri;
+        }
+        
+        public List<Partition> getPartitions() {
+            return partitions;
+        }
+        
+        @Override
+        public String toString() {
+            return "Plan{pathUri=" + pathUri + ", partitions=" + partitions + "}";
+        }
+    }
+    
+    /**
+     * A size-balanced subset of the files beneath a replay path, replayed by a single replay
+     */
+    public static class Partition {
+        
+        private final int index;
+        private final String pathUri;
+        private final List<FileEntry> files;
+        private final Long sendRate;
+        
+        Partition(int index, String pathUri, List<FileEntry> files, Long sendRate) {
+            this.index = index;
+            this.pathUri = pathUri;
+            this.files = Collections.unmodifiableList(files);
+            this.sendRate = sendRate;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public String getPathUri() {
+            return pathUri;
+        }
+        
+        public List<FileEntry> getFiles() {
+            return files;
+        }
+        
+        public long getLength() {
+            return files.stream().mapToLong(FileEntry::getLength).sum();
+        }
+        
+        public Long getSendRate() {
+            return sendRate;
+        }
+        
+        @Override
+        public String toString() {
+            return "Partition{index=" + index + ", files=" + files.size() + ", length=" + getLength() + ", sendRate=" + sendRate + "}";
+        }
+    }
+    
+    /**
+     * A replay created for a single partition
+     */
+    public static class PartitionedReplay {
+        
+        private final Partition partition;
+        private final ServiceInstance serviceInstance;
+        private final String id;
+        
+        PartitionedReplay(Partition partition, ServiceInstance serviceInstance, String id) {
+            this.partition = partition;
+            this.serviceInstance = serviceInstance;
+            this.id = id;
+        }
+        
+        public Partition getPartition() {
+            return partition;
+        }
+        
+        public ServiceInstance getServiceInstance() {
+            return serviceInstance;
+        }
+        
+        public String getId() {
+            return id;
+        }
+        
+        @Override
+        public String toString() {
+            return "PartitionedReplay{id=" + id + ", partition=" + partition.getIndex() + ", instance=" + serviceInstance.getUri() + "}";
+        }
+    }
+}
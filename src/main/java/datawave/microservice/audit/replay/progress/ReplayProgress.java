@@ -0,0 +1,78 @@
+package datawave.microservice.audit.replay.progress;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time progress of an audit replay, computed from a sliding window of status samples
+ *
+ * @see ReplayProgressTracker
+ */
+public class ReplayProgress {
+    
+    private final String id;
+    private final long recordsProcessed;
+    private final int filesTotal;
+    private final int filesRemaining;
+    private final double instantaneousRate;
+    private final double averageRate;
+    private final Duration eta;
+    
+    ReplayProgress(String id, long recordsProcessed, int filesTotal, int filesRemaining, double instantaneousRate, double averageRate, Duration eta) {
+        this.id = id;
+        this.recordsProcessed = recordsProcessed;
+        this.filesTotal = filesTotal;
+        this.filesRemaining = filesRemaining;
+        this.instantaneousRate = instantaneousRate;
+        this.averageRate = averageRate;
+        this.eta = eta;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * @return the total number of records read by the replay as of the latest sample
+     */
+    public long getRecordsProcessed() {
+        return recordsProcessed;
+    }
+    
+    public int getFilesTotal() {
+        return filesTotal;
+    }
+    
+    /**
+     * @return the number of files which are queued or still running as of the latest sample
+     */
+    public int getFilesRemaining() {
+        return filesRemaining;
+    }
+    
+    /**
+     * @return records per second between the two most recent samples, or {@link Double#NaN} if fewer than two samples are available
+     */
+    public double getInstantaneousRate() {
+        return instantaneousRate;
+    }
+    
+    /**
+     * @return records per second across the whole sample window, or {@link Double#NaN} if fewer than two samples are available
+     */
+    public double getAverageRate() {
+        return averageRate;
+    }
+    
+    /**
+     * @return estimated time until the replay completes, or null if it cannot be estimated yet
+     */
+    public Duration getEta() {
+        return eta;
+    }
+    
+    @Override
+    public String toString() {
+        return "ReplayProgress{id=" + id + ", recordsProcessed=" + recordsProcessed + ", filesRemaining=" + filesRemaining + "/" + filesTotal
+                        + ", instantaneousRate=" + instantaneousRate + ", averageRate=" + averageRate + ", eta=" + eta + "}";
+    }
+}
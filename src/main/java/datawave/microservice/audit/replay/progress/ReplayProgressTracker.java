@@ -0,0 +1,266 @@
+package datawave.microservice.audit.replay.progress;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.audit.replay.status.Status.FileState;
+import datawave.microservice.audit.replay.status.Status.FileStatus;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tracks the progress of audit replays by keeping a sliding window of {@link Status} samples per replay id. Throughput, files remaining and an estimated
+ * time to completion are exposed via {@link #getProgress(String)} and, if a {@link MeterRegistry} is supplied, as gauges tagged with the replay id.
+ * <p>
+ * Samples are recorded either directly via {@link #record(Status)}, or by polling the audit service via {@link #refresh(DatawaveUserDetails)}. The ETA is
+ * estimated from the average number of records in the files finished so far, so it is only available once at least one file has finished.
+ */
+public class ReplayProgressTracker {
+    
+    static final String RATE_METRIC = "audit.replay.records.rate";
+    static final String FILES_REMAINING_METRIC = "audit.replay.files.remaining";
+    static final String ETA_METRIC = "audit.replay.eta";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ReplayClient replayClient;
+    private final MeterRegistry meterRegistry;
+    private final int windowSize;
+    private final Duration maxSampleAge;
+    private final Clock clock;
+    private final Map<String,Window> windows = new ConcurrentHashMap<>();
+    
+    public ReplayProgressTracker(ReplayClient replayClient, MeterRegistry meterRegistry, int windowSize, Duration maxSampleAge) {
+        this(replayClient, meterRegistry, windowSize, maxSampleAge, Clock.systemUTC());
+    }
+    
+    ReplayProgressTracker(ReplayClient replayClient, MeterRegistry meterRegistry, int windowSize, Duration maxSampleAge, Clock clock) {
+        Preconditions.checkArgument(windowSize > 1, "windowSize must be greater than 1");
+        Preconditions.checkNotNull(maxSampleAge, "maxSampleAge cannot be null");
+        this.replayClient = replayClient;
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.maxSampleAge = maxSampleAge;
+        this.clock = clock;
+    }
+    
+    /**
+     * Polls the status of all audit replays and records a sample for each. Replays which no longer exist are no longer tracked.
+     *
+     * @param datawaveUserDetails
+     *            the user details for the status request
+     */
+    public void refresh(DatawaveUserDetails datawaveUserDetails) {
+        Preconditions.checkNotNull(replayClient, "replayClient is required to refresh replay progress");
+        Status[] statuses = replayClient.statusAll(new ReplayClient.Request.Builder().withDatawaveUserDetails(datawaveUserDetails).build());
+        
+        Set<String> ids = new HashSet<>();
+        if (null != statuses) {
+            for (Status status : statuses) {
+                record(status);
+                ids.add(status.getId());
+            }
+        }
+        for (String id : new ArrayList<>(windows.keySet())) {
+            if (!ids.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+    
+    /**
+     * Records a status sample for a replay, taken now
+     *
+     * @param status
+     *            the replay status
+     */
+    public void record(Status status) {
+        Preconditions.checkNotNull(status, "status cannot be null");
+        
+        long records = 0;
+        long recordsInFinishedFiles = 0;
+        long recordsInRemainingFiles = 0;
+        int filesTotal = 0;
+        int filesRemaining = 0;
+        int filesFinished = 0;
+        List<FileStatus> files = null == status.getFiles() ? Collections.emptyList() : status.getFiles();
+        for (FileStatus file : files) {
+            filesTotal++;
+            records += file.getLinesRead();
+            if (file.getState() == FileState.QUEUED || file.getState() == FileState.RUNNING) {
+                filesRemaining++;
+                recordsInRemainingFiles += file.getLinesRead();
+            } else if (file.getState() == FileState.FINISHED) {
+                filesFinished++;
+                recordsInFinishedFiles += file.getLinesRead();
+            }
+        }
+        record(new Sample(status.getId(), clock.millis(), records, recordsInFinishedFiles, recordsInRemainingFiles, filesTotal, filesRemaining, filesFinished));
+    }
+    
+    void record(Sample sample) {
+        // Adding under the map's lock for the id keeps a concurrent remove from unregistering the gauges of a window being recreated
+        windows.compute(sample.id, (id, window) -> {
+            Window current = null == window ? createWindow(id) : window;
+            current.add(sample);
+            return current;
+        });
+    }
+    
+    /**
+     * @param id
+     *            the audit replay id
+     * @return the current progress of the replay, or null if no samples have been recorded for it
+     */
+    public ReplayProgress getProgress(String id) {
+        Window window = windows.get(id);
+        return null == window ? null : window.progress();
+    }
+    
+    /**
+     * @return the ids of all tracked replays
+     */
+    public Set<String> getTrackedIds() {
+        return Collections.unmodifiableSet(windows.keySet());
+    }
+    
+    /**
+     * Stops tracking a replay and removes its gauges
+     *
+     * @param id
+     *            the audit replay id
+     */
+    public void remove(String id) {
+        windows.computeIfPresent(id, (key, window) -> {
+            if (null != meterRegistry) {
+                window.meters.forEach(meterRegistry::remove);
+            }
+            return null;
+        });
+    }
+    
+    private Window createWindow(String id) {
+        Window window = new Window(id);
+        if (null != meterRegistry) {
+            log.debug("Registering progress gauges for replay {}", id);
+            window.meters.add(gauge(RATE_METRIC, id, ReplayProgress::getInstantaneousRate, "rate", "instantaneous"));
+            window.meters.add(gauge(RATE_METRIC, id, ReplayProgress::getAverageRate, "rate", "average"));
+            window.meters.add(gauge(FILES_REMAINING_METRIC, id, ReplayProgress::getFilesRemaining));
+            window.meters.add(gauge(ETA_METRIC, id, p -> null == p.getEta() ? Double.NaN : p.getEta().getSeconds(), "unit", "seconds"));
+        }
+        return window;
+    }
+    
+    private Meter gauge(String name, String id, ToDoubleFunction<ReplayProgress> value, String... tags) {
+        //@formatter:off
+        return Gauge.builder(name, this, tracker -> {
+                    ReplayProgress progress = tracker.getProgress(id);
+                    return null == progress ? Double.NaN : value.applyAsDouble(progress);
+                })
+                .tag("replayId", id)
+                .tags(tags)
+                .strongReference(false)
+                .register(meterRegistry);
+        //@formatter:on
+    }
+    
+    /**
+     * Sliding window of samples for a single replay
+     */
+    private class Window {
+        
+        private final String id;
+        private final Deque<Sample> samples = new ArrayDeque<>();
+        private final List<Meter> meters = new ArrayList<>();
+        
+        Window(String id) {
+            this.id = id;
+        }
+        
+        synchronized void add(Sample sample) {
+            samples.addLast(sample);
+            while (samples.size() > windowSize || (samples.size() > 2 && sample.timestamp - samples.peekFirst().timestamp > maxSampleAge.toMillis())) {
+                samples.removeFirst();
+            }
+        }
+        
+        synchronized ReplayProgress progress() {
+            Sample first = samples.peekFirst();
+            Sample last = samples.peekLast();
+            double averageRate = rate(first, last);
+            double instantaneousRate = Double.NaN;
+            if (samples.size() > 1) {
+                Sample previous = null;
+                for (Sample sample : samples) {
+                    if (sample == last) {
+                        break;
+                    }
+                    previous = sample;
+                }
+                instantaneousRate = rate(previous, last);
+            }
+            return new ReplayProgress(id, last.records, last.filesTotal, last.filesRemaining, instantaneousRate, averageRate, eta(last, averageRate));
+        }
+        
+        private double rate(Sample from, Sample to) {
+            if (from == to || to.timestamp <= from.timestamp) {
+                return Double.NaN;
+            }
+            return (to.records - from.records) * 1000.0 / (to.timestamp - from.timestamp);
+        }
+        
+        private Duration eta(Sample last, double averageRate) {
+            if (last.filesRemaining == 0) {
+                return Duration.ZERO;
+            }
+            if (last.filesFinished == 0 || !(averageRate > 0)) {
+                return null;
+            }
+            double recordsPerFile = (double) last.recordsInFinishedFiles / last.filesFinished;
+            double recordsRemaining = Math.max(0, recordsPerFile * last.filesRemaining - last.recordsInRemainingFiles);
+            return Duration.ofMillis((long) (recordsRemaining * 1000.0 / averageRate));
+        }
+    }
+    
+    static class Sample {
+        
+        private final String id;
+        private final long timestamp;
+        private final long records;
+        private final long recordsInFinishedFiles;
+        private final long recordsInRemainingFiles;
+        private final int filesTotal;
+        private final int filesRemaining;
+        private final int filesFinished;
+        
+        Sample(String id, long timestamp, long records, long recordsInFinishedFiles, long recordsInRemainingFiles, int filesTotal, int filesRemaining,
+                        int filesFinished) {
+            this.id = id;
+            this.timestamp = timestamp;
+            this.records = records;
+            this.recordsInFinishedFiles = recordsInFinishedFiles;
+            this.recordsInRemainingFiles = recordsInRemainingFiles;
+            this.filesTotal = filesTotal;
+            this.filesRemaining = filesRemaining;
+            this.filesFinished = filesFinished;
+        }
+    }
+}
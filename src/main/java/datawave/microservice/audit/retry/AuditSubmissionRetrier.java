@@ -0,0 +1,155 @@
+package datawave.microservice.audit.retry;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditRetryProperties;
+
+/**
+ * Retries failed audit submissions using exponential backoff with full jitter, preferring an instance that has not yet been tried for each retry
+ * <p>
+ * Only transient failures which cannot have delivered the audit are retried: failures to connect, and {@code 503} responses. Failures which may occur after
+ * the audit service received the request, such as read timeouts, reset connections and {@code 502} or {@code 504} responses from a gateway, are retried
+ * only if the audit service discards duplicates, see {@link AuditRetryProperties#isDeduplicated()}. Retries are further limited by a {@link RetryBudget},
+ * so that a widespread outage degrades to roughly one attempt per submission instead of a retry storm. A submission with a deadline is not retried once the
+ * backoff would outlast it.
+ */
+public class AuditSubmissionRetrier {
+    
+    private static Logger logger = LoggerFactory.getLogger(AuditSubmissionRetrier.class);
+    
+    private final AuditRetryProperties properties;
+    private final RetryBudget budget;
+    
+    public AuditSubmissionRetrier(AuditRetryProperties properties) {
+        this(properties, new RetryBudget(properties.getBudget().getMaxRetryRatio(), properties.getBudget().getMinRetries(),
+                        properties.getBudget().getWindow()));
+    }
+    
+    public AuditSubmissionRetrier(AuditRetryProperties properties, RetryBudget budget) {
+        Preconditions.checkNotNull(properties, "properties cannot be null");
+        Preconditions.checkNotNull(budget, "budget cannot be null");
+        Preconditions.checkArgument(properties.getMaxAttempts() > 0, "maxAttempts must be positive");
+        this.properties = properties;
+        this.budget = budget;
+    }
+    
+    /**
+     * Submits to an instance provided by the given provider, retrying on transient failures
+     *
+     * @param serviceProvider
+     *            provides the instance for each attempt
+     * @param submission
+     *            performs a single submission attempt against the given instance
+     */
+    public void submit(AuditServiceProvider serviceProvider, Consumer<ServiceInstance> submission) {
+        submit(serviceProvider::getServiceInstance, submission);
+    }
+    
+    /**
+     * Submits to an instance chosen by the given selector, retrying on transient failures
+     *
+     * @param instanceSelector
+     *            chooses the instance for each attempt, given the instances already tried
+     * @param submission
+     *            performs a single submission attempt against the given instance
+     */
+    public void submit(Function<List<ServiceInstance>,ServiceInstance> instanceSelector, Consumer<ServiceInstance> submission) {
+        submit(instanceSelector, submission, null);
+    }
+    
+    /**
+     * Submits to an instance chosen by the given selector, retrying on transient failures until the deadline
+     *
+     * @param instanceSelector
+     *            chooses the instance for each attempt, given the instances already tried
+     * @param submission
+     *            performs a single submission attempt against the given instance
+     * @param deadline
+     *            time after which no further attempt is made, or null for no limit
+     */
+    public void submit(Function<List<ServiceInstance>,ServiceInstance> instanceSelector, Consumer<ServiceInstance> submission, Instant deadline) {
+        budget.recordRequest();
+        List<ServiceInstance> tried = new ArrayList<>();
+        for (int attempt = 1;; attempt++) {
+            ServiceInstance instance = instanceSelector.apply(tried);
+            try {
+                submission.accept(instance);
+                return;
+            } catch (RuntimeException e) {
+                if (!isRetryable(e) || attempt >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                long delay = backoff(attempt);
+                if (null != deadline && Duration.between(Instant.now(), deadline).toMillis() <= delay) {
+                    logger.debug("Audit submission deadline would pass during backoff, not retrying");
+                    throw e;
+                }
+                if (!budget.tryAcquireRetry()) {
+                    logger.debug("Audit retry budget exhausted, not retrying");
+                    throw e;
+                }
+                tried.add(instance);
+                logger.debug("Audit submission to {} failed, retrying in {} ms: {}", instance.getUri(), delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    protected boolean isRetryable(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return properties.isDeduplicated() || isConnectFailure(e);
+        }
+        if (e instanceof HttpServerErrorException) {
+            int status = ((HttpServerErrorException) e).getRawStatusCode();
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                return true;
+            }
+            return properties.isDeduplicated() && (status == HttpStatus.BAD_GATEWAY.value() || status == HttpStatus.GATEWAY_TIMEOUT.value());
+        }
+        return false;
+    }
+    
+    /**
+     * @return whether the failure happened while connecting, before any part of the request was sent
+     */
+    private static boolean isConnectFailure(RuntimeException e) {
+        for (Throwable cause : Throwables.getCausalChain(e)) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException && String.valueOf(cause.getMessage()).toLowerCase().contains("connect")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    long backoff(int attempt) {
+        return JitterBackoff.delay(properties.getInitialInterval(), properties.getMultiplier(), properties.getMaxInterval(), attempt);
+    }
+}
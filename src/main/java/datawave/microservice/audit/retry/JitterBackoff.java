@@ -0,0 +1,30 @@
+package datawave.microservice.audit.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter, shared by audit submission retries and audit service discovery retries
+ */
+public final class JitterBackoff {
+    
+    private JitterBackoff() {}
+    
+    /**
+     * Full jitter: a uniformly random delay between zero and the capped exponential backoff for the given attempt
+     *
+     * @param initialInterval
+     *            backoff after the first attempt, in milliseconds
+     * @param multiplier
+     *            growth of the backoff per attempt
+     * @param maxInterval
+     *            maximum backoff, in milliseconds
+     * @param attempt
+     *            the attempt which failed, starting at 1
+     * @return the delay before the next attempt, in milliseconds
+     */
+    public static long delay(long initialInterval, double multiplier, long maxInterval, int attempt) {
+        double exponential = initialInterval * Math.pow(multiplier, attempt - 1);
+        long cap = (long) Math.min(maxInterval, exponential);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
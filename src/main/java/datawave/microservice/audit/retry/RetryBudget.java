@@ -0,0 +1,74 @@
+package datawave.microservice.audit.retry;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Sliding-window retry budget. A retry is permitted while the number of retries in the window stays below {@code minRetries + maxRetryRatio * requests}.
+ * <p>
+ * The window is divided into a fixed number of buckets, which expire one at a time as the window slides.
+ */
+public class RetryBudget {
+    
+    private static final int NUM_BUCKETS = 10;
+    
+    private final double maxRetryRatio;
+    private final int minRetries;
+    private final long bucketNanos;
+    private final LongSupplier nanoClock;
+    
+    private final long[] requests = new long[NUM_BUCKETS];
+    private final long[] retries = new long[NUM_BUCKETS];
+    private long currentBucket;
+    
+    public RetryBudget(double maxRetryRatio, int minRetries, Duration window) {
+        this(maxRetryRatio, minRetries, window, System::nanoTime);
+    }
+    
+    RetryBudget(double maxRetryRatio, int minRetries, Duration window, LongSupplier nanoClock) {
+        Preconditions.checkArgument(maxRetryRatio >= 0, "maxRetryRatio must not be negative");
+        Preconditions.checkArgument(minRetries >= 0, "minRetries must not be negative");
+        Preconditions.checkArgument(!window.isNegative() && !window.isZero(), "window must be positive");
+        this.maxRetryRatio = maxRetryRatio;
+        this.minRetries = minRetries;
+        this.bucketNanos = Math.max(1, window.toNanos() / NUM_BUCKETS);
+        this.nanoClock = nanoClock;
+        this.currentBucket = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+    }
+    
+    public synchronized void recordRequest() {
+        requests[advance()]++;
+    }
+    
+    /**
+     * @return true, and records the retry, if the budget permits another retry
+     */
+    public synchronized boolean tryAcquireRetry() {
+        int index = advance();
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            totalRequests += requests[i];
+            totalRetries += retries[i];
+        }
+        if (totalRetries >= minRetries + maxRetryRatio * totalRequests) {
+            return false;
+        }
+        retries[index]++;
+        return true;
+    }
+    
+    private int advance() {
+        long bucket = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+        long expired = Math.min(bucket - currentBucket, NUM_BUCKETS);
+        for (long i = 1; i <= expired; i++) {
+            int index = (int) Math.floorMod(currentBucket + i, (long) NUM_BUCKETS);
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+        currentBucket = Math.max(currentBucket, bucket);
+        return (int) Math.floorMod(currentBucket, (long) NUM_BUCKETS);
+    }
+}
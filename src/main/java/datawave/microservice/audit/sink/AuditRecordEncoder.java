@@ -0,0 +1,135 @@
+package datawave.microservice.audit.sink;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Encodes audit parameters in the {@code application/x-www-form-urlencoded} form sent to the audit service, so that locally persisted records can be
+ * replayed as-is
+ * <p>
+ * The output is identical to encoding each name and value with {@link java.net.URLEncoder} and UTF-8, but is written straight into the destination
+ * buffer, without intermediate strings or byte arrays. {@link #encodedLength(MultiValueMap)} gives the exact size up front, so the destination can be
+ * sized once.
+ */
+public class AuditRecordEncoder {
+    
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+    
+    // Unpaired surrogates are encoded as a question mark, as URLEncoder does
+    private static final int REPLACEMENT = '?';
+    
+    private AuditRecordEncoder() {}
+    
+    public static byte[] encode(MultiValueMap<String,String> params) {
+        byte[] encoded = new byte[encodedLength(params)];
+        encode(params, ByteBuffer.wrap(encoded));
+        return encoded;
+    }
+    
+    /**
+     * Writes the encoded parameters at the buffer's current position
+     *
+     * @throws BufferOverflowException
+     *             if the buffer has fewer than {@link #encodedLength(MultiValueMap)} bytes remaining
+     */
+    public static void encode(MultiValueMap<String,String> params, ByteBuffer buffer) {
+        boolean first = true;
+        for (Map.Entry<String,List<String>> entry : params.entrySet()) {
+            for (String value : entry.getValue()) {
+                if (!first) {
+                    buffer.put((byte) '&');
+                }
+                first = false;
+                encode(entry.getKey(), buffer);
+                if (null != value) {
+                    buffer.put((byte) '=');
+                    encode(value, buffer);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return the exact number of bytes {@link #encode(MultiValueMap, ByteBuffer)} writes for the given parameters
+     */
+    public static int encodedLength(MultiValueMap<String,String> params) {
+        int length = 0;
+        boolean first = true;
+        for (Map.Entry<String,List<String>> entry : params.entrySet()) {
+            int nameLength = encodedLength(entry.getKey());
+            for (String value : entry.getValue()) {
+                if (!first) {
+                    length++;
+                }
+                first = false;
+                length += nameLength;
+                if (null != value) {
+                    length += 1 + encodedLength(value);
+                }
+            }
+        }
+        return length;
+    }
+    
+    private static int encodedLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isUnreserved(c) || c == ' ') {
+                length++;
+            } else if (c < 0x80) {
+                length += 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 12;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 3;
+            } else {
+                length += 9;
+            }
+        }
+        return length;
+    }
+    
+    private static void encode(String s, ByteBuffer buffer) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isUnreserved(c)) {
+                buffer.put((byte) c);
+            } else if (c == ' ') {
+                buffer.put((byte) '+');
+            } else if (c < 0x80) {
+                percentEncode(c, buffer);
+            } else if (c < 0x800) {
+                percentEncode(0xC0 | (c >> 6), buffer);
+                percentEncode(0x80 | (c & 0x3F), buffer);
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                percentEncode(0xF0 | (codePoint >> 18), buffer);
+                percentEncode(0x80 | ((codePoint >> 12) & 0x3F), buffer);
+                percentEncode(0x80 | ((codePoint >> 6) & 0x3F), buffer);
+                percentEncode(0x80 | (codePoint & 0x3F), buffer);
+            } else if (Character.isSurrogate(c)) {
+                percentEncode(REPLACEMENT, buffer);
+            } else {
+                percentEncode(0xE0 | (c >> 12), buffer);
+                percentEncode(0x80 | ((c >> 6) & 0x3F), buffer);
+                percentEncode(0x80 | (c & 0x3F), buffer);
+            }
+        }
+    }
+    
+    private static void percentEncode(int b, ByteBuffer buffer) {
+        buffer.put((byte) '%').put(HEX[(b >> 4) & 0xF]).put(HEX[b & 0xF]);
+    }
+    
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+}
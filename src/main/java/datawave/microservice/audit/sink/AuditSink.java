@@ -0,0 +1,32 @@
+package datawave.microservice.audit.sink;
+
+import datawave.microservice.audit.AuditClient;
+
+/**
+ * Destination for audit requests submitted via {@link AuditClient}. The remote audit service is always the primary sink. Any {@code AuditSink} beans found
+ * in the application context are delivered to in parallel with it, according to the configured {@link FanOutAuditSink.Policy}.
+ *
+ * @see FanOutAuditSink
+ */
+@FunctionalInterface
+public interface AuditSink {
+    
+    /**
+     * Delivers the audit request, blocking until it has been durably accepted by this sink
+     *
+     * @param request
+     *            the validated audit request
+     * @param requestPath
+     *            the audit service path the request was submitted to. Sinks which do not deliver to the audit service may ignore it
+     * @throws RuntimeException
+     *             if the request could not be delivered
+     */
+    void send(AuditClient.Request request, String requestPath);
+    
+    /**
+     * @return name used to identify this sink in logs
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,234 @@
+package datawave.microservice.audit.sink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditClient;
+
+/**
+ * Composite {@link AuditSink} which delivers each audit request to a primary sink and any number of secondary sinks in parallel. Every sink runs on the
+ * supplied executor, and the caller waits only as long as the {@link Policy} requires, so adding sinks does not add their latency to the caller. The primary
+ * sink falls back to the calling thread if the executor rejects it.
+ * <p>
+ * Failures of sinks the caller does not wait for are logged. A request which the primary sink fails to deliver after the caller has returned is passed to
+ * the {@link #setUndeliveredHandler(BiConsumer) undelivered handler}, so that it is not lost without trace.
+ *
+ * @see Policy
+ */
+public class FanOutAuditSink implements AuditSink {
+    
+    /**
+     * Determines when a fan-out delivery is considered complete
+     */
+    public enum Policy {
+        /**
+         * Wait for every sink, failing if any sink fails
+         */
+        ALL,
+        /**
+         * Return as soon as any sink succeeds, failing only if every sink fails. Sinks still running are not waited for
+         */
+        ANY,
+        /**
+         * Wait for the primary sink only. Secondary sinks are best-effort and their failures are logged
+         */
+        PRIMARY
+    }
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final AuditSink primary;
+    private final List<AuditSink> secondaries;
+    private final Policy policy;
+    private final Executor executor;
+    private final UnaryOperator<Runnable> taskWrapper;
+    private volatile BiConsumer<AuditClient.Request,String> undeliveredHandler;
+    
+    public FanOutAuditSink(AuditSink primary, List<AuditSink> secondaries, Policy policy, Executor executor) {
+        this(primary, secondaries, policy, executor, UnaryOperator.identity());
+    }
+    
+    /**
+     * @param taskWrapper
+     *            applied to each delivery before it is handed to the executor, e.g., to carry the caller's trace context
+     */
+    public FanOutAuditSink(AuditSink primary, List<AuditSink> secondaries, Policy policy, Executor executor, UnaryOperator<Runnable> taskWrapper) {
+        Preconditions.checkNotNull(primary, "primary sink cannot be null");
+        Preconditions.checkNotNull(secondaries, "secondary sinks cannot be null");
+        Preconditions.checkNotNull(policy, "policy cannot be null");
+        Preconditions.checkNotNull(executor, "executor cannot be null");
+        Preconditions.checkNotNull(taskWrapper, "taskWrapper cannot be null");
+        this.primary = primary;
+        this.secondaries = Collections.unmodifiableList(new ArrayList<>(secondaries));
+        this.policy = policy;
+        this.executor = executor;
+        this.taskWrapper = taskWrapper;
+    }
+    
+    /**
+     * Sets the handler for requests which the primary sink failed to deliver after the caller had returned, e.g., to spool them for resubmission. Without
+     * a handler, such requests are logged and lost.
+     *
+     * @param undeliveredHandler
+     *            receives the request and its request path, may be null
+     */
+    public void setUndeliveredHandler(BiConsumer<AuditClient.Request,String> undeliveredHandler) {
+        this.undeliveredHandler = undeliveredHandler;
+    }
+    
+    @Override
+    public void send(AuditClient.Request request, String requestPath) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(secondaries.size() + 1);
+        futures.add(sendAsync(primary, true, request, requestPath));
+        for (AuditSink sink : secondaries) {
+            futures.add(sendAsync(sink, false, request, requestPath));
+        }
+        
+        switch (policy) {
+            case PRIMARY:
+                for (int i = 1; i < futures.size(); i++) {
+                    handleUnawaited(i, futures.get(i), request, requestPath);
+                }
+                awaitAll(futures.subList(0, 1));
+                break;
+            case ANY:
+                awaitAny(futures);
+                // Once any sink has succeeded the caller returns, so failures of the others, earlier or later, are handled here
+                for (int i = 0; i < futures.size(); i++) {
+                    handleUnawaited(i, futures.get(i), request, requestPath);
+                }
+                break;
+            case ALL:
+            default:
+                awaitAll(futures);
+                break;
+        }
+    }
+    
+    private CompletableFuture<Void> sendAsync(AuditSink sink, boolean isPrimary, AuditClient.Request request, String requestPath) {
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(taskWrapper.apply(() -> sink.send(request, requestPath)), executor);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            if (isPrimary) {
+                log.debug("Audit sink executor rejected delivery to {}, delivering on the calling thread", sink.getName());
+                try {
+                    sink.send(request, requestPath);
+                    future.complete(null);
+                } catch (RuntimeException sendFailure) {
+                    future.completeExceptionally(sendFailure);
+                }
+            } else {
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+    
+    /**
+     * Handles the failure of a delivery which the caller does not wait for
+     *
+     * @param index
+     *            the sink's index, 0 for the primary sink
+     */
+    private void handleUnawaited(int index, CompletableFuture<Void> future, AuditClient.Request request, String requestPath) {
+        future.whenComplete((v, t) -> {
+            if (null == t) {
+                return;
+            }
+            if (index > 0) {
+                log.warn("Best-effort delivery to audit sink " + secondaries.get(index - 1).getName() + " failed", unwrap(t));
+                return;
+            }
+            BiConsumer<AuditClient.Request,String> handler = undeliveredHandler;
+            if (null == handler) {
+                log.error("Delivery to audit sink " + primary.getName() + " failed after the caller returned, the audit request has been lost", unwrap(t));
+                return;
+            }
+            log.warn("Delivery to audit sink " + primary.getName() + " failed after the caller returned, handing off the audit request", unwrap(t));
+            try {
+                handler.accept(request, requestPath);
+            } catch (RuntimeException e) {
+                log.error("Failed to hand off undelivered audit request, it has been lost", e);
+            }
+        });
+    }
+    
+    private void awaitAll(List<CompletableFuture<Void>> futures) {
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failure = addFailure(failure, unwrap(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = addFailure(failure, new IllegalStateException("Interrupted while waiting for audit sinks", e));
+                break;
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Returns once any of the futures succeeds. If every future fails, throws the first failure with the others suppressed.
+     */
+    private void awaitAny(List<CompletableFuture<Void>> futures) {
+        RuntimeException failure = null;
+        List<CompletableFuture<Void>> pending = new ArrayList<>(futures);
+        while (!pending.isEmpty()) {
+            try {
+                CompletableFuture.anyOf(pending.toArray(new CompletableFuture[0])).get();
+                return;
+            } catch (ExecutionException e) {
+                for (Iterator<CompletableFuture<Void>> it = pending.iterator(); it.hasNext();) {
+                    CompletableFuture<Void> future = it.next();
+                    if (future.isCompletedExceptionally()) {
+                        it.remove();
+                        failure = addFailure(failure, unwrap(future.handle((v, t) -> t).join()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = addFailure(failure, new IllegalStateException("Interrupted while waiting for audit sinks", e));
+                break;
+            }
+        }
+        throw failure;
+    }
+    
+    private static RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+        if (null == failure) {
+            return e;
+        }
+        if (failure != e) {
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+    
+    private static RuntimeException unwrap(Throwable t) {
+        Throwable cause = t instanceof CompletionException && null != t.getCause() ? t.getCause() : t;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+    
+    @Override
+    public String getName() {
+        return "fanOut(" + primary.getName() + ", " + secondaries.size() + " secondaries, " + policy + ")";
+    }
+}
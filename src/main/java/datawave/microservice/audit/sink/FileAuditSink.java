@@ -0,0 +1,361 @@
+package datawave.microservice.audit.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.timeout.AuditTimeoutException;
+
+/**
+ * {@link AuditSink} which appends audit requests to local files. Records are handed to a single writer thread, which writes them through a
+ * {@link FileChannel} into preallocated files and rotates to a new file when the current one is full.
+ * <p>
+ * Fsyncs are shared across concurrent producers (group commit): once the writer picks up a record, it keeps collecting records for up to the configured
+ * durability window, writes them, and then issues a single {@link FileChannel#force(boolean)} before acknowledging all of them. {@link #send} returns only
+ * after the record has been forced to disk, and fails if that takes longer than the write timeout. If writing a batch fails, the file is truncated back to
+ * where the batch started before its records are failed, so that no record reported as failed is left on disk. Records forced to disk when the previous
+ * file was rotated out are acknowledged before the next file is opened, so failing to open it fails only the records after them.
+ * <p>
+ * Each file starts with the 4-byte magic number {@value #MAGIC}, followed by records of the form {@code [int marker][int length][int crc32c][payload]}, where
+ * the marker is always {@value #RECORD_MARKER} and the payload is the form-encoded audit parameters. The marker tells a record, even one with an empty
+ * payload, from the zeroed tail of a preallocated file which was never truncated. Files are truncated to their written length when rotated or closed.
+ */
+public class FileAuditSink implements AuditSink, Closeable {
+    
+    static final int MAGIC = 0x44574132;
+    static final int RECORD_MARKER = 0x52454331;
+    static final int RECORD_HEADER_BYTES = 12;
+    static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofSeconds(30);
+    
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Path directory;
+    private final String filePrefix;
+    private final long fileSize;
+    private final long durabilityWindowNanos;
+    private final int maxBatchSize;
+    private final long writeTimeoutNanos;
+    private final BlockingQueue<PendingRecord> queue;
+    private final Thread writer;
+    // Producers check running and enqueue under the read lock, and running is cleared under the write lock, so no record can be enqueued after the writer
+    // has stopped draining the queue
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    
+    private volatile boolean running = true;
+    private FileChannel channel;
+    private Path currentFile;
+    private int fileSequence;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    
+    public FileAuditSink(Path directory, String filePrefix, long fileSize, Duration durabilityWindow, int queueCapacity, int maxBatchSize) throws IOException {
+        this(directory, filePrefix, fileSize, durabilityWindow, queueCapacity, maxBatchSize, DEFAULT_WRITE_TIMEOUT);
+    }
+    
+    /**
+     * @param writeTimeout
+     *            how long {@link #send} waits for its record to be queued and forced to disk
+     */
+    public FileAuditSink(Path directory, String filePrefix, long fileSize, Duration durabilityWindow, int queueCapacity, int maxBatchSize,
+                    Duration writeTimeout) throws IOException {
+        Preconditions.checkNotNull(directory, "directory cannot be null");
+        Preconditions.checkArgument(fileSize > RECORD_HEADER_BYTES + 4, "fileSize is too small");
+        Preconditions.checkArgument(!durabilityWindow.isNegative(), "durabilityWindow cannot be negative");
+        Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        Preconditions.checkArgument(null != writeTimeout && !writeTimeout.isNegative() && !writeTimeout.isZero(), "writeTimeout must be positive");
+        this.directory = Files.createDirectories(directory);
+        this.filePrefix = filePrefix;
+        this.fileSize = fileSize;
+        this.durabilityWindowNanos = durabilityWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "fileAuditSink-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    @Override
+    public void send(AuditClient.Request request, String requestPath) {
+        PendingRecord record = new PendingRecord(AuditRecordEncoder.encode(request.getParamMap()));
+        long deadline = System.nanoTime() + writeTimeoutNanos;
+        try {
+            lifecycleLock.readLock().lock();
+            try {
+                Preconditions.checkState(running, "FileAuditSink is closed");
+                if (!queue.offer(record, writeTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new AuditTimeoutException("Timed out queueing audit record for " + directory);
+                }
+            } finally {
+                lifecycleLock.readLock().unlock();
+            }
+            record.written.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing audit record", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to write audit record to " + directory, e.getCause());
+        } catch (TimeoutException e) {
+            throw new AuditTimeoutException("Timed out writing audit record to " + directory);
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "file(" + directory + ")";
+    }
+    
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (null == first) {
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + durabilityWindowNanos;
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (null == next) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                    commit(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            // Reached on close, interruption, or an Error escaping a commit, none of which may leave a producer waiting
+            stopAccepting();
+            IllegalStateException stopped = new IllegalStateException("FileAuditSink writer stopped");
+            batch.forEach(record -> record.written.completeExceptionally(stopped));
+            failQueued(stopped);
+            closeFile();
+        }
+    }
+    
+    private void commit(List<PendingRecord> batch) {
+        // Records before this index were forced to disk when a previous file was rotated out, and are already acknowledged
+        int acknowledged = 0;
+        long batchStart = -1L;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] payload = batch.get(i).payload;
+                if (needsRotation(payload.length)) {
+                    if (null != channel) {
+                        seal();
+                        // Already on disk, so these records are acknowledged even if opening the next file fails
+                        complete(batch, acknowledged, i);
+                        acknowledged = i;
+                        batchStart = -1L;
+                    }
+                    rotate();
+                }
+                if (batchStart < 0) {
+                    batchStart = channel.position() + buffer.position();
+                }
+                write(payload);
+            }
+            flushBuffer();
+            channel.force(false);
+            complete(batch, acknowledged, batch.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write {} audit records to {}", batch.size() - acknowledged, currentFile, e);
+            discardFrom(batchStart);
+            for (int i = acknowledged; i < batch.size(); i++) {
+                batch.get(i).written.completeExceptionally(e);
+            }
+            closeFile();
+        }
+    }
+    
+    private static void complete(List<PendingRecord> batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            batch.get(i).written.complete(null);
+        }
+    }
+    
+    private boolean needsRotation(int payloadLength) throws IOException {
+        if (null == channel) {
+            return true;
+        }
+        long written = channel.position() + buffer.position();
+        return written + RECORD_HEADER_BYTES + payloadLength > fileSize && written > 4;
+    }
+    
+    private void write(byte[] payload) throws IOException {
+        int recordSize = RECORD_HEADER_BYTES + payload.length;
+        if (buffer.remaining() < recordSize) {
+            flushBuffer();
+            if (buffer.capacity() < recordSize) {
+                buffer = ByteBuffer.allocateDirect(recordSize);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buffer.putInt(RECORD_MARKER).putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+    }
+    
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Truncates the current file to its written length and forces everything written to it to disk
+     */
+    private void seal() throws IOException {
+        flushBuffer();
+        channel.truncate(channel.position());
+        channel.force(true);
+    }
+    
+    /**
+     * Closes the current file, which must already be sealed, and opens the next one
+     */
+    private void rotate() throws IOException {
+        if (null != channel) {
+            FileChannel sealed = channel;
+            channel = null;
+            try {
+                sealed.close();
+            } catch (IOException e) {
+                log.warn("Failed to close audit file {}", currentFile, e);
+            }
+        }
+        currentFile = directory.resolve(String.format("%s%s-%06d.log", filePrefix, LocalDateTime.now().format(FILE_TIMESTAMP), fileSequence++));
+        channel = open(currentFile);
+        
+        // Preallocate the file so that appends do not need to update its length metadata
+        channel.write(ByteBuffer.allocate(1), fileSize - 1);
+        channel.position(0);
+        // Written straight to the channel, so that discarding a failed batch never removes it
+        ByteBuffer magic = ByteBuffer.allocate(4).putInt(MAGIC);
+        magic.flip();
+        while (magic.hasRemaining()) {
+            channel.write(magic);
+        }
+        log.debug("Writing audit records to {}", currentFile);
+    }
+    
+    /**
+     * Creates the given file for writing. Package-private so that tests can simulate failures.
+     */
+    FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Drops anything written from the given position on, so that records which are about to be failed do not survive on disk
+     */
+    private void discardFrom(long position) {
+        buffer.clear();
+        if (null != channel && position >= 0) {
+            try {
+                channel.truncate(position);
+                channel.position(position);
+                channel.force(true);
+            } catch (IOException e) {
+                log.warn("Failed to discard partially written audit records from {}", currentFile, e);
+            }
+        }
+    }
+    
+    private void closeFile() {
+        if (null != channel) {
+            try {
+                if (buffer.position() > 0) {
+                    flushBuffer();
+                }
+                channel.truncate(channel.position());
+                channel.force(true);
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close audit file {}", currentFile, e);
+            } finally {
+                channel = null;
+                buffer.clear();
+            }
+        }
+    }
+    
+    private void stopAccepting() {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+    }
+    
+    private void failQueued(RuntimeException failure) {
+        PendingRecord record;
+        while (null != (record = queue.poll())) {
+            record.written.completeExceptionally(failure);
+        }
+    }
+    
+    /**
+     * Stops accepting records, writes any queued records, and closes the current file. Records still queued after the write timeout are failed.
+     */
+    @Override
+    public void close() {
+        stopAccepting();
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued(new IllegalStateException("FileAuditSink is closed"));
+    }
+    
+    private static class PendingRecord {
+        
+        private final byte[] payload;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        
+        PendingRecord(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package datawave.microservice.audit.timeout;
+
+/**
+ * Thrown when a call to the audit service did not complete within its time budget. Unlike a socket timeout, this is not retried, since the budget is
+ * already spent.
+ */
+public class AuditTimeoutException extends RuntimeException {
+    
+    public AuditTimeoutException(String message) {
+        super(message);
+    }
+    
+    public AuditTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,149 @@
+package datawave.microservice.audit.timeout;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import datawave.microservice.audit.tls.TlsClientHttpRequestFactory;
+
+/**
+ * Bounds how long a caller waits on a blocking HTTP call. A read on an established connection cannot be interrupted, and the request factory in use is not
+ * ours to reconfigure per request, so a call with a budget runs on a separate thread and the caller gives up once the budget is spent. The abandoned call is
+ * left to finish against the connection's own read timeout. Calls without a budget run directly on the caller's thread.
+ * <p>
+ * At most {@code maxThreads} calls with a budget run at once, counting abandoned calls which have not yet finished. Further calls are not queued, since
+ * queuing would spend their budget, and fail immediately with an {@link AuditTimeoutException}.
+ */
+public class CallTimeLimiter {
+    
+    /**
+     * Header carrying the milliseconds remaining in the caller's budget, so that the audit service can give up on work the caller will no longer wait for
+     */
+    public static final String REMAINING_BUDGET_HEADER = "X-Audit-Remaining-Millis";
+    
+    public static final int DEFAULT_MAX_THREADS = 256;
+    
+    private final ExecutorService executor;
+    
+    public CallTimeLimiter(String threadNamePrefix) {
+        this(threadNamePrefix, DEFAULT_MAX_THREADS);
+    }
+    
+    public CallTimeLimiter(String threadNamePrefix, int maxThreads) {
+        //@formatter:off
+        this(new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat(threadNamePrefix + "%d").setDaemon(true).build()));
+        //@formatter:on
+    }
+    
+    public CallTimeLimiter(ExecutorService executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Runs the call, waiting at most {@code budget} for it to complete
+     *
+     * @param call
+     *            the call to make
+     * @param budget
+     *            maximum time to wait, or null to wait for as long as the call takes
+     * @param description
+     *            describes the call in error messages
+     * @return the result of the call
+     * @throws AuditTimeoutException
+     *             if the budget is already spent, too many calls are in progress, or the call did not complete in time
+     */
+    public <T> T call(Supplier<T> call, Duration budget, String description) {
+        if (null == budget) {
+            return call.get();
+        }
+        checkRemaining(budget, description);
+        Future<T> future;
+        try {
+            future = executor.submit(call::get);
+        } catch (RejectedExecutionException e) {
+            throw new AuditTimeoutException(description + " was not attempted, too many calls are in progress", e);
+        }
+        try {
+            return future.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new AuditTimeoutException(description + " timed out after " + budget.toMillis() + "ms");
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(description + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(description + " was interrupted", e);
+        }
+    }
+    
+    /**
+     * @throws AuditTimeoutException
+     *             if {@code budget} is not positive
+     */
+    public static void checkRemaining(Duration budget, String description) {
+        if (null != budget && (budget.isNegative() || budget.isZero())) {
+            throw new AuditTimeoutException(description + " was not attempted, its deadline has passed");
+        }
+    }
+    
+    /**
+     * @return the smaller of the time left until {@code deadline} and {@code timeout}, either of which may be null
+     */
+    public static Duration budget(Instant deadline, Duration timeout) {
+        if (null == deadline) {
+            return timeout;
+        }
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return (null == timeout || remaining.compareTo(timeout) < 0) ? remaining : timeout;
+    }
+    
+    /**
+     * Applies connect and read timeouts to the request factory the builder creates. Null timeouts are left at the factory's default.
+     */
+    public static RestTemplateBuilder withTimeouts(RestTemplateBuilder builder, Duration connectTimeout, Duration readTimeout) {
+        RestTemplateBuilder configured = builder;
+        if (null != connectTimeout) {
+            configured = configured.setConnectTimeout(connectTimeout);
+        }
+        if (null != readTimeout) {
+            configured = configured.setReadTimeout(readTimeout);
+        }
+        return configured;
+    }
+    
+    /**
+     * Applies connect and read timeouts to a request factory supplied after the client was built, where the factory supports them
+     */
+    public static void applyTimeouts(ClientHttpRequestFactory requestFactory, Duration connectTimeout, Duration readTimeout) {
+        if (requestFactory instanceof TlsClientHttpRequestFactory) {
+            requestFactory = ((TlsClientHttpRequestFactory) requestFactory).getDelegate();
+        }
+        if (requestFactory instanceof SimpleClientHttpRequestFactory) {
+            SimpleClientHttpRequestFactory factory = (SimpleClientHttpRequestFactory) requestFactory;
+            if (null != connectTimeout) {
+                factory.setConnectTimeout((int) connectTimeout.toMillis());
+            }
+            if (null != readTimeout) {
+                factory.setReadTimeout((int) readTimeout.toMillis());
+            }
+        }
+    }
+}
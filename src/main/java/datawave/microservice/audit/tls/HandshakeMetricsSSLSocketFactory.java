@@ -0,0 +1,119 @@
+package datawave.microservice.audit.tls;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link SSLSocketFactory} decorator which counts full and resumed TLS handshakes and records handshake latency for every socket it creates
+ * <p>
+ * Latency is measured from when TLS is layered over an already connected socket, so it does not include the TCP connect. Unconnected sockets are therefore
+ * not supported, which makes {@link javax.net.ssl.HttpsURLConnection} connect a plain socket first. A handshake is considered resumed when its session was
+ * seen before: a resumed session keeps the creation time of the session it was resumed from, so a session with a known peer and creation time was taken
+ * from the client session cache rather than negotiated from scratch.
+ */
+public class HandshakeMetricsSSLSocketFactory extends SSLSocketFactory {
+    
+    public static final String HANDSHAKE_COUNTER = "audit.client.tls.handshakes";
+    public static final String HANDSHAKE_TIMER = "audit.client.tls.handshake.latency";
+    
+    static final int MAX_KNOWN_SESSIONS = 10000;
+    
+    private final SSLSocketFactory delegate;
+    private final Counter fullHandshakes;
+    private final Counter resumedHandshakes;
+    private final Timer handshakeLatency;
+    private final Map<String,Boolean> knownSessions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,Boolean> eldest) {
+            return size() > MAX_KNOWN_SESSIONS;
+        }
+    });
+    
+    public HandshakeMetricsSSLSocketFactory(SSLSocketFactory delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.fullHandshakes = Counter.builder(HANDSHAKE_COUNTER).tag("type", "full").register(meterRegistry);
+        this.resumedHandshakes = Counter.builder(HANDSHAKE_COUNTER).tag("type", "resumed").register(meterRegistry);
+        this.handshakeLatency = Timer.builder(HANDSHAKE_TIMER).register(meterRegistry);
+    }
+    
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+    
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+    
+    @Override
+    public Socket createSocket() throws IOException {
+        // Same failure as the SocketFactory default, which HttpsURLConnection handles by connecting a plain socket and layering TLS over it
+        SocketException unsupported = new SocketException("Unconnected sockets not implemented");
+        unsupported.initCause(new UnsupportedOperationException());
+        throw unsupported;
+    }
+    
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+        return instrument(delegate.createSocket(s, host, port, autoClose));
+    }
+    
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return instrument(delegate.createSocket(host, port));
+    }
+    
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return instrument(delegate.createSocket(host, port, localHost, localPort));
+    }
+    
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return instrument(delegate.createSocket(host, port));
+    }
+    
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return instrument(delegate.createSocket(address, port, localAddress, localPort));
+    }
+    
+    /**
+     * Instruments a connected socket, whose handshake starts on first use or on an explicit {@link SSLSocket#startHandshake()}
+     */
+    private Socket instrument(Socket socket) {
+        if (socket instanceof SSLSocket) {
+            // The listener is notified on a separate thread once the handshake has finished
+            final long startNanos = System.nanoTime();
+            ((SSLSocket) socket).addHandshakeCompletedListener(event -> {
+                handshakeLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                if (isResumed(event.getSession())) {
+                    resumedHandshakes.increment();
+                } else {
+                    fullHandshakes.increment();
+                }
+            });
+        }
+        return socket;
+    }
+    
+    private boolean isResumed(SSLSession session) {
+        String key = session.getPeerHost() + ':' + session.getPeerPort() + '@' + session.getCreationTime();
+        return null != knownSessions.put(key, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,53 @@
+package datawave.microservice.audit.tls;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Creates an {@link SSLContext} from the key and trust store settings of an {@link Ssl} configuration, such as the one bound from {@code server.outbound-ssl}
+ */
+public final class SslContextLoader {
+    
+    private SslContextLoader() {}
+    
+    public static SSLContext load(Ssl ssl, String protocol) {
+        try {
+            KeyManagerFactory keyManagerFactory = null;
+            if (null != ssl.getKeyStore()) {
+                KeyStore keyStore = loadStore(ssl.getKeyStore(), ssl.getKeyStoreType(), ssl.getKeyStorePassword());
+                String keyPassword = null != ssl.getKeyPassword() ? ssl.getKeyPassword() : ssl.getKeyStorePassword();
+                keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                keyManagerFactory.init(keyStore, null == keyPassword ? null : keyPassword.toCharArray());
+            }
+            TrustManagerFactory trustManagerFactory = null;
+            if (null != ssl.getTrustStore()) {
+                KeyStore trustStore = loadStore(ssl.getTrustStore(), ssl.getTrustStoreType(), ssl.getTrustStorePassword());
+                trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                trustManagerFactory.init(trustStore);
+            }
+            SSLContext sslContext = SSLContext.getInstance(protocol);
+            sslContext.init(null == keyManagerFactory ? null : keyManagerFactory.getKeyManagers(),
+                            null == trustManagerFactory ? null : trustManagerFactory.getTrustManagers(), null);
+            return sslContext;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create SSLContext for audit client", e);
+        }
+    }
+    
+    private static KeyStore loadStore(String location, String type, String password) throws Exception {
+        KeyStore store = KeyStore.getInstance(null == type ? KeyStore.getDefaultType() : type);
+        URL url = ResourceUtils.getURL(location);
+        try (InputStream in = url.openStream()) {
+            store.load(in, null == password ? null : password.toCharArray());
+        }
+        return store;
+    }
+}
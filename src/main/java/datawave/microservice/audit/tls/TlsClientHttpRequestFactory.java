@@ -0,0 +1,96 @@
+package datawave.microservice.audit.tls;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Decorates the configured request factory so that every HTTPS connection goes through a single {@link SSLContext}, whose client session cache is then
+ * shared by all connections and lets TLS sessions be resumed on reconnect.
+ * <p>
+ * When the configured factory is the JDK default, a {@link SimpleClientHttpRequestFactory}, its connections are opened with the shared context. Factories
+ * backed by a pooling HTTP library keep their own connection pool and TLS configuration, and are used unchanged.
+ */
+public class TlsClientHttpRequestFactory implements ClientHttpRequestFactory {
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final ClientHttpRequestFactory delegate;
+    private final SSLSocketFactory socketFactory;
+    private volatile HostnameVerifier hostnameVerifier;
+    
+    /**
+     * @param configured
+     *            the request factory which would otherwise be used
+     * @param sslContext
+     *            the context whose session cache is shared by all connections
+     * @param sessionCacheSize
+     *            maximum number of cached client sessions, 0 for no limit
+     * @param sessionTimeoutSeconds
+     *            lifetime of a cached client session, 0 for no limit
+     * @param socketFactory
+     *            socket factory created from the given context, possibly decorated
+     */
+    public TlsClientHttpRequestFactory(ClientHttpRequestFactory configured, SSLContext sslContext, int sessionCacheSize, int sessionTimeoutSeconds,
+                    SSLSocketFactory socketFactory) {
+        Preconditions.checkNotNull(configured, "configured request factory cannot be null");
+        Preconditions.checkNotNull(sslContext, "sslContext cannot be null");
+        Preconditions.checkNotNull(socketFactory, "socketFactory cannot be null");
+        Preconditions.checkArgument(sessionCacheSize >= 0, "sessionCacheSize must not be negative");
+        Preconditions.checkArgument(sessionTimeoutSeconds >= 0, "sessionTimeoutSeconds must not be negative");
+        sslContext.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+        sslContext.getClientSessionContext().setSessionTimeout(sessionTimeoutSeconds);
+        this.socketFactory = socketFactory;
+        if (configured.getClass() == SimpleClientHttpRequestFactory.class) {
+            this.delegate = new SharedContextRequestFactory();
+        } else {
+            log.info("Using {} with its own TLS configuration", configured.getClass().getName());
+            this.delegate = configured;
+        }
+    }
+    
+    public void setHostnameVerifier(HostnameVerifier hostnameVerifier) {
+        this.hostnameVerifier = hostnameVerifier;
+    }
+    
+    /**
+     * @return the factory which creates the requests
+     */
+    public ClientHttpRequestFactory getDelegate() {
+        return delegate;
+    }
+    
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return delegate.createRequest(uri, httpMethod);
+    }
+    
+    private class SharedContextRequestFactory extends SimpleClientHttpRequestFactory {
+        
+        @Override
+        protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+            if (connection instanceof HttpsURLConnection) {
+                HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+                httpsConnection.setSSLSocketFactory(socketFactory);
+                HostnameVerifier verifier = hostnameVerifier;
+                if (null != verifier) {
+                    httpsConnection.setHostnameVerifier(verifier);
+                }
+            }
+            super.prepareConnection(connection, httpMethod);
+        }
+    }
+}
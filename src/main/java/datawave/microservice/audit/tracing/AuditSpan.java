@@ -0,0 +1,30 @@
+package datawave.microservice.audit.tracing;
+
+/**
+ * A span started by an {@link AuditTracer}. The span is current on the starting thread until it is closed.
+ */
+public interface AuditSpan extends AutoCloseable {
+    
+    AuditSpan NOOP = new AuditSpan() {
+        @Override
+        public AuditSpan setAttribute(String key, String value) {
+            return this;
+        }
+        
+        @Override
+        public void recordError(Throwable error) {}
+        
+        @Override
+        public void close() {}
+    };
+    
+    AuditSpan setAttribute(String key, String value);
+    
+    void recordError(Throwable error);
+    
+    /**
+     * Ends the span and restores the previously current span
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,61 @@
+package datawave.microservice.audit.tracing;
+
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Tracing facade used by the audit and replay clients, so that tracing stays optional. Spans started while another span is current become its children.
+ *
+ * @see OpenTelemetryAuditTracer
+ */
+public interface AuditTracer {
+    
+    String SUBMIT_SPAN = "audit.submit";
+    String REPLAY_SPAN = "audit.replay";
+    String VALIDATION_SPAN = "audit.validation";
+    String DISCOVERY_SPAN = "audit.discovery";
+    String TOKEN_SPAN = "audit.token";
+    String HTTP_SPAN = "audit.http";
+    
+    String AUDIT_TYPE_ATTRIBUTE = "audit.type";
+    String INSTANCE_ATTRIBUTE = "audit.instance";
+    String REPLAY_METHOD_ATTRIBUTE = "audit.replay.method";
+    
+    AuditTracer NOOP = new AuditTracer() {
+        @Override
+        public AuditSpan start(String name) {
+            return AuditSpan.NOOP;
+        }
+        
+        @Override
+        public void inject(MultiValueMap<String,String> headers) {}
+        
+        @Override
+        public Runnable wrap(Runnable task) {
+            return task;
+        }
+    };
+    
+    /**
+     * Starts a span, which becomes current until it is closed
+     *
+     * @param name
+     *            the span name
+     * @return the started span
+     */
+    AuditSpan start(String name);
+    
+    /**
+     * Adds the headers which propagate the current trace context to a remote service
+     *
+     * @param headers
+     *            outgoing request headers
+     */
+    void inject(MultiValueMap<String,String> headers);
+    
+    /**
+     * @param task
+     *            a task to be run on another thread
+     * @return a task which runs with the current trace context
+     */
+    Runnable wrap(Runnable task);
+}
@@ -0,0 +1,74 @@
+package datawave.microservice.audit.tracing;
+
+import org.springframework.util.MultiValueMap;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * {@link AuditTracer} backed by the OpenTelemetry API. Trace context is propagated using the configured text map propagator, typically W3C
+ * {@code traceparent}.
+ */
+public class OpenTelemetryAuditTracer implements AuditTracer {
+    
+    static final String INSTRUMENTATION_NAME = "datawave.audit-client";
+    
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+    
+    public OpenTelemetryAuditTracer(OpenTelemetry openTelemetry) {
+        this.openTelemetry = openTelemetry;
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+    
+    @Override
+    public AuditSpan start(String name) {
+        Span span = tracer.spanBuilder(name).startSpan();
+        return new OpenTelemetrySpan(span, span.makeCurrent());
+    }
+    
+    @Override
+    public void inject(MultiValueMap<String,String> headers) {
+        openTelemetry.getPropagators().getTextMapPropagator().inject(Context.current(), headers, MultiValueMap::set);
+    }
+    
+    @Override
+    public Runnable wrap(Runnable task) {
+        return Context.current().wrap(task);
+    }
+    
+    private static class OpenTelemetrySpan implements AuditSpan {
+        
+        private final Span span;
+        private final Scope scope;
+        
+        OpenTelemetrySpan(Span span, Scope scope) {
+            this.span = span;
+            this.scope = scope;
+        }
+        
+        @Override
+        public AuditSpan setAttribute(String key, String value) {
+            if (null != value) {
+                span.setAttribute(key, value);
+            }
+            return this;
+        }
+        
+        @Override
+        public void recordError(Throwable error) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR);
+        }
+        
+        @Override
+        public void close() {
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package datawave.microservice.audit.transport;
+
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+
+/**
+ * Handles audit requests in-process. An audit service running in the same JVM as the audit client can expose its request handling as a bean of this type,
+ * and {@link datawave.microservice.audit.AuditClient} will then hand requests to it directly, see {@link LoopbackAuditTransport}.
+ */
+@FunctionalInterface
+public interface AuditRequestHandler {
+    
+    /**
+     * Handles an audit request as the audit service would handle one posted to {@code requestPath}, returning once it has been accepted
+     *
+     * @param parameters
+     *            read-only view of the audit parameters
+     * @param requestPath
+     *            the audit service path the request was submitted to
+     * @param userDetails
+     *            the user the request was submitted on behalf of, may be null
+     * @throws RuntimeException
+     *             if the request was not accepted
+     */
+    void handle(MultiValueMap<String,String> parameters, String requestPath, DatawaveUserDetails userDetails);
+}
@@ -0,0 +1,33 @@
+package datawave.microservice.audit.transport;
+
+import datawave.microservice.audit.AuditClient;
+
+/**
+ * Alternative to HTTP for delivering audit requests from {@link AuditClient} to the audit service. If an {@code AuditTransport} bean is present, it replaces
+ * the HTTP call to the audit service; request building, validation, lanes and any additional {@link datawave.microservice.audit.sink.AuditSink sinks} work
+ * the same as with HTTP.
+ *
+ * @see StreamAuditTransport
+ * @see LoopbackAuditTransport
+ */
+public interface AuditTransport {
+    
+    /**
+     * Delivers the audit request to the audit service, blocking until it has been accepted
+     *
+     * @param request
+     *            the validated audit request
+     * @param requestPath
+     *            the audit service path the request was submitted to
+     * @throws RuntimeException
+     *             if the request could not be delivered
+     */
+    void send(AuditClient.Request request, String requestPath);
+    
+    /**
+     * @return name used to identify this transport in logs
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,28 @@
+package datawave.microservice.audit.transport;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditClient;
+
+/**
+ * {@link AuditTransport} for an audit service running in the same JVM. Requests are handed to its {@link AuditRequestHandler} on the calling thread, without
+ * discovery, token signing, encoding or a network hop.
+ */
+public class LoopbackAuditTransport implements AuditTransport {
+    
+    private final AuditRequestHandler handler;
+    
+    public LoopbackAuditTransport(AuditRequestHandler handler) {
+        this.handler = Preconditions.checkNotNull(handler, "handler cannot be null");
+    }
+    
+    @Override
+    public void send(AuditClient.Request request, String requestPath) {
+        handler.handle(request.getParamMap(), requestPath, request.getUserDetails());
+    }
+    
+    @Override
+    public String getName() {
+        return "loopback(" + handler.getClass().getSimpleName() + ")";
+    }
+}
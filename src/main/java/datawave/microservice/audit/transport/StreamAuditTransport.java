@@ -0,0 +1,152 @@
+package datawave.microservice.audit.transport;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.sink.AuditRecordEncoder;
+
+/**
+ * {@link AuditTransport} which publishes audit requests to a Spring Cloud Stream binding, so that bursts are absorbed by the broker rather than the audit
+ * service's HTTP thread pool.
+ * <p>
+ * The payload is the same form-encoded audit parameters that would be posted to the audit service. The primary user DN, audit type and request path are
+ * carried in the {@value #USER_HEADER}, {@value #AUDIT_TYPE_HEADER} and {@value #REQUEST_PATH_HEADER} headers. To keep each user's audits in order across
+ * a partitioned destination, configure the binding with {@code producer.partition-key-expression: headers['audit-user']}.
+ * <p>
+ * Without publisher confirms, {@link #send} returns once the binding has accepted the message, which for a synchronous producer means the broker has
+ * acknowledged it. With confirms enabled, this transport must be subscribed to the binder's confirm channel and to the binding's error channel.
+ * {@link #send} then waits for the confirm carrying its {@value #CORRELATION_HEADER} header, and fails if the message is rejected or no confirm arrives in
+ * time.
+ * <p>
+ * Messages carry the user DN in a header but, unlike HTTP submissions, no signed credential: the audit service trusts every message on the destination.
+ * The transport must therefore only be used with a broker which authenticates publishers and restricts who may publish to the destination, which
+ * {@code audit-client.stream.broker-authenticated} confirms.
+ */
+public class StreamAuditTransport implements AuditTransport, MessageHandler {
+    
+    public static final String USER_HEADER = "audit-user";
+    public static final String AUDIT_TYPE_HEADER = "audit-type";
+    public static final String REQUEST_PATH_HEADER = "audit-request-path";
+    public static final String CORRELATION_HEADER = "audit-correlation-id";
+    
+    static final MimeType FORM_CONTENT_TYPE = MimeType.valueOf("application/x-www-form-urlencoded");
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final StreamBridge streamBridge;
+    private final String bindingName;
+    private final Duration confirmTimeout;
+    private final ConcurrentMap<String,CompletableFuture<Void>> pendingConfirms = new ConcurrentHashMap<>();
+    
+    /**
+     * @param streamBridge
+     *            the bridge to publish through
+     * @param bindingName
+     *            the output binding, or destination, to publish to
+     * @param confirmTimeout
+     *            how long to wait for a publisher confirm, or null to not wait for confirms
+     */
+    public StreamAuditTransport(StreamBridge streamBridge, String bindingName, Duration confirmTimeout) {
+        this.streamBridge = Preconditions.checkNotNull(streamBridge, "streamBridge cannot be null");
+        this.bindingName = Preconditions.checkNotNull(bindingName, "bindingName cannot be null");
+        this.confirmTimeout = confirmTimeout;
+    }
+    
+    @Override
+    public void send(AuditClient.Request request, String requestPath) {
+        String correlationId = UUID.randomUUID().toString();
+        //@formatter:off
+        Message<byte[]> message = MessageBuilder.withPayload(AuditRecordEncoder.encode(request.getParamMap()))
+                .setHeader(MessageHeaders.CONTENT_TYPE, FORM_CONTENT_TYPE)
+                .setHeader(USER_HEADER, primaryUserDn(request))
+                .setHeader(AUDIT_TYPE_HEADER, null == request.getAuditType() ? null : request.getAuditType().name())
+                .setHeader(REQUEST_PATH_HEADER, requestPath)
+                .setHeader(CORRELATION_HEADER, correlationId)
+                .build();
+        //@formatter:on
+        
+        CompletableFuture<Void> confirm = null;
+        if (null != confirmTimeout) {
+            confirm = new CompletableFuture<>();
+            pendingConfirms.put(correlationId, confirm);
+        }
+        try {
+            if (!streamBridge.send(bindingName, message)) {
+                throw new IllegalStateException("Audit message was not accepted by binding " + bindingName);
+            }
+            if (null != confirm) {
+                confirm.get(confirmTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for audit message confirm", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Audit message was rejected by binding " + bindingName, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("No confirm for audit message from binding " + bindingName + " within " + confirmTimeout, e);
+        } finally {
+            if (null != confirm) {
+                pendingConfirms.remove(correlationId);
+            }
+        }
+    }
+    
+    /**
+     * Completes the pending {@link #send} for a publisher confirm, or fails it for an {@link ErrorMessage} reporting a failed publish
+     */
+    @Override
+    public void handleMessage(Message<?> message) {
+        if (message instanceof ErrorMessage) {
+            Throwable error = ((ErrorMessage) message).getPayload();
+            Message<?> failed = error instanceof MessagingException ? ((MessagingException) error).getFailedMessage() : null;
+            CompletableFuture<Void> confirm = null == failed ? null : pendingConfirm(failed);
+            if (null != confirm) {
+                confirm.completeExceptionally(error);
+            }
+        } else {
+            CompletableFuture<Void> confirm = pendingConfirm(message);
+            if (null != confirm) {
+                confirm.complete(null);
+            } else {
+                log.trace("Ignoring confirm for unknown or expired audit message {}", message.getHeaders().getId());
+            }
+        }
+    }
+    
+    private CompletableFuture<Void> pendingConfirm(Message<?> message) {
+        String correlationId = message.getHeaders().get(CORRELATION_HEADER, String.class);
+        return null == correlationId ? null : pendingConfirms.get(correlationId);
+    }
+    
+    private static String primaryUserDn(AuditClient.Request request) {
+        if (null == request.getUserDetails() || null == request.getUserDetails().getPrimaryUser()
+                        || null == request.getUserDetails().getPrimaryUser().getDn()) {
+            return null;
+        }
+        return request.getUserDetails().getPrimaryUser().getDn().toString();
+    }
+    
+    @Override
+    public String getName() {
+        return "stream(" + bindingName + ")";
+    }
+}
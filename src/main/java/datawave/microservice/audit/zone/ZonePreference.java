@@ -0,0 +1,128 @@
+package datawave.microservice.audit.zone;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.google.common.base.Preconditions;
+
+import datawave.microservice.audit.config.AuditZoneProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Restricts audit service instance selection to instances in the local zone, as given by instance metadata
+ * <p>
+ * Traffic spills over to all zones when fewer than {@code minLocalInstances} local instances are available, or when every local instance is at its
+ * {@code maxInFlightPerInstance} limit, in which case saturated instances are only selected once every other instance is saturated too. Instances without
+ * zone metadata are treated as remote.
+ */
+public class ZonePreference {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ZonePreference.class);
+    
+    public static final String SELECTION_COUNTER = "audit.client.zone.selections";
+    
+    private final String localZone;
+    private final AuditZoneProperties properties;
+    private final ConcurrentMap<URI,AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Counter localSelections;
+    private final Counter spilloverSelections;
+    
+    public ZonePreference(String localZone, AuditZoneProperties properties, MeterRegistry meterRegistry) {
+        Preconditions.checkArgument(null != localZone && !localZone.isEmpty(), "localZone must not be null/empty");
+        Preconditions.checkNotNull(properties, "properties cannot be null");
+        this.localZone = localZone;
+        this.properties = properties;
+        if (null != meterRegistry) {
+            this.localSelections = Counter.builder(SELECTION_COUNTER).tag("locality", "local").register(meterRegistry);
+            this.spilloverSelections = Counter.builder(SELECTION_COUNTER).tag("locality", "spillover").register(meterRegistry);
+        } else {
+            this.localSelections = null;
+            this.spilloverSelections = null;
+        }
+    }
+    
+    /**
+     * @param instances
+     *            available instances
+     * @return the local instances, or all of the given instances with saturated instances last if traffic should spill over to other zones
+     */
+    public List<ServiceInstance> prefer(List<ServiceInstance> instances) {
+        List<ServiceInstance> local = new ArrayList<>(instances.size());
+        boolean allSaturated = true;
+        for (ServiceInstance instance : instances) {
+            if (isLocal(instance)) {
+                local.add(instance);
+                allSaturated &= isSaturated(instance);
+            }
+        }
+        if (local.size() < Math.max(1, properties.getMinLocalInstances()) || allSaturated) {
+            logger.debug("Spilling over to other zones, {} local audit service instances available", local.size());
+            increment(spilloverSelections);
+            return spillover(instances);
+        }
+        increment(localSelections);
+        if (properties.getMaxInFlightPerInstance() > 0) {
+            local.removeIf(this::isSaturated);
+        }
+        return local;
+    }
+    
+    /**
+     * Orders the instances for spillover, keeping discovery order but moving saturated instances behind all others so that they are only selected when
+     * every instance is saturated
+     */
+    private List<ServiceInstance> spillover(List<ServiceInstance> instances) {
+        if (properties.getMaxInFlightPerInstance() <= 0) {
+            return instances;
+        }
+        List<ServiceInstance> ordered = new ArrayList<>(instances.size());
+        List<ServiceInstance> saturated = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (isSaturated(instance)) {
+                saturated.add(instance);
+            } else {
+                ordered.add(instance);
+            }
+        }
+        ordered.addAll(saturated);
+        return ordered;
+    }
+    
+    public boolean isLocal(ServiceInstance instance) {
+        return null != instance.getMetadata() && localZone.equalsIgnoreCase(instance.getMetadata().get(properties.getMetadataKey()));
+    }
+    
+    public void requestStarted(ServiceInstance instance) {
+        inFlight.computeIfAbsent(instance.getUri(), uri -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    public void requestFinished(ServiceInstance instance) {
+        AtomicInteger count = inFlight.get(instance.getUri());
+        if (null != count) {
+            count.decrementAndGet();
+        }
+    }
+    
+    private boolean isSaturated(ServiceInstance instance) {
+        if (properties.getMaxInFlightPerInstance() <= 0) {
+            return false;
+        }
+        AtomicInteger count = inFlight.get(instance.getUri());
+        return null != count && count.get() >= properties.getMaxInFlightPerInstance();
+    }
+    
+    private static void increment(Counter counter) {
+        if (null != counter) {
+            counter.increment();
+        }
+    }
+}
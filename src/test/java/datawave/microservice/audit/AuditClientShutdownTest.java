@@ -0,0 +1,357 @@
+package datawave.microservice.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+
+import datawave.marking.ColumnVisibilitySecurityMarking;
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.config.AuditShutdownProperties;
+import datawave.microservice.audit.lane.AuditLanes;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Tests that {@link AuditClientShutdown} drains the {@link AuditClient} and that undelivered requests survive a restart via the {@link AuditSpool}
+ */
+public class AuditClientShutdownTest {
+    
+    @TempDir
+    Path spoolDirectory;
+    
+    private AuditLanes lanes;
+    private AuditClient auditClient;
+    private AuditShutdownProperties properties;
+    private DatawaveUserDetails userDetails;
+    
+    @BeforeEach
+    public void setup() {
+        AuditLaneProperties laneProperties = new AuditLaneProperties();
+        AuditLaneProperties.Lane passive = laneProperties.getTypes().get(AuditType.PASSIVE);
+        passive.setConcurrency(1);
+        passive.setLinger(Duration.ZERO);
+        lanes = new AuditLanes(laneProperties, null);
+        
+        auditClient = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties()));
+        auditClient.setValidationSupplier(AuditParameters::new);
+        auditClient.setAuditLanes(lanes);
+        
+        properties = new AuditShutdownProperties();
+        properties.setDrainTimeout(Duration.ofMillis(100));
+        userDetails = TestUtils.userDetails(Collections.singleton("AuthorizedUser"), Arrays.asList("A", "B"));
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        lanes.close();
+    }
+    
+    @Test
+    public void testUndeliveredAuditsSpooledAndResubmitted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            // Occupy the passive worker so that the submitted requests stay queued
+            lanes.submit(AuditType.PASSIVE, () -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            auditClient.submit(request("FIELD:VALUE1"), "/v1/audit");
+            auditClient.submit(request("FIELD:VALUE2"), "/v1/other");
+            
+            new AuditClientShutdown(auditClient, new AuditSpool(spoolDirectory), properties).stop();
+            assertEquals(1, spoolFiles().size());
+            assertThrows(IllegalStateException.class, () -> auditClient.submit(request("FIELD:VALUE3")));
+        } finally {
+            release.countDown();
+        }
+        
+        List<AuditClient.PendingAudit> resubmitted = new ArrayList<>();
+        AuditClient restarted = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                resubmitted.add(new PendingAudit(request, requestPath, null));
+            }
+        };
+        assertEquals(2, new AuditSpool(spoolDirectory).resubmit(restarted));
+        assertTrue(spoolFiles().isEmpty());
+        
+        assertEquals(2, resubmitted.size());
+        AuditClient.PendingAudit first = resubmitted.get(0);
+        assertEquals("/v1/audit", first.getRequestPath());
+        assertEquals(request("FIELD:VALUE1").getParamMap(), first.getRequest().getParamMap());
+        assertEquals(AuditType.PASSIVE, first.getRequest().getAuditType());
+        assertEquals(userDetails.getPrimaryUser().getDn().toString(), first.getRequest().getUserDetails().getPrimaryUser().getDn().toString());
+        assertEquals("/v1/other", resubmitted.get(1).getRequestPath());
+    }
+    
+    @Test
+    public void testFailedResubmissionsSpooledAgain() throws Exception {
+        AuditSpool spool = new AuditSpool(spoolDirectory);
+        spool.write(Collections.singletonList(new AuditClient.PendingAudit(request("FIELD:VALUE"), "/v1/audit", null)));
+        
+        AuditClient unavailable = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                throw new IllegalStateException("audit service unavailable");
+            }
+        };
+        assertEquals(0, spool.resubmit(unavailable));
+        assertEquals(1, spoolFiles().size());
+    }
+    
+    @Test
+    public void testRejectedResubmissionsSetAside() throws Exception {
+        AuditSpool spool = new AuditSpool(spoolDirectory);
+        spool.write(Arrays.asList(new AuditClient.PendingAudit(request("FIELD:VALUE1"), "/v1/audit", null),
+                        new AuditClient.PendingAudit(request("FIELD:VALUE2"), "/v1/audit", null)));
+        
+        AuditClient rejecting = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                if (request.getParamMap().getFirst(AuditParameters.QUERY_STRING).endsWith("1")) {
+                    throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+                }
+                throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS);
+            }
+        };
+        assertEquals(0, spool.resubmit(rejecting));
+        assertEquals(1, spoolFiles().size());
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(AuditSpool.FAILED_SUFFIX)).count());
+        }
+    }
+    
+    @Test
+    public void testDeadlineSurvivesSpool() throws Exception {
+        //@formatter:off
+        AuditClient.Request request = new AuditClient.Request.Builder()
+                .withQueryExpression("FIELD:VALUE")
+                .withDatawaveUserDetails(userDetails)
+                .withMarking(marking())
+                .withAuditType(AuditType.PASSIVE)
+                .withQueryLogic("QueryLogic")
+                .withTimeout(Duration.ofMinutes(5))
+                .build();
+        //@formatter:on
+        AuditSpool spool = new AuditSpool(spoolDirectory);
+        spool.write(Collections.singletonList(new AuditClient.PendingAudit(request, "/v1/audit", null)));
+        
+        List<AuditClient.Request> resubmitted = new ArrayList<>();
+        AuditClient restarted = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                resubmitted.add(request);
+            }
+        };
+        assertEquals(1, spool.resubmit(restarted));
+        assertNotNull(resubmitted.get(0).getDeadline());
+        assertTrue(resubmitted.get(0).getDeadline().isAfter(Instant.now().plus(Duration.ofMinutes(4))));
+    }
+    
+    @Test
+    public void testRestartAcceptsRequestsAgain() throws Exception {
+        AuditClientShutdown shutdown = new AuditClientShutdown(auditClient, null, properties);
+        shutdown.start();
+        shutdown.stop();
+        assertThrows(IllegalStateException.class, () -> auditClient.submit(request("FIELD:VALUE1")));
+        
+        shutdown.start();
+        auditClient.submit(request("FIELD:VALUE2"));
+        CountDownLatch delivered = new CountDownLatch(1);
+        lanes.submit(AuditType.PASSIVE, delivered::countDown);
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testConcurrentResubmissionsDeliverOnce() throws Exception {
+        AuditSpool spool = new AuditSpool(spoolDirectory);
+        for (int i = 0; i < 8; i++) {
+            spool.write(Collections.singletonList(new AuditClient.PendingAudit(request("FIELD:VALUE" + i), "/v1/audit", null)));
+        }
+        
+        List<String> resubmitted = Collections.synchronizedList(new ArrayList<>());
+        AuditClient restarted = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                resubmitted.add(request.getParamMap().getFirst(AuditParameters.QUERY_STRING));
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Callable<Integer> resubmit = () -> {
+                barrier.await(10, TimeUnit.SECONDS);
+                return spool.resubmit(restarted);
+            };
+            Future<Integer> first = executor.submit(resubmit);
+            Future<Integer> second = executor.submit(resubmit);
+            assertEquals(8, first.get(10, TimeUnit.SECONDS) + second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(8, resubmitted.size());
+        assertEquals(8, new HashSet<>(resubmitted).size());
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+    
+    @Test
+    public void testInterruptedClaimReturnedToSpool() throws Exception {
+        Path file = new AuditSpool(spoolDirectory).write(Collections.singletonList(new AuditClient.PendingAudit(request("FIELD:VALUE"), "/v1/audit", null)));
+        Files.move(file, file.resolveSibling(file.getFileName() + AuditSpool.CLAIMED_SUFFIX));
+        
+        AuditSpool reopened = new AuditSpool(spoolDirectory);
+        assertEquals(Collections.singletonList(file), spoolFiles());
+        List<AuditClient.Request> resubmitted = new ArrayList<>();
+        AuditClient restarted = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                resubmitted.add(request);
+            }
+        };
+        assertEquals(1, reopened.resubmit(restarted));
+    }
+    
+    @Test
+    public void testSingleRecoveryThreadAcrossRestarts() throws Exception {
+        AuditSpool spool = new AuditSpool(spoolDirectory);
+        spool.write(Collections.singletonList(new AuditClient.PendingAudit(request("FIELD:VALUE1"), "/v1/audit", null)));
+        
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch resending = new CountDownLatch(1);
+        CountDownLatch allResent = new CountDownLatch(2);
+        List<String> resubmitted = Collections.synchronizedList(new ArrayList<>());
+        AuditClient restarted = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties())) {
+            @Override
+            void resend(Request request, String requestPath) {
+                resending.countDown();
+                await(release);
+                resubmitted.add(request.getParamMap().getFirst(AuditParameters.QUERY_STRING));
+                allResent.countDown();
+            }
+        };
+        AuditClientShutdown shutdown = new AuditClientShutdown(restarted, spool, properties);
+        try {
+            shutdown.start();
+            assertTrue(resending.await(10, TimeUnit.SECONDS));
+            shutdown.stop();
+            spool.write(Collections.singletonList(new AuditClient.PendingAudit(request("FIELD:VALUE2"), "/v1/audit", null)));
+            
+            // The first recovery pass is still running, so the restart leaves the second pass to it rather than starting another thread
+            shutdown.start();
+            assertEquals(1, Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals("auditSpool-recovery")).count());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(allResent.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("FIELD:VALUE1", "FIELD:VALUE2"), resubmitted);
+    }
+    
+    @Test
+    public void testUnreadableSpoolFileSetAside() throws Exception {
+        Path corrupt = spoolDirectory.resolve(AuditSpool.FILE_PREFIX + "corrupt" + AuditSpool.FILE_SUFFIX);
+        Files.write(corrupt, "not a spool file".getBytes(StandardCharsets.UTF_8));
+        
+        assertEquals(0, new AuditSpool(spoolDirectory).resubmit(auditClient));
+        assertFalse(Files.exists(corrupt));
+        assertTrue(Files.exists(corrupt.resolveSibling(corrupt.getFileName() + AuditSpool.FAILED_SUFFIX)));
+    }
+    
+    @Test
+    public void testUnexpectedClassesNotDeserialized() throws Exception {
+        // A complete record, but with its parameter values held in a list type that a spooled record never contains
+        LinkedMultiValueMap<String,String> paramMap = new LinkedMultiValueMap<>();
+        paramMap.put(AuditParameters.QUERY_STRING, new Vector<>(Collections.singletonList("FIELD:VALUE")));
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(record)) {
+            out.writeUTF("/v1/audit");
+            out.writeObject(AuditType.PASSIVE);
+            out.writeObject(paramMap);
+            out.writeLong(-1L);
+            out.writeObject(userDetails);
+        }
+        Path file = spoolDirectory.resolve(AuditSpool.FILE_PREFIX + "unexpected" + AuditSpool.FILE_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(AuditSpool.MAGIC);
+            out.writeInt(1);
+            out.writeInt(record.size());
+            out.write(record.toByteArray());
+        }
+        
+        assertEquals(0, new AuditSpool(spoolDirectory).resubmit(auditClient));
+        assertTrue(Files.exists(file.resolveSibling(file.getFileName() + AuditSpool.FAILED_SUFFIX)));
+    }
+    
+    private AuditClient.Request request(String query) {
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withQueryExpression(query)
+                .withDatawaveUserDetails(userDetails)
+                .withMarking(marking())
+                .withAuditType(AuditType.PASSIVE)
+                .withQueryLogic("QueryLogic")
+                .build();
+        //@formatter:on
+    }
+    
+    private static ColumnVisibilitySecurityMarking marking() {
+        ColumnVisibilitySecurityMarking marking = new ColumnVisibilitySecurityMarking();
+        marking.setColumnVisibility("PUBLIC");
+        return marking;
+    }
+    
+    private List<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(AuditSpool.FILE_SUFFIX)).collect(Collectors.toList());
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package datawave.microservice.audit;
 
 import static datawave.microservice.audit.TestUtils.assertHttpException;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,26 +40,55 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+
 import datawave.marking.ColumnVisibilitySecurityMarking;
 import datawave.marking.SecurityMarking;
+import datawave.microservice.audit.config.AuditRetryProperties;
 import datawave.microservice.audit.config.AuditServiceConfiguration;
+import datawave.microservice.audit.config.AuditWarmupProperties;
+import datawave.microservice.audit.payload.AuditPayloadBufferPool;
+import datawave.microservice.audit.retry.AuditSubmissionRetrier;
+import datawave.microservice.audit.timeout.AuditTimeoutException;
+import datawave.microservice.audit.timeout.CallTimeLimiter;
+import datawave.microservice.audit.tracing.AuditSpan;
+import datawave.microservice.audit.tracing.AuditTracer;
+import datawave.microservice.audit.tracing.OpenTelemetryAuditTracer;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
 
 /**
  * Tests {@link AuditClient} and {@link AuditClient.Request} functionality and ensures that audit {@code audit.enabled=true})
@@ -60,6 +106,9 @@ public class AuditClientTest {
     @Autowired
     private AuditClient auditClient;
     
+    @Autowired
+    private AuditServiceProvider serviceProvider;
+    
     @Autowired
     private SecurityMarking auditTestSecurityMarking;
     
@@ -188,6 +237,264 @@ public class AuditClientTest {
         assertThrows(IllegalArgumentException.class, () -> AuditClient.validate(auditRequest, new AuditParameters()));
     }
     
+    @Test
+    public void testDeadlineSentAsRemainingBudget() {
+        //@formatter:off
+        final AuditClient.Request auditRequest = new AuditClient.Request.Builder()
+                .withParams(testParams())
+                .withQueryExpression("FIELD:VALUE1")
+                .withMarking(auditTestSecurityMarking)
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withAuditType(Auditor.AuditType.LOCALONLY)
+                .withTimeout(Duration.ofSeconds(30))
+                .build();
+
+        mockServer.expect(requestTo(EXPECTED_AUDIT_URI))
+                .andExpect(request -> {
+                    long remaining = Long.parseLong(request.getHeaders().getFirst(CallTimeLimiter.REMAINING_BUDGET_HEADER));
+                    assertTrue(remaining > 0 && remaining <= 30000, "Unexpected remaining budget " + remaining);
+                })
+                .andRespond(withSuccess());
+        //@formatter:on
+        
+        auditClient.submit(auditRequest);
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testExpiredDeadlineNotSent() {
+        //@formatter:off
+        final AuditClient.Request auditRequest = new AuditClient.Request.Builder()
+                .withParams(testParams())
+                .withQueryExpression("FIELD:VALUE1")
+                .withMarking(auditTestSecurityMarking)
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withAuditType(Auditor.AuditType.LOCALONLY)
+                .withDeadline(Instant.now().minusSeconds(1))
+                .build();
+        //@formatter:on
+        
+        assertThrows(AuditTimeoutException.class, () -> auditClient.submit(auditRequest));
+        mockServer.verify();
+    }
+    
+    private static MultiValueMap<String,String> testParams() {
+        MultiValueMap<String,String> parameters = new LinkedMultiValueMap<>();
+        parameters.add(TestAuditParameters.TEST_PARAM_1, "tp1Value");
+        parameters.add(TestAuditParameters.TEST_PARAM_2, "tp2Value");
+        return parameters;
+    }
+    
+    @Test
+    @DirtiesContext
+    public void testSubmissionRetriedOnServiceUnavailable() {
+        AuditRetryProperties retryProperties = new AuditRetryProperties();
+        retryProperties.setInitialInterval(1);
+        auditClient.setSubmissionRetrier(new AuditSubmissionRetrier(retryProperties));
+        
+        mockServer.expect(requestTo(EXPECTED_AUDIT_URI)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        mockServer.expect(requestTo(EXPECTED_AUDIT_URI)).andRespond(withSuccess());
+        
+        auditClient.submit(validRequest());
+        mockServer.verify();
+    }
+    
+    @Test
+    @DirtiesContext
+    public void testSubmissionNotRetriedAfterReadTimeout() {
+        AuditRetryProperties retryProperties = new AuditRetryProperties();
+        retryProperties.setInitialInterval(1);
+        auditClient.setSubmissionRetrier(new AuditSubmissionRetrier(retryProperties));
+        
+        // The audit service may have received the request, and does not discard duplicates by default
+        mockServer.expect(ExpectedCount.once(), requestTo(EXPECTED_AUDIT_URI)).andRespond(request -> {
+            throw new SocketTimeoutException("Read timed out");
+        });
+        
+        assertThrows(ResourceAccessException.class, () -> auditClient.submit(validRequest()));
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testSubmissionSpans() {
+        List<String> spans = new ArrayList<>();
+        Map<String,String> attributes = new HashMap<>();
+        auditClient.setTracer(new AuditTracer() {
+            @Override
+            public AuditSpan start(String name) {
+                spans.add(name);
+                return new AuditSpan() {
+                    @Override
+                    public AuditSpan setAttribute(String key, String value) {
+                        attributes.put(key, value);
+                        return this;
+                    }
+                    
+                    @Override
+                    public void recordError(Throwable error) {}
+                    
+                    @Override
+                    public void close() {}
+                };
+            }
+            
+            @Override
+            public void inject(MultiValueMap<String,String> headers) {
+                headers.set("x-test-trace", "test");
+            }
+            
+            @Override
+            public Runnable wrap(Runnable task) {
+                return task;
+            }
+        });
+        try {
+            mockServer.expect(requestTo(EXPECTED_AUDIT_URI)).andExpect(header("x-test-trace", "test")).andRespond(withSuccess());
+            auditClient.submit(validRequest());
+            mockServer.verify();
+        } finally {
+            auditClient.setTracer(null);
+        }
+        
+        //@formatter:off
+        assertEquals(Arrays.asList(
+                AuditTracer.SUBMIT_SPAN,
+                AuditTracer.VALIDATION_SPAN,
+                AuditTracer.DISCOVERY_SPAN,
+                AuditTracer.TOKEN_SPAN,
+                AuditTracer.HTTP_SPAN), spans);
+        //@formatter:on
+        assertEquals("ACTIVE", attributes.get(AuditTracer.AUDIT_TYPE_ATTRIBUTE));
+        assertEquals("http://localhost:11111", attributes.get(AuditTracer.INSTANCE_ATTRIBUTE));
+    }
+    
+    @Test
+    public void testTraceContextPropagated() {
+        String traceId = "0af7651916cd43dd8448eb211c80319c";
+        String spanId = "b7ad6b7169203331";
+        OpenTelemetry openTelemetry = OpenTelemetry.propagating(ContextPropagators.create(W3CTraceContextPropagator.getInstance()));
+        auditClient.setTracer(new OpenTelemetryAuditTracer(openTelemetry));
+        SpanContext parent = SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault());
+        try (Scope scope = Span.wrap(parent).makeCurrent()) {
+            //@formatter:off
+            mockServer.expect(requestTo(EXPECTED_AUDIT_URI))
+                    .andExpect(header("traceparent", "00-" + traceId + "-" + spanId + "-01"))
+                    .andRespond(withSuccess());
+            //@formatter:on
+            auditClient.submit(validRequest());
+            mockServer.verify();
+        } finally {
+            auditClient.setTracer(null);
+        }
+    }
+    
+    @Test
+    public void testTimedOutBodyWriteKeepsPayloadBuffer() throws Exception {
+        // Without request interceptors, which would buffer the body, so that the payload is written straight from its pooled buffer
+        AuditClient unbufferedClient = new AuditClient(new RestTemplateBuilder(), serviceProvider);
+        unbufferedClient.setValidationSupplier(AuditParameters::new);
+        AuditPayloadBufferPool payloadBuffers = (AuditPayloadBufferPool) new DirectFieldAccessor(unbufferedClient).getPropertyValue("payloadBuffers");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<byte[]> inFlight = new AtomicReference<>();
+        AtomicReference<byte[]> atStart = new AtomicReference<>();
+        AtomicReference<byte[]> atEnd = new AtomicReference<>();
+        
+        // A body write which blocks and ignores interrupts, like a socket write to a peer which has stopped reading
+        unbufferedClient.setRequestFactory((uri, httpMethod) -> new MockClientHttpRequest(httpMethod, uri) {
+            {
+                setResponse(new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+            }
+            
+            @Override
+            public OutputStream getBody() {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        write(new byte[] {(byte) b}, 0, 1);
+                    }
+                    
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        inFlight.set(b);
+                        atStart.set(Arrays.copyOfRange(b, off, off + len));
+                        writing.countDown();
+                        Uninterruptibles.awaitUninterruptibly(release, 10, TimeUnit.SECONDS);
+                        atEnd.set(Arrays.copyOfRange(b, off, off + len));
+                    }
+                };
+            }
+        });
+        
+        //@formatter:off
+        AuditClient.Request auditRequest = new AuditClient.Request.Builder()
+                .withQueryExpression("FIELD:VALUE")
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withMarking(auditTestSecurityMarking)
+                .withAuditType(Auditor.AuditType.ACTIVE)
+                .withQueryLogic("QueryLogic")
+                .withTimeout(Duration.ofMillis(200))
+                .build();
+        //@formatter:on
+        try {
+            assertThrows(AuditTimeoutException.class, () -> unbufferedClient.submit(auditRequest));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            
+            // Payloads encoded while the abandoned write is still in progress must not get its buffer
+            List<ByteBuffer> acquired = new ArrayList<>();
+            while (payloadBuffers.getPooledCount() > 0) {
+                acquired.add(payloadBuffers.acquire(1));
+            }
+            acquired.add(payloadBuffers.acquire(1));
+            for (ByteBuffer buffer : acquired) {
+                assertNotSame(inFlight.get(), buffer.array());
+                Arrays.fill(buffer.array(), (byte) 'x');
+                payloadBuffers.release(buffer);
+            }
+        } finally {
+            release.countDown();
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (null == atEnd.get() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertArrayEquals(atStart.get(), atEnd.get());
+    }
+    
+    private AuditClient.Request validRequest() {
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withQueryExpression("FIELD:VALUE")
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withMarking(auditTestSecurityMarking)
+                .withAuditType(Auditor.AuditType.ACTIVE)
+                .withQueryLogic("QueryLogic")
+                .build();
+        //@formatter:on
+    }
+    
+    @Test
+    public void testWarmupOpensConnections() {
+        AuditWarmupProperties warmupProperties = new AuditWarmupProperties();
+        warmupProperties.setConnections(3);
+        warmupProperties.setIterations(10);
+        warmupProperties.setFailFast(true);
+        
+        //@formatter:off
+        mockServer.expect(ExpectedCount.times(3), requestTo(EXPECTED_AUDIT_URI))
+                .andExpect(method(HttpMethod.OPTIONS))
+                .andExpect(headerDoesNotExist(HttpHeaders.AUTHORIZATION))
+                .andRespond(withStatus(HttpStatus.METHOD_NOT_ALLOWED));
+        //@formatter:on
+        
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new AuditClientWarmup(auditClient, serviceProvider, warmupProperties, AuditParameters::new, meterRegistry).warmUp();
+        mockServer.verify();
+        
+        assertEquals(1L, meterRegistry.get(AuditClientWarmup.WARMUP_METRIC).timer().count());
+    }
+    
     /**
      * Mocks the AuditClient jwtRestTemplate field within the internal AuditClient
      */
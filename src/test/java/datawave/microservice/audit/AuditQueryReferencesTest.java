@@ -0,0 +1,188 @@
+package datawave.microservice.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import datawave.marking.ColumnVisibilitySecurityMarking;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Tests that {@link AuditClient} sends large query strings by reference once delivered, and falls back to the full form when the reference is rejected
+ */
+public class AuditQueryReferencesTest {
+    
+    private static final String LARGE_QUERY = "FIELD:" + StringUtils.repeat('x', 1000);
+    
+    private AuditQueryReferences queryReferences;
+    private AuditClient auditClient;
+    private MockRestServiceServer mockServer;
+    private DatawaveUserDetails userDetails;
+    
+    @BeforeEach
+    public void setup() {
+        queryReferences = new AuditQueryReferences(1000, 100, Duration.ofMinutes(1), Duration.ofMinutes(1), null);
+        auditClient = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(new AuditServiceProperties()));
+        auditClient.setValidationSupplier(AuditParameters::new);
+        auditClient.setQueryReferences(queryReferences);
+        mockServer = MockRestServiceServer.createServer((RestTemplate) new DirectFieldAccessor(auditClient).getPropertyValue("jwtRestTemplate"));
+        userDetails = TestUtils.userDetails(Collections.singleton("AuthorizedUser"), Arrays.asList("A", "B"));
+    }
+    
+    @Test
+    public void testSmallQuerySentAsIs() {
+        AuditClient.Request request = request("FIELD:VALUE");
+        assertNull(queryReferences.digest(request));
+        
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(request.paramMap)).andRespond(withSuccess());
+        auditClient.submit(request);
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testLargeQuerySentByReferenceOnceDelivered() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        assertNotNull(digest);
+        assertEquals(digest, queryReferences.digest(request(new String(LARGE_QUERY))));
+        
+        //@formatter:off
+        mockServer.expect(method(HttpMethod.POST))
+                .andExpect(content().formData(queryReferences.fullForm(request, digest)))
+                .andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST))
+                .andExpect(content().formData(queryReferences.referenceForm(request, digest)))
+                .andRespond(withSuccess());
+        //@formatter:on
+        
+        auditClient.submit(request);
+        auditClient.submit(request(LARGE_QUERY));
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testUnknownReferenceResentInFull() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        MultiValueMap<String,String> fullForm = queryReferences.fullForm(request, digest);
+        MultiValueMap<String,String> referenceForm = queryReferences.referenceForm(request, digest);
+        
+        // The instance lost the query string, so it is sent in full again, after which references are used again
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm)).andRespond(withStatus(HttpStatus.PRECONDITION_FAILED));
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm)).andRespond(withSuccess());
+        
+        for (int i = 0; i < 3; i++) {
+            auditClient.submit(request);
+        }
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testUnsupportedReferenceFallsBackToFullForm() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        MultiValueMap<String,String> fullForm = queryReferences.fullForm(request, digest);
+        
+        // An audit service without support for references rejects the request for missing its query string
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(queryReferences.referenceForm(request, digest)))
+                        .andRespond(withStatus(HttpStatus.BAD_REQUEST).body("Required parameter query not found"));
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        
+        for (int i = 0; i < 3; i++) {
+            auditClient.submit(request);
+        }
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testUnknownDigestResentInFull() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        MultiValueMap<String,String> fullForm = queryReferences.fullForm(request, digest);
+        MultiValueMap<String,String> referenceForm = queryReferences.referenceForm(request, digest);
+        
+        // The instance supports references, so they are used again once the query string has been resent
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm))
+                        .andRespond(withStatus(HttpStatus.BAD_REQUEST).body("Unknown " + AuditQueryReferences.QUERY_DIGEST_PARAM + " " + digest));
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(fullForm)).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm)).andRespond(withSuccess());
+        
+        for (int i = 0; i < 3; i++) {
+            auditClient.submit(request);
+        }
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testValidationFailuresNotResent() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        MultiValueMap<String,String> referenceForm = queryReferences.referenceForm(request, digest);
+        
+        // Rejections which are not about the reference neither resend the request nor stop references being used
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(queryReferences.fullForm(request, digest))).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm))
+                        .andRespond(withStatus(HttpStatus.BAD_REQUEST).body("Required parameter queryLogic not found"));
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm)).andRespond(withStatus(HttpStatus.UNPROCESSABLE_ENTITY));
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(referenceForm)).andRespond(withSuccess());
+        
+        auditClient.submit(request);
+        assertThrows(HttpClientErrorException.BadRequest.class, () -> auditClient.submit(request));
+        assertThrows(HttpClientErrorException.UnprocessableEntity.class, () -> auditClient.submit(request));
+        auditClient.submit(request);
+        mockServer.verify();
+    }
+    
+    @Test
+    public void testOtherClientErrorsNotRetried() {
+        AuditClient.Request request = request(LARGE_QUERY);
+        String digest = queryReferences.digest(request);
+        
+        mockServer.expect(method(HttpMethod.POST)).andExpect(content().formData(queryReferences.fullForm(request, digest))).andRespond(withSuccess());
+        mockServer.expect(method(HttpMethod.POST)).andRespond(withStatus(HttpStatus.FORBIDDEN));
+        
+        auditClient.submit(request);
+        assertThrows(HttpClientErrorException.Forbidden.class, () -> auditClient.submit(request));
+        mockServer.verify();
+    }
+    
+    private AuditClient.Request request(String query) {
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withQueryExpression(query)
+                .withDatawaveUserDetails(userDetails)
+                .withMarking(new ColumnVisibilitySecurityMarking())
+                .withAuditType(AuditType.ACTIVE)
+                .build();
+        //@formatter:on
+    }
+}
@@ -0,0 +1,94 @@
+package datawave.microservice.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests memoization and bypass behavior of {@link AuditValidationCache}
+ */
+public class AuditValidationCacheTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AuditValidationCache cache = new AuditValidationCache(100, Duration.ofMinutes(1), meterRegistry);
+    
+    @Test
+    public void testIdenticalParametersValidatedOnce() {
+        AuditClient.Request request = request("FIELD:VALUE");
+        for (int i = 0; i < 5; i++) {
+            cache.validate(request, new AuditParameters());
+        }
+        cache.validate(request("FIELD:OTHER"), new AuditParameters());
+        
+        assertEquals(4.0, meterRegistry.get("cache.gets").tag("cache", AuditValidationCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", AuditValidationCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+    
+    @Test
+    public void testInvalidParametersNotCached() {
+        AuditClient.Request invalid = new AuditClient.Request.Builder().withAuditType(Auditor.AuditType.ACTIVE).build();
+        assertThrows(IllegalArgumentException.class, () -> cache.validate(invalid, new AuditParameters()));
+        assertThrows(IllegalArgumentException.class, () -> cache.validate(invalid, new AuditParameters()));
+    }
+    
+    @Test
+    public void testCustomValidatorBypassesCache() {
+        AtomicInteger validations = new AtomicInteger();
+        AuditParameters customValidator = new AuditParameters() {
+            @Override
+            public void validate(Map<String,List<String>> parameters) throws IllegalArgumentException {
+                validations.incrementAndGet();
+                super.validate(parameters);
+            }
+        };
+        AuditClient.Request request = request("FIELD:VALUE");
+        for (int i = 0; i < 3; i++) {
+            cache.validate(request, customValidator);
+        }
+        assertEquals(3, validations.get());
+    }
+    
+    @Test
+    public void testHashIgnoresKeyOrder() {
+        MultiValueMap<String,String> params1 = new LinkedMultiValueMap<>();
+        params1.add("a", "1");
+        params1.add("b", "2");
+        MultiValueMap<String,String> params2 = new LinkedMultiValueMap<>();
+        params2.add("b", "2");
+        params2.add("a", "1");
+        MultiValueMap<String,String> params3 = new LinkedMultiValueMap<>();
+        params3.add("a", "12");
+        params3.add("b", "");
+        
+        assertEquals(AuditValidationCache.hash(params1), AuditValidationCache.hash(params2));
+        assertNotEquals(AuditValidationCache.hash(params1), AuditValidationCache.hash(params3));
+    }
+    
+    private static AuditClient.Request request(String query) {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add(AuditParameters.USER_DN, "cn=user");
+        params.add(AuditParameters.QUERY_AUTHORIZATIONS, "A,B");
+        params.add(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "PUBLIC");
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withParams(params)
+                .withQueryExpression(query)
+                .withAuditType(Auditor.AuditType.ACTIVE)
+                .withQueryLogic("QueryLogic")
+                .build();
+        //@formatter:on
+    }
+}
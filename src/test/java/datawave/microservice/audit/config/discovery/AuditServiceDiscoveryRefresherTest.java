@@ -0,0 +1,110 @@
+package datawave.microservice.audit.config.discovery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditServiceProperties;
+
+/**
+ * Tests debouncing and retries of {@link AuditServiceDiscoveryRefresher}
+ */
+public class AuditServiceDiscoveryRefresherTest {
+    
+    private final ServiceInstance instance = new DefaultServiceInstance("audit-1", "audit", "audit-host", 8443, true);
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile int failuresRemaining;
+    
+    private final DiscoveryClient discoveryClient = new DiscoveryClient() {
+        @Override
+        public String description() {
+            return "test";
+        }
+        
+        @Override
+        public List<ServiceInstance> getInstances(String serviceId) {
+            lookups.incrementAndGet();
+            if (failuresRemaining > 0) {
+                failuresRemaining--;
+                throw new IllegalStateException("discovery unavailable");
+            }
+            return Collections.singletonList(instance);
+        }
+        
+        @Override
+        public List<String> getServices() {
+            return Collections.singletonList("audit");
+        }
+    };
+    
+    private final AuditServiceProvider provider = new AuditServiceProvider(new AuditServiceProperties(), discoveryClient);
+    private AuditServiceDiscoveryRefresher refresher;
+    
+    @AfterEach
+    public void tearDown() {
+        refresher.close();
+    }
+    
+    @Test
+    public void testBurstIsDebounced() throws InterruptedException {
+        refresher = new AuditServiceDiscoveryRefresher(provider, Duration.ofMillis(100), retryProperties());
+        for (int i = 0; i < 20; i++) {
+            refresher.requestRefresh();
+        }
+        awaitLookups(1);
+        Thread.sleep(200);
+        
+        assertEquals(1, lookups.get());
+        assertEquals(Collections.singletonList(instance), provider.getServiceInstances());
+        // Served from the published instances without another lookup
+        assertEquals(instance, provider.getServiceInstance());
+        assertEquals(1, lookups.get());
+    }
+    
+    @Test
+    public void testFailedRefreshIsRetried() throws InterruptedException {
+        failuresRemaining = 2;
+        refresher = new AuditServiceDiscoveryRefresher(provider, Duration.ZERO, retryProperties());
+        refresher.requestRefresh();
+        awaitLookups(3);
+        
+        assertEquals(3, lookups.get());
+        assertEquals(instance, provider.getServiceInstance());
+    }
+    
+    @Test
+    public void testBackoffIsJitteredAndCapped() {
+        refresher = new AuditServiceDiscoveryRefresher(provider, Duration.ZERO, retryProperties());
+        for (int attempt = 1; attempt < 20; attempt++) {
+            long delay = refresher.backoff(attempt);
+            assertTrue(delay >= 0 && delay <= 50, "Unexpected delay " + delay);
+        }
+    }
+    
+    private void awaitLookups(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lookups.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private static RetryProperties retryProperties() {
+        RetryProperties retryProperties = new RetryProperties();
+        retryProperties.setInitialInterval(10);
+        retryProperties.setMultiplier(2.0);
+        retryProperties.setMaxInterval(50);
+        retryProperties.setMaxAttempts(5);
+        return retryProperties;
+    }
+}
@@ -0,0 +1,198 @@
+package datawave.microservice.audit.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditHealthProperties;
+import datawave.microservice.audit.config.AuditServiceProperties;
+
+/**
+ * Tests ejection, probing and reinstatement by {@link InstanceHealthTracker}, and that {@link AuditServiceProvider} skips ejected instances
+ */
+public class InstanceHealthTrackerTest {
+    
+    private final ServiceInstance audit1 = new DefaultServiceInstance("audit-1", "audit", "audit-1", 8443, true);
+    private final ServiceInstance audit2 = new DefaultServiceInstance("audit-2", "audit", "audit-2", 8443, true);
+    private final ServiceInstance audit3 = new DefaultServiceInstance("audit-3", "audit", "audit-3", 8443, true);
+    private final List<ServiceInstance> instances = Arrays.asList(audit1, audit2, audit3);
+    
+    private final AtomicLong clock = new AtomicLong();
+    private AuditHealthProperties properties;
+    private InstanceHealthTracker tracker;
+    
+    @BeforeEach
+    public void setup() {
+        properties = new AuditHealthProperties();
+        properties.setConsecutiveErrors(3);
+        properties.setMinLatencySamples(5);
+        properties.setBaseEjectionTime(Duration.ofSeconds(5));
+        properties.setMaxEjectionTime(Duration.ofSeconds(60));
+        properties.setMaxEjectionPercent(50);
+        tracker = new InstanceHealthTracker(properties, clock::get);
+        tracker.available(instances);
+    }
+    
+    @Test
+    public void testEjectedAfterConsecutiveErrors() {
+        tracker.recordFailure(audit1);
+        tracker.recordFailure(audit1);
+        tracker.recordSuccess(audit1, ms(10));
+        tracker.recordFailure(audit1);
+        tracker.recordFailure(audit1);
+        assertFalse(tracker.isEjected(audit1));
+        
+        tracker.recordFailure(audit1);
+        assertTrue(tracker.isEjected(audit1));
+        assertEquals(Arrays.asList(audit2, audit3), tracker.available(instances));
+    }
+    
+    @Test
+    public void testProbeReinstatesInstance() {
+        eject(audit1);
+        assertNull(tracker.claimProbe(instances));
+        
+        advance(Duration.ofSeconds(5));
+        assertEquals(audit1, tracker.claimProbe(instances));
+        // Only one probe at a time
+        assertNull(tracker.claimProbe(instances));
+        
+        tracker.recordSuccess(audit1, ms(10));
+        assertFalse(tracker.isEjected(audit1));
+        assertEquals(instances, tracker.available(instances));
+    }
+    
+    @Test
+    public void testFailedProbeDoublesEjection() {
+        eject(audit1);
+        advance(Duration.ofSeconds(5));
+        assertEquals(audit1, tracker.claimProbe(instances));
+        tracker.recordFailure(audit1);
+        assertTrue(tracker.isEjected(audit1));
+        
+        advance(Duration.ofSeconds(9));
+        assertNull(tracker.claimProbe(instances));
+        advance(Duration.ofSeconds(1));
+        assertEquals(audit1, tracker.claimProbe(instances));
+    }
+    
+    @Test
+    public void testLatencyOutlierEjected() {
+        for (int i = 0; i < 5; i++) {
+            tracker.recordSuccess(audit2, ms(10));
+            tracker.recordSuccess(audit3, ms(12));
+            tracker.recordSuccess(audit1, ms(100));
+        }
+        assertTrue(tracker.isEjected(audit1));
+        assertFalse(tracker.isEjected(audit2));
+        assertFalse(tracker.isEjected(audit3));
+    }
+    
+    @Test
+    public void testMaxEjectionPercent() {
+        eject(audit1);
+        eject(audit2);
+        assertTrue(tracker.isEjected(audit1));
+        assertFalse(tracker.isEjected(audit2));
+    }
+    
+    @Test
+    public void testAllEjectedFailsOpen() {
+        properties.setMaxEjectionPercent(100);
+        instances.forEach(this::eject);
+        assertEquals(3, tracker.getEjectedInstances().size());
+        assertEquals(instances, tracker.available(instances));
+    }
+    
+    @Test
+    public void testConcurrentEjectionsRespectMaxPercent() throws Exception {
+        properties.setMaxEjectionPercent(34);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                eject(instance);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+        assertEquals(1, tracker.getEjectedInstances().size());
+    }
+    
+    @Test
+    public void testInstancesLeavingDiscoveryArePruned() {
+        eject(audit1);
+        tracker.retainInstances(Arrays.asList(audit2, audit3));
+        assertEquals(Collections.emptyList(), tracker.getEjectedInstances());
+        
+        // With audit1 gone, one of the two remaining instances may be ejected
+        eject(audit2);
+        assertTrue(tracker.isEjected(audit2));
+    }
+    
+    @Test
+    public void testProviderSkipsEjectedInstance() {
+        AuditServiceProvider serviceProvider = new AuditServiceProvider(new AuditServiceProperties(), new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+            
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return instances;
+            }
+            
+            @Override
+            public List<String> getServices() {
+                return Collections.singletonList("audit");
+            }
+        });
+        serviceProvider.setHealthTracker(tracker);
+        serviceProvider.publishInstances(instances);
+        assertEquals(audit1, serviceProvider.getServiceInstance());
+        
+        eject(audit1);
+        assertEquals(audit2, serviceProvider.getServiceInstance());
+    }
+    
+    private void eject(ServiceInstance instance) {
+        for (int i = 0; i < properties.getConsecutiveErrors(); i++) {
+            tracker.recordFailure(instance);
+        }
+    }
+    
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+    
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,244 @@
+package datawave.microservice.audit.lane;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Tests that {@link AuditLanes} isolates audit types from one another
+ */
+public class AuditLanesTest {
+    
+    private AuditLaneProperties properties;
+    private AuditLanes lanes;
+    
+    @BeforeEach
+    public void setup() {
+        properties = new AuditLaneProperties();
+        AuditLaneProperties.Lane passive = properties.getTypes().get(AuditType.PASSIVE);
+        passive.setConcurrency(1);
+        passive.setQueueCapacity(1);
+        passive.setOverflow(AuditLaneProperties.Overflow.REJECT);
+        passive.setLinger(Duration.ZERO);
+        lanes = new AuditLanes(properties, null);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        lanes.close();
+    }
+    
+    @Test
+    public void testActiveIsDeliveredOnCallingThread() {
+        AtomicReference<Thread> deliveredOn = new AtomicReference<>();
+        lanes.submit(AuditType.ACTIVE, () -> deliveredOn.set(Thread.currentThread()));
+        assertEquals(Thread.currentThread(), deliveredOn.get());
+        
+        lanes.submit(null, () -> deliveredOn.set(null));
+        assertEquals(null, deliveredOn.get());
+    }
+    
+    @Test
+    public void testPassiveFloodDoesNotDelayActive() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Thread> deliveredOn = new AtomicReference<>();
+        
+        // Occupy the single passive worker, then fill its queue
+        lanes.submit(AuditType.PASSIVE, () -> {
+            deliveredOn.set(Thread.currentThread());
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        lanes.submit(AuditType.PASSIVE, () -> {});
+        assertThrows(RejectedExecutionException.class, () -> lanes.submit(AuditType.PASSIVE, () -> {}));
+        
+        AtomicInteger active = new AtomicInteger();
+        lanes.submit(AuditType.ACTIVE, active::incrementAndGet);
+        assertEquals(1, active.get());
+        assertNotEquals(Thread.currentThread(), deliveredOn.get());
+        
+        release.countDown();
+    }
+    
+    @Test
+    public void testFailedDeliveriesGoToFailureHandler() throws Exception {
+        List<Runnable> failed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch handled = new CountDownLatch(1);
+        lanes.setFailureHandler(deliveries -> {
+            failed.addAll(deliveries);
+            handled.countDown();
+        });
+        Runnable delivery = () -> {
+            throw new IllegalStateException("audit service unavailable");
+        };
+        lanes.submit(AuditType.PASSIVE, delivery);
+        
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(delivery), failed);
+    }
+    
+    @Test
+    public void testSyncOverflowCallerRuns() throws Exception {
+        AuditLaneProperties.Lane lane = new AuditLaneProperties.Lane();
+        lane.setConcurrency(1);
+        lane.setOverflow(AuditLaneProperties.Overflow.CALLER_RUNS);
+        lane.setAcquireTimeout(Duration.ofMillis(1));
+        SyncAuditLane syncLane = new SyncAuditLane(AuditType.ACTIVE, lane, null);
+        
+        AtomicInteger delivered = new AtomicInteger();
+        syncLane.submit(() -> syncLane.submit(delivered::incrementAndGet));
+        assertEquals(1, delivered.get());
+    }
+    
+    @Test
+    public void testFairQueuingLetsOtherUsersThrough() throws Exception {
+        AuditLaneProperties.Lane lane = new AuditLaneProperties.Lane();
+        lane.setMode(AuditLaneProperties.Mode.ASYNC);
+        lane.setConcurrency(1);
+        lane.setFairQueuing(true);
+        lane.setPerUserCapacity(10);
+        AsyncAuditLane asyncLane = new AsyncAuditLane(AuditType.PASSIVE, lane, null);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            asyncLane.submit("cn=batch", () -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            
+            for (int i = 0; i < 5; i++) {
+                asyncLane.submit("cn=batch", () -> delivered.add("cn=batch"));
+            }
+            asyncLane.submit("cn=interactive", () -> delivered.add("cn=interactive"));
+            release.countDown();
+        } finally {
+            asyncLane.close();
+        }
+        // The interactive user is served after only one of the queued batch requests
+        assertEquals(Arrays.asList("cn=batch", "cn=interactive", "cn=batch", "cn=batch", "cn=batch", "cn=batch"), delivered);
+    }
+    
+    @Test
+    public void testRingBufferLaneDeliversEverything() {
+        AuditLaneProperties.Lane lane = new AuditLaneProperties.Lane();
+        lane.setMode(AuditLaneProperties.Mode.ASYNC);
+        lane.setConcurrency(2);
+        lane.setMaxBatchSize(64);
+        lane.setQueueCapacity(16);
+        lane.setQueueType(AuditLaneProperties.QueueType.RING_BUFFER);
+        AsyncAuditLane asyncLane = new AsyncAuditLane(AuditType.PASSIVE, lane, null);
+        AtomicInteger delivered = new AtomicInteger();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                asyncLane.submit(delivered::incrementAndGet);
+            }
+        } finally {
+            asyncLane.close();
+        }
+        assertEquals(1000, delivered.get());
+    }
+    
+    @Test
+    public void testRingBufferLaneCannotQueueFairly() {
+        AuditLaneProperties.Lane lane = new AuditLaneProperties.Lane();
+        lane.setMode(AuditLaneProperties.Mode.ASYNC);
+        lane.setFairQueuing(true);
+        lane.setQueueType(AuditLaneProperties.QueueType.RING_BUFFER);
+        assertThrows(IllegalArgumentException.class, () -> new AsyncAuditLane(AuditType.PASSIVE, lane, null));
+    }
+    
+    @Test
+    public void testDrainReturnsUndeliveredRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Runnable queued = () -> {};
+        List<Runnable> undelivered;
+        try {
+            lanes.submit(AuditType.PASSIVE, () -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            lanes.submit(AuditType.PASSIVE, queued);
+            
+            undelivered = lanes.drain(Duration.ofMillis(50));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(Collections.singletonList(queued), undelivered);
+        assertThrows(RejectedExecutionException.class, () -> lanes.submit(AuditType.PASSIVE, () -> {}));
+    }
+    
+    @Test
+    public void testDrainReclaimsBatchedRequests() throws Exception {
+        AuditLaneProperties.Lane properties = new AuditLaneProperties.Lane();
+        properties.setMode(AuditLaneProperties.Mode.ASYNC);
+        properties.setConcurrency(1);
+        properties.setMaxBatchSize(4);
+        properties.setLinger(Duration.ofMillis(200));
+        AsyncAuditLane lane = new AsyncAuditLane(AuditType.PASSIVE, properties, null);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Runnable first = () -> {};
+        Runnable second = () -> {};
+        List<Runnable> undelivered;
+        try {
+            // The worker lingers long enough to take all three into its batch, then blocks delivering the first
+            lane.submit(() -> {
+                started.countDown();
+                await(release);
+            });
+            lane.submit(first);
+            lane.submit(second);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(0, lane.getQueueSize());
+            
+            undelivered = lane.drain(Duration.ofMillis(50));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(Arrays.asList(first, second), undelivered);
+    }
+    
+    @Test
+    public void testStartAfterDrainAcceptsAgain() throws Exception {
+        assertTrue(lanes.drain(Duration.ofSeconds(1)).isEmpty());
+        assertThrows(RejectedExecutionException.class, () -> lanes.submit(AuditType.PASSIVE, () -> {}));
+        
+        lanes.start();
+        CountDownLatch delivered = new CountDownLatch(1);
+        lanes.submit(AuditType.PASSIVE, delivered::countDown);
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package datawave.microservice.audit.lane;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests deficit round-robin ordering and per-key bounds of {@link FairAuditQueue}
+ */
+public class FairAuditQueueTest {
+    
+    @Test
+    public void testRoundRobinBetweenKeys() {
+        FairAuditQueue<String> queue = new FairAuditQueue<>(100, 100, FairAuditQueueTest::keyOf, key -> 1);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(queue.offer("batch-" + i));
+        }
+        queue.offer("alice-1");
+        queue.offer("alice-2");
+        queue.offer("bob-1");
+        
+        List<String> order = new ArrayList<>();
+        queue.drainTo(order);
+        assertEquals(Arrays.asList("batch-1", "alice-1", "bob-1", "batch-2", "alice-2", "batch-3", "batch-4"), order);
+        assertEquals(0, queue.getKeyCount());
+    }
+    
+    @Test
+    public void testWeightedTurns() throws InterruptedException {
+        FairAuditQueue<String> queue = new FairAuditQueue<>(100, 100, FairAuditQueueTest::keyOf, key -> key.equals("alice") ? 2 : 1);
+        for (int i = 1; i <= 4; i++) {
+            queue.put("alice-" + i);
+            queue.put("batch-" + i);
+        }
+        
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            order.add(queue.poll(1, TimeUnit.SECONDS));
+        }
+        assertEquals(Arrays.asList("alice-1", "alice-2", "batch-1", "alice-3", "alice-4", "batch-2"), order);
+    }
+    
+    @Test
+    public void testPerKeyCapacity() {
+        FairAuditQueue<String> queue = new FairAuditQueue<>(5, 2, FairAuditQueueTest::keyOf, key -> 1);
+        assertTrue(queue.offer("batch-1"));
+        assertTrue(queue.offer("batch-2"));
+        assertFalse(queue.offer("batch-3"));
+        
+        // Other keys are unaffected by a full key
+        assertTrue(queue.offer("alice-1"));
+        assertTrue(queue.offer("bob-1"));
+        assertTrue(queue.offer("carol-1"));
+        
+        // Total capacity still applies
+        assertFalse(queue.offer("dave-1"));
+        assertEquals(0, queue.remainingCapacity());
+        
+        assertEquals("batch-1", queue.poll());
+        assertTrue(queue.offer("batch-3"));
+    }
+    
+    @Test
+    public void testPollTimesOutWhenEmpty() throws InterruptedException {
+        FairAuditQueue<String> queue = new FairAuditQueue<>(10, 10, FairAuditQueueTest::keyOf, key -> 1);
+        assertNull(queue.poll());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+    
+    private static String keyOf(String element) {
+        return element.substring(0, element.indexOf('-'));
+    }
+}
@@ -0,0 +1,174 @@
+package datawave.microservice.audit.lane;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.audit.config.AuditLaneProperties.WaitStrategy;
+
+/**
+ * Tests ordering, bounds, batching and concurrent handoff of {@link RingBufferAuditQueue}
+ */
+public class RingBufferAuditQueueTest {
+    
+    @Test
+    public void testCapacityRoundedUpToPowerOfTwo() {
+        RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(5, WaitStrategy.PARK);
+        assertEquals(8, queue.getCapacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(8, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+    }
+    
+    @Test
+    public void testFifoAcrossLaps() {
+        RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(4, WaitStrategy.PARK);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 100));
+            assertEquals(i, queue.peek());
+            assertEquals(i, queue.poll());
+            assertEquals(i + 100, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void testDrainToClaimsBatch() {
+        RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(8, WaitStrategy.PARK);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        List<Integer> batch = new ArrayList<>();
+        assertEquals(4, queue.drainTo(batch, 4));
+        assertEquals(Arrays.asList(0, 1, 2, 3), batch);
+        assertEquals(Arrays.asList(4, 5), new ArrayList<>(queue));
+        
+        batch.clear();
+        assertEquals(2, queue.drainTo(batch));
+        assertEquals(Arrays.asList(4, 5), batch);
+        assertEquals(0, queue.drainTo(batch));
+    }
+    
+    @Test
+    public void testTimedPollAndOffer() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(1, waitStrategy);
+            assertEquals(2, queue.getCapacity());
+            long start = System.nanoTime();
+            assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+            assertTrue(queue.offer(1, 20, TimeUnit.MILLISECONDS));
+            assertTrue(queue.offer(2, 20, TimeUnit.MILLISECONDS));
+            assertFalse(queue.offer(3, 20, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40), waitStrategy.name());
+        }
+    }
+    
+    @Test
+    public void testPutWaitsForSpace() throws Exception {
+        RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(2, WaitStrategy.PARK);
+        queue.put(1);
+        queue.put(2);
+        CountDownLatch putting = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> put = executor.submit(() -> {
+                putting.countDown();
+                queue.put(3);
+                return null;
+            });
+            assertTrue(putting.await(10, TimeUnit.SECONDS));
+            assertEquals(1, queue.take());
+            put.get(10, TimeUnit.SECONDS);
+            assertEquals(2, queue.take());
+            assertEquals(3, queue.take());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testTakeInterrupted() {
+        RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(1, WaitStrategy.PARK);
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, queue::take);
+        assertFalse(Thread.interrupted());
+    }
+    
+    @Test
+    public void testConcurrentProducersAndBatchingConsumers() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferAuditQueue<Integer> queue = new RingBufferAuditQueue<>(64, waitStrategy);
+            BitSet seen = new BitSet(producers * perProducer);
+            AtomicInteger duplicates = new AtomicInteger();
+            AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+            ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < 2; c++) {
+                    futures.add(executor.submit(() -> {
+                        List<Integer> batch = new ArrayList<>();
+                        while (remaining.get() > 0) {
+                            Integer first = queue.poll(10, TimeUnit.MILLISECONDS);
+                            if (null == first) {
+                                continue;
+                            }
+                            batch.add(first);
+                            queue.drainTo(batch, 31);
+                            synchronized (seen) {
+                                for (Integer value : batch) {
+                                    if (seen.get(value)) {
+                                        duplicates.incrementAndGet();
+                                    }
+                                    seen.set(value);
+                                }
+                            }
+                            remaining.addAndGet(-batch.size());
+                            batch.clear();
+                        }
+                        return null;
+                    }));
+                }
+                for (int p = 0; p < producers; p++) {
+                    int base = p * perProducer;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < perProducer; i++) {
+                            queue.put(base + i);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(0, duplicates.get(), waitStrategy.name());
+            assertEquals(producers * perProducer, seen.cardinality(), waitStrategy.name());
+            assertTrue(queue.isEmpty(), waitStrategy.name());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package datawave.microservice.audit.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.marking.SecurityMarking;
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.AuditClientTest;
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.TestUtils;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor;
+
+/**
+ * Drives {@link AuditClient} and {@link ReplayClient} against an in-process {@link StubAuditService} and logs throughput and latency percentiles.
+ * <p>
+ * The smoke test runs as part of the normal build to keep the harness working. The load runs are opt-in, since they take a while and their numbers only mean
+ * something on a quiet machine:
+ *
+ * <pre>
+ * mvn test -Dtest=AuditLoadTest -Daudit.load-test.enabled=true -Daudit.load-test.concurrency=32 -Daudit.load-test.duration=PT30S
+ * </pre>
+ *
+ * Other knobs: {@code audit.load-test.warmup} (ISO-8601 duration), {@code audit.load-test.latency} (median service time, ISO-8601 duration),
+ * {@code audit.load-test.latency-sigma} (log-normal tail width), {@code audit.load-test.error-rate} (0 to 1) and {@code audit.load-test.max-connections}
+ * (stub's concurrent request limit, 0 for none).
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ContextConfiguration(classes = AuditClientTest.TestConfiguration.class)
+@ActiveProfiles({"AuditClientTest", "audit-enabled"})
+public class AuditLoadTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(AuditLoadTest.class);
+    
+    private static final String PROPERTY_PREFIX = "audit.load-test.";
+    
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+    
+    @Autowired
+    private SecurityMarking auditTestSecurityMarking;
+    
+    private DatawaveUserDetails userDetails;
+    
+    @BeforeEach
+    public void setup() {
+        userDetails = TestUtils.userDetails(Collections.singleton("AuthorizedUser"), Arrays.asList("A", "B", "C"));
+    }
+    
+    @Test
+    public void testHarnessSmoke() throws Exception {
+        StubAuditService.Builder stub = new StubAuditService.Builder().withLatency(LatencyDistribution.uniform(Duration.ZERO, Duration.ofMillis(2)));
+        LoadGenerator generator = new LoadGenerator(4, Duration.ofSeconds(30), 200, Duration.ZERO);
+        
+        LoadReport auditReport = runAudit(stub, generator);
+        assertEquals(200, auditReport.getOperations());
+        assertEquals(0, auditReport.getErrors());
+        assertTrue(auditReport.getLatency(50) <= auditReport.getLatency(99));
+        
+        LoadReport replayReport = runReplay(stub, generator);
+        assertEquals(200, replayReport.getOperations());
+        assertEquals(0, replayReport.getErrors());
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = PROPERTY_PREFIX + "enabled", matches = "true")
+    public void testAuditSubmissionLoad() throws Exception {
+        runAudit(configuredStub(), configuredGenerator());
+    }
+    
+    @Test
+    @EnabledIfSystemProperty(named = PROPERTY_PREFIX + "enabled", matches = "true")
+    public void testReplayLoad() throws Exception {
+        runReplay(configuredStub(), configuredGenerator());
+    }
+    
+    private LoadReport runAudit(StubAuditService.Builder stubBuilder, LoadGenerator generator) throws Exception {
+        try (StubAuditService stub = stubBuilder.build().start()) {
+            AuditClient auditClient = new AuditClient(restTemplateBuilder, serviceProvider(stub));
+            auditClient.setValidationSupplier(AuditParameters::new);
+            
+            //@formatter:off
+            AuditClient.Request request = new AuditClient.Request.Builder()
+                    .withQueryExpression("FIELD:VALUE")
+                    .withDatawaveUserDetails(userDetails)
+                    .withMarking(auditTestSecurityMarking)
+                    .withAuditType(Auditor.AuditType.ACTIVE)
+                    .withQueryLogic("QueryLogic")
+                    .build();
+            //@formatter:on
+            
+            return report(generator.run("audit.submit", () -> auditClient.submit(request)), stub);
+        }
+    }
+    
+    private LoadReport runReplay(StubAuditService.Builder stubBuilder, LoadGenerator generator) throws Exception {
+        try (StubAuditService stub = stubBuilder.build().start()) {
+            ReplayClient replayClient = new ReplayClient(restTemplateBuilder, serviceProvider(stub));
+            
+            //@formatter:off
+            ReplayClient.Request createRequest = new ReplayClient.Request.Builder()
+                    .withDatawaveUserDetails(userDetails)
+                    .withPathUri("file:///audit/replay")
+                    .withSendRate(100L)
+                    .build();
+            ReplayClient.Request statusRequest = new ReplayClient.Request.Builder()
+                    .withDatawaveUserDetails(userDetails)
+                    .build();
+            //@formatter:on
+            
+            return report(generator.run("audit.replay", () -> {
+                replayClient.create(createRequest);
+                replayClient.statusAll(statusRequest);
+            }), stub);
+        }
+    }
+    
+    private static AuditServiceProvider serviceProvider(StubAuditService stub) {
+        AuditServiceProperties properties = new AuditServiceProperties();
+        properties.setUri(stub.getUri());
+        return new AuditServiceProvider(properties);
+    }
+    
+    private static LoadReport report(LoadReport report, StubAuditService stub) {
+        log.info("{} (stub: requests={} errors={} rejected={})", report, stub.getRequestCount(), stub.getErrorCount(), stub.getRejectedCount());
+        return report;
+    }
+    
+    private static StubAuditService.Builder configuredStub() {
+        //@formatter:off
+        return new StubAuditService.Builder()
+                .withLatency(LatencyDistribution.logNormal(
+                        Duration.parse(System.getProperty(PROPERTY_PREFIX + "latency", "PT0.005S")),
+                        Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "latency-sigma", "0.5"))))
+                .withErrorRate(Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "error-rate", "0.0")))
+                .withMaxConcurrentRequests(Integer.getInteger(PROPERTY_PREFIX + "max-connections", 0));
+        //@formatter:on
+    }
+    
+    private static LoadGenerator configuredGenerator() {
+        //@formatter:off
+        return new LoadGenerator(
+                Integer.getInteger(PROPERTY_PREFIX + "concurrency", 16),
+                Duration.parse(System.getProperty(PROPERTY_PREFIX + "duration", "PT10S")),
+                Long.getLong(PROPERTY_PREFIX + "max-operations", Long.MAX_VALUE),
+                Duration.parse(System.getProperty(PROPERTY_PREFIX + "warmup", "PT2S")));
+        //@formatter:on
+    }
+}
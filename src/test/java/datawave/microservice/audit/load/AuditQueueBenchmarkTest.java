@@ -0,0 +1,92 @@
+package datawave.microservice.audit.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.audit.config.AuditLaneProperties;
+import datawave.microservice.audit.lane.AsyncAuditLane;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Compares the submitter's handoff cost of an {@link AsyncAuditLane} backed by an {@link java.util.concurrent.ArrayBlockingQueue} against one backed by a
+ * {@link datawave.microservice.audit.lane.RingBufferAuditQueue} with each wait strategy. Deliveries are no-ops, so the figures are the cost of the handoff
+ * alone, in nanoseconds.
+ * <p>
+ * Opt-in, like the load runs of {@link AuditLoadTest}, and only meaningful on a quiet machine with more cores than submitters plus workers:
+ *
+ * <pre>
+ * mvn test -Dtest=AuditQueueBenchmarkTest -Daudit.load-test.enabled=true -Daudit.load-test.concurrency=64 -Daudit.load-test.workers=4
+ * </pre>
+ *
+ * Other knobs: {@code audit.load-test.duration} and {@code audit.load-test.warmup} (ISO-8601 durations), {@code audit.load-test.max-operations} (per run, each
+ * operation's latency is kept in memory) and {@code audit.load-test.batch-size} (worker batch size).
+ */
+public class AuditQueueBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(AuditQueueBenchmarkTest.class);
+    
+    private static final String PROPERTY_PREFIX = "audit.load-test.";
+    
+    @Test
+    @EnabledIfSystemProperty(named = PROPERTY_PREFIX + "enabled", matches = "true")
+    public void testQueueHandoff() throws Exception {
+        run("ArrayBlockingQueue", lane(AuditLaneProperties.QueueType.ARRAY, AuditLaneProperties.WaitStrategy.PARK));
+        for (AuditLaneProperties.WaitStrategy waitStrategy : AuditLaneProperties.WaitStrategy.values()) {
+            run("RingBufferAuditQueue/" + waitStrategy, lane(AuditLaneProperties.QueueType.RING_BUFFER, waitStrategy));
+        }
+    }
+    
+    private static void run(String name, AuditLaneProperties.Lane properties) throws Exception {
+        LongAdder delivered = new LongAdder();
+        Runnable delivery = delivered::increment;
+        AsyncAuditLane lane = new AsyncAuditLane(AuditType.PASSIVE, properties, null);
+        LoadReport report;
+        try {
+            report = configuredGenerator().run(name, () -> lane.submit(delivery));
+        } finally {
+            lane.close();
+        }
+        //@formatter:off
+        log.info("{}: submitters={} ops={} throughput={} ops/s handoff(ns) p50={} p90={} p99={} p99.9={} max={}",
+                name,
+                report.getConcurrency(),
+                report.getOperations(),
+                String.format("%.0f", report.getThroughput()),
+                report.getLatency(50),
+                report.getLatency(90),
+                report.getLatency(99),
+                report.getLatency(99.9),
+                report.getLatency(100));
+        //@formatter:on
+        assertEquals(0, report.getErrors());
+    }
+    
+    private static AuditLaneProperties.Lane lane(AuditLaneProperties.QueueType queueType, AuditLaneProperties.WaitStrategy waitStrategy) {
+        AuditLaneProperties.Lane lane = new AuditLaneProperties.Lane();
+        lane.setMode(AuditLaneProperties.Mode.ASYNC);
+        lane.setConcurrency(Integer.getInteger(PROPERTY_PREFIX + "workers", 4));
+        lane.setMaxBatchSize(Integer.getInteger(PROPERTY_PREFIX + "batch-size", 256));
+        lane.setQueueCapacity(16384);
+        lane.setOverflow(AuditLaneProperties.Overflow.BLOCK);
+        lane.setQueueType(queueType);
+        lane.setWaitStrategy(waitStrategy);
+        return lane;
+    }
+    
+    private static LoadGenerator configuredGenerator() {
+        //@formatter:off
+        return new LoadGenerator(
+                Integer.getInteger(PROPERTY_PREFIX + "concurrency", 16),
+                Duration.parse(System.getProperty(PROPERTY_PREFIX + "duration", "PT10S")),
+                Long.getLong(PROPERTY_PREFIX + "max-operations", 5_000_000L),
+                Duration.parse(System.getProperty(PROPERTY_PREFIX + "warmup", "PT2S")));
+        //@formatter:on
+    }
+}
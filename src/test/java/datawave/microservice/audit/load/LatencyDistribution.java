@@ -0,0 +1,46 @@
+package datawave.microservice.audit.load;
+
+import java.time.Duration;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Service time model used by {@link StubAuditService} to delay each response
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+    
+    LatencyDistribution NONE = random -> 0L;
+    
+    /**
+     * @return the next service time, in nanoseconds
+     */
+    long nextNanos(Random random);
+    
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+    
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        Preconditions.checkArgument(min.compareTo(max) <= 0, "min latency must not exceed max latency");
+        long minNanos = min.toNanos();
+        long range = max.toNanos() - minNanos;
+        return random -> minNanos + (range == 0 ? 0 : (long) (random.nextDouble() * range));
+    }
+    
+    static LatencyDistribution exponential(Duration mean) {
+        long meanNanos = mean.toNanos();
+        return random -> (long) (-Math.log(1.0 - random.nextDouble()) * meanNanos);
+    }
+    
+    /**
+     * Long-tailed distribution typical of real service times. {@code sigma} controls the width of the tail; 0.5 to 1.0 is a reasonable range.
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        Preconditions.checkArgument(sigma >= 0, "sigma must not be negative");
+        long medianNanos = median.toNanos();
+        return random -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+    }
+}
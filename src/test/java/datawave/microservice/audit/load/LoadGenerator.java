@@ -0,0 +1,144 @@
+package datawave.microservice.audit.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Drives an operation from a fixed number of closed-loop workers, each issuing its next call as soon as the previous one returns, and reports throughput and
+ * latency percentiles. Calls that throw are counted as errors and included in the latency figures.
+ * <p>
+ * The run ends when either {@code duration} has elapsed or {@code maxOperations} calls have been issued, whichever comes first. Operations issued during the
+ * warm-up period are executed but not recorded.
+ */
+public class LoadGenerator {
+    
+    public interface Operation {
+        void run() throws Exception;
+    }
+    
+    private final int concurrency;
+    private final Duration duration;
+    private final long maxOperations;
+    private final Duration warmup;
+    
+    public LoadGenerator(int concurrency, Duration duration, long maxOperations, Duration warmup) {
+        Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+        Preconditions.checkArgument(maxOperations > 0, "maxOperations must be positive");
+        this.concurrency = concurrency;
+        this.duration = Preconditions.checkNotNull(duration, "duration cannot be null");
+        this.maxOperations = maxOperations;
+        this.warmup = Preconditions.checkNotNull(warmup, "warmup cannot be null");
+    }
+    
+    public LoadReport run(String name, Operation operation) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "load-generator-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            runPhase(executor, operation, warmup, Long.MAX_VALUE);
+            long start = System.nanoTime();
+            List<Worker> workers = runPhase(executor, operation, duration, maxOperations);
+            long elapsed = System.nanoTime() - start;
+            
+            int total = 0;
+            long errors = 0;
+            for (Worker worker : workers) {
+                total += worker.count;
+                errors += worker.errors;
+            }
+            long[] latencies = new long[total];
+            int offset = 0;
+            for (Worker worker : workers) {
+                System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+                offset += worker.count;
+            }
+            Arrays.sort(latencies);
+            return new LoadReport(name, concurrency, elapsed, latencies, errors);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private List<Worker> runPhase(ExecutorService executor, Operation operation, Duration length, long limit) throws InterruptedException {
+        if (length.isZero()) {
+            return new ArrayList<>();
+        }
+        long deadline = System.nanoTime() + length.toNanos();
+        AtomicLong issued = new AtomicLong();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Worker> workers = new ArrayList<>(concurrency);
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(operation, startSignal, deadline, issued, limit);
+            workers.add(worker);
+            futures.add(executor.submit(worker));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load generator worker failed", e.getCause());
+            }
+        }
+        return workers;
+    }
+    
+    private static class Worker implements Runnable {
+        private final Operation operation;
+        private final CountDownLatch startSignal;
+        private final long deadline;
+        private final AtomicLong issued;
+        private final long limit;
+        
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        
+        private Worker(Operation operation, CountDownLatch startSignal, long deadline, AtomicLong issued, long limit) {
+            this.operation = operation;
+            this.startSignal = startSignal;
+            this.deadline = deadline;
+            this.issued = issued;
+            this.limit = limit;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                startSignal.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            while (System.nanoTime() < deadline && issued.incrementAndGet() <= limit && !Thread.currentThread().isInterrupted()) {
+                long start = System.nanoTime();
+                try {
+                    operation.run();
+                } catch (Exception e) {
+                    errors++;
+                }
+                record(System.nanoTime() - start);
+            }
+        }
+        
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
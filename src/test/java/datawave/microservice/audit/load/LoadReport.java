@@ -0,0 +1,75 @@
+package datawave.microservice.audit.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency summary of a single {@link LoadGenerator} run
+ */
+public class LoadReport {
+    
+    private final String name;
+    private final int concurrency;
+    private final long elapsedNanos;
+    private final long[] sortedLatencies;
+    private final long errors;
+    
+    LoadReport(String name, int concurrency, long elapsedNanos, long[] sortedLatencies, long errors) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencies = sortedLatencies;
+        this.errors = errors;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getConcurrency() {
+        return concurrency;
+    }
+    
+    public long getOperations() {
+        return sortedLatencies.length;
+    }
+    
+    public long getErrors() {
+        return errors;
+    }
+    
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : sortedLatencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+    
+    /**
+     * @param percentile
+     *            percentile between 0 and 100
+     * @return the latency at the given percentile, in nanoseconds, using the nearest-rank method
+     */
+    public long getLatency(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0L;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+        return sortedLatencies[Math.min(Math.max(rank, 1), sortedLatencies.length) - 1];
+    }
+    
+    @Override
+    public String toString() {
+        //@formatter:off
+        return String.format("%s: concurrency=%d ops=%d errors=%d elapsed=%.2fs throughput=%.1f ops/s "
+                        + "latency(ms) p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+                name,
+                concurrency,
+                getOperations(),
+                errors,
+                elapsedNanos / 1e9,
+                getThroughput(),
+                getLatency(50) / 1e6,
+                getLatency(90) / 1e6,
+                getLatency(99) / 1e6,
+                getLatency(99.9) / 1e6,
+                getLatency(100) / 1e6);
+        //@formatter:on
+    }
+}
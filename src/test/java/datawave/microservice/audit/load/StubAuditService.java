@@ -0,0 +1,218 @@
+package datawave.microservice.audit.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the audit service's {@code /v1/audit} and {@code /v1/replay/*} endpoints, for load testing {@code AuditClient} and
+ * {@code ReplayClient} without a running audit service.
+ * <p>
+ * Each request is delayed according to the configured {@link LatencyDistribution}, then fails with {@code errorStatus} at the configured error rate. At
+ * most {@code maxConcurrentRequests} requests are serviced at once; requests beyond that are rejected immediately with {@code 503}, the way an overloaded
+ * instance behind a connection limit would respond.
+ */
+public class StubAuditService implements AutoCloseable {
+    
+    public static final String CONTEXT_PATH = "/audit";
+    
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final Semaphore permits;
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private String previousNoDelay;
+    
+    private StubAuditService(Builder builder) {
+        this.latency = builder.latency;
+        this.errorRate = builder.errorRate;
+        this.errorStatus = builder.errorStatus;
+        this.permits = builder.maxConcurrentRequests > 0 ? new Semaphore(builder.maxConcurrentRequests) : null;
+    }
+    
+    public synchronized StubAuditService start() throws IOException {
+        Preconditions.checkState(server == null, "stub audit service already started");
+        // without TCP_NODELAY, delayed ACKs add ~40ms to every small response and swamp the latencies being measured. The JDK reads the property when
+        // the first server is created, so it is set for the stub's lifetime only and restored on close
+        previousNoDelay = System.setProperty(NODELAY_PROPERTY, "true");
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            restoreNoDelay();
+            throw e;
+        }
+        server.createContext(CONTEXT_PATH + "/v1/audit", this::handle);
+        server.createContext(CONTEXT_PATH + "/v1/replay", this::handle);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-audit-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+    
+    /**
+     * @return the base uri to use for {@code audit-client.uri}
+     */
+    public String getUri() {
+        Preconditions.checkState(server != null, "stub audit service not started");
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CONTEXT_PATH;
+    }
+    
+    public long getRequestCount() {
+        return requests.sum();
+    }
+    
+    public long getErrorCount() {
+        return errors.sum();
+    }
+    
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            restoreNoDelay();
+        }
+    }
+    
+    private void restoreNoDelay() {
+        if (previousNoDelay == null) {
+            System.clearProperty(NODELAY_PROPERTY);
+        } else {
+            System.setProperty(NODELAY_PROPERTY, previousNoDelay);
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            drain(exchange.getRequestBody());
+            if (permits != null && !permits.tryAcquire()) {
+                rejected.increment();
+                respond(exchange, 503, "");
+                return;
+            }
+            try {
+                long delay = latency.nextNanos(ThreadLocalRandom.current());
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    errors.increment();
+                    respond(exchange, errorStatus, "");
+                } else {
+                    respond(exchange, 200, responseBody(exchange.getRequestURI().getPath()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "");
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private static String responseBody(String path) {
+        if (path.endsWith("/create") || path.endsWith("/createAndStart")) {
+            return UUID.randomUUID().toString();
+        } else if (path.endsWith("/statusAll")) {
+            return "[]";
+        } else if (path.endsWith("/status")) {
+            return "{}";
+        }
+        return "";
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (body.startsWith("[") || body.startsWith("{")) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+    
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            // discard
+        }
+    }
+    
+    public static class Builder {
+        private LatencyDistribution latency = LatencyDistribution.NONE;
+        private double errorRate = 0.0;
+        private int errorStatus = 503;
+        private int maxConcurrentRequests = 0;
+        
+        public Builder withLatency(LatencyDistribution latency) {
+            this.latency = Preconditions.checkNotNull(latency, "latency cannot be null");
+            return this;
+        }
+        
+        public Builder withErrorRate(double errorRate) {
+            Preconditions.checkArgument(errorRate >= 0.0 && errorRate <= 1.0, "errorRate must be between 0 and 1");
+            this.errorRate = errorRate;
+            return this;
+        }
+        
+        public Builder withErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+        
+        /**
+         * @param maxConcurrentRequests
+         *            concurrent requests serviced before new ones are rejected, or 0 for no limit
+         */
+        public Builder withMaxConcurrentRequests(int maxConcurrentRequests) {
+            Preconditions.checkArgument(maxConcurrentRequests >= 0, "maxConcurrentRequests must not be negative");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+        
+        public StubAuditService build() {
+            return new StubAuditService(this);
+        }
+    }
+}
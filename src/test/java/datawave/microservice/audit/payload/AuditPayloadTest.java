@@ -0,0 +1,91 @@
+package datawave.microservice.audit.payload;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.audit.sink.AuditRecordEncoder;
+
+/**
+ * Tests encoding into, and reuse of, pooled {@link AuditPayload} buffers
+ */
+public class AuditPayloadTest {
+    
+    @Test
+    public void testPayloadWrittenRepeatedlyUntilReleased() throws Exception {
+        AuditPayloadBufferPool pool = new AuditPayloadBufferPool(4, 1 << 20);
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add("query", "FIELD:\"some value\"");
+        
+        AuditPayload payload = AuditPayload.encode(params, pool);
+        byte[] expected = AuditRecordEncoder.encode(params);
+        assertEquals(expected.length, payload.getLength());
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            payload.writeTo(out);
+            assertArrayEquals(expected, out.toByteArray());
+        }
+        
+        payload.release();
+        payload.release();
+        assertEquals(1, pool.getPooledCount());
+        assertThrows(IllegalStateException.class, () -> payload.writeTo(new ByteArrayOutputStream()));
+    }
+    
+    @Test
+    public void testBufferKeptUntilEveryReferenceReleased() throws Exception {
+        AuditPayloadBufferPool pool = new AuditPayloadBufferPool(4, 1 << 20);
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add("query", "FIELD:VALUE");
+        
+        AuditPayload payload = AuditPayload.encode(params, pool);
+        AuditPayload retained = payload.retain();
+        payload.release();
+        payload.release();
+        assertEquals(0, pool.getPooledCount());
+        assertThrows(IllegalStateException.class, () -> payload.writeTo(new ByteArrayOutputStream()));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        retained.writeTo(out);
+        assertArrayEquals(AuditRecordEncoder.encode(params), out.toByteArray());
+        retained.release();
+        assertEquals(1, pool.getPooledCount());
+    }
+    
+    @Test
+    public void testBuffersReused() {
+        AuditPayloadBufferPool pool = new AuditPayloadBufferPool(1, 1 << 16);
+        ByteBuffer first = pool.acquire(100);
+        ByteBuffer second = pool.acquire(100);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getPooledCount());
+        
+        assertSame(first, pool.acquire(200));
+        assertEquals(0, pool.getPooledCount());
+    }
+    
+    @Test
+    public void testLargeBuffersNotRetained() {
+        AuditPayloadBufferPool pool = new AuditPayloadBufferPool(4, 1 << 16);
+        ByteBuffer small = pool.acquire(10);
+        pool.release(small);
+        
+        // The pooled buffer is too small, so a larger one is allocated and the small one dropped
+        ByteBuffer large = pool.acquire(100_000);
+        assertNotSame(small, large);
+        assertTrue(large.capacity() >= 100_000);
+        pool.release(large);
+        assertEquals(0, pool.getPooledCount());
+    }
+}
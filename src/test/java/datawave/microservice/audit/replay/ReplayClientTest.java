@@ -1,14 +1,29 @@
 package datawave.microservice.audit.replay;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.times;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +34,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -33,6 +53,13 @@ import org.springframework.web.client.RestTemplate;
 import datawave.microservice.audit.AuditServiceProvider;
 import datawave.microservice.audit.TestUtils;
 import datawave.microservice.audit.config.AuditServiceConfiguration;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.config.ReplayClientProperties;
+import datawave.microservice.audit.replay.partition.ReplayFileSystem;
+import datawave.microservice.audit.replay.partition.ReplayFileSystem.FileEntry;
+import datawave.microservice.audit.replay.partition.ReplayPartitioner;
+import datawave.microservice.audit.timeout.AuditTimeoutException;
+import datawave.microservice.audit.timeout.CallTimeLimiter;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 
 /**
@@ -51,6 +78,9 @@ public class ReplayClientTest {
     @Autowired
     private ReplayClient replayClient;
     
+    @Autowired
+    private AuditServiceProvider serviceProvider;
+    
     @Autowired
     private ApplicationContext context;
     
@@ -536,6 +566,262 @@ public class ReplayClientTest {
         //@formatter:on
     }
     
+    @Test
+    public void testStartAsyncURISuccess() throws Exception {
+        String id = "some-id";
+        
+        //@formatter:off
+        final ReplayClient.Request replayRequest = new ReplayClient.Request.Builder()
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withId(id)
+                .build();
+
+        mockServer.expect(requestTo(EXPECTED_REPLAY_URI + "/" + id + "/start"))
+                .andRespond(withSuccess());
+
+        replayClient.startAsync(replayRequest).get(10, TimeUnit.SECONDS);
+        mockServer.verify();
+        //@formatter:on
+    }
+    
+    @Test
+    public void testStopAsyncMissingParam() {
+        
+        //@formatter:off
+        final ReplayClient.Request replayRequest = new ReplayClient.Request.Builder()
+                .withDatawaveUserDetails(defaultUserDetails)
+                .build();
+        //@formatter:on
+        
+        CompletionException thrown = assertThrows(CompletionException.class, () -> replayClient.stopAsync(replayRequest).join());
+        assertEquals(NullPointerException.class, thrown.getCause().getClass());
+    }
+    
+    @Test
+    public void testBulkCreateURIPartialFailure() {
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(replayClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.bindTo(replayRestTemplate).ignoreExpectOrder(true).build();
+        
+        //@formatter:off
+        mockServer.expect(requestTo(EXPECTED_REPLAY_URI + "/create"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().formData(new ReplayClient.Request.Builder()
+                        .withPathUri("hdfs://some-path/00/")
+                        .withSendRate(100l)
+                        .build().paramMap))
+                .andRespond(withSuccess("id-00", MediaType.TEXT_PLAIN));
+        mockServer.expect(requestTo(EXPECTED_REPLAY_URI + "/create"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().formData(new ReplayClient.Request.Builder()
+                        .withPathUri("hdfs://some-path/01/")
+                        .withSendRate(100l)
+                        .build().paramMap))
+                .andRespond(withServerError());
+
+        BulkReplayResult result = replayClient.bulkCreate(defaultUserDetails, Arrays.asList("hdfs://some-path/00/", "hdfs://some-path/01/"), 100l, null);
+        mockServer.verify();
+        //@formatter:on
+        
+        assertFalse(result.isSuccessful());
+        assertEquals(Collections.singletonMap("hdfs://some-path/00/", "id-00"), result.getReplayIds());
+        assertEquals(HttpServerErrorException.InternalServerError.class, result.getFailures().get("hdfs://some-path/01/").getClass());
+    }
+    
+    @Test
+    public void testBulkCreateReachesBulkConcurrency() {
+        // More than the executor's default pool size, which must not cap bulk operations
+        int bulkConcurrency = new ReplayClientProperties().getExecutor().getMaxPoolSize() + 4;
+        ReplayClientProperties replayClientProperties = new ReplayClientProperties();
+        replayClientProperties.setBulkConcurrency(bulkConcurrency);
+        ReplayClient bulkClient = new ReplayClient(new RestTemplateBuilder(), serviceProvider);
+        bulkClient.setReplayClientProperties(replayClientProperties);
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(bulkClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.createServer(replayRestTemplate);
+        
+        // Each create responds only once bulkConcurrency creates are in flight together
+        CountDownLatch allInFlight = new CountDownLatch(bulkConcurrency);
+        AtomicInteger timedOut = new AtomicInteger();
+        List<String> pathUris = new ArrayList<>();
+        for (int i = 0; i < bulkConcurrency; i++) {
+            pathUris.add("hdfs://some-path/" + i + "/");
+        }
+        //@formatter:off
+        mockServer.expect(times(bulkConcurrency), requestTo(EXPECTED_REPLAY_URI + "/create"))
+                .andRespond(request -> {
+                    allInFlight.countDown();
+                    try {
+                        if (!allInFlight.await(5, TimeUnit.SECONDS)) {
+                            timedOut.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess("id", MediaType.TEXT_PLAIN).createResponse(request);
+                });
+        //@formatter:on
+        
+        BulkReplayResult result = bulkClient.bulkCreate(defaultUserDetails, pathUris, null, null);
+        mockServer.verify();
+        assertEquals(0, timedOut.get());
+        assertTrue(result.isSuccessful());
+        assertEquals(bulkConcurrency, result.getReplayIds().size());
+    }
+    
+    @Test
+    public void testBulkCreateDuplicatePath() {
+        assertThrows(IllegalArgumentException.class,
+                        () -> replayClient.bulkCreate(defaultUserDetails, Arrays.asList("hdfs://some-path/", "hdfs://some-path/"), null, null));
+    }
+    
+    @Test
+    public void testStatusAllCacheInvalidatedByMutation() {
+        ReplayClientProperties replayClientProperties = new ReplayClientProperties();
+        replayClientProperties.getStatusCache().setEnabled(true);
+        replayClientProperties.getStatusCache().setTtl(Duration.ofMinutes(1));
+        
+        ReplayClient cachingClient = new ReplayClient(new RestTemplateBuilder(), serviceProvider);
+        cachingClient.setReplayClientProperties(replayClientProperties);
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(cachingClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.createServer(replayRestTemplate);
+        
+        //@formatter:off
+        final ReplayClient.Request replayRequest = new ReplayClient.Request.Builder()
+                .withDatawaveUserDetails(defaultUserDetails)
+                .build();
+
+        mockServer.expect(once(), requestTo(EXPECTED_REPLAY_URI + "/statusAll"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        mockServer.expect(once(), requestTo(EXPECTED_REPLAY_URI + "/stopAll"))
+                .andRespond(withSuccess());
+        mockServer.expect(once(), requestTo(EXPECTED_REPLAY_URI + "/statusAll"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        cachingClient.statusAll(replayRequest);
+        cachingClient.statusAll(replayRequest);
+        cachingClient.stopAll(replayRequest);
+        cachingClient.statusAll(replayRequest);
+        mockServer.verify();
+        //@formatter:on
+    }
+    
+    @Test
+    public void testOperationTimeouts() {
+        ReplayClientProperties.TimeoutProperties timeouts = new ReplayClientProperties.TimeoutProperties();
+        assertNull(timeouts.getTimeout("status"));
+        
+        timeouts.getOperations().put("statusAll", Duration.ofSeconds(5));
+        timeouts.getOperations().put("stop-all", Duration.ofSeconds(7));
+        timeouts.setDefaultTimeout(Duration.ofSeconds(30));
+        
+        assertEquals(Duration.ofSeconds(5), timeouts.getTimeout("statusAll"));
+        assertEquals(Duration.ofSeconds(7), timeouts.getTimeout("stopAll"));
+        assertEquals(Duration.ofSeconds(30), timeouts.getTimeout("delete"));
+    }
+    
+    @Test
+    public void testOperationTimeoutSentAsRemainingBudget() {
+        ReplayClientProperties replayClientProperties = new ReplayClientProperties();
+        replayClientProperties.getTimeouts().getOperations().put("status", Duration.ofSeconds(5));
+        ReplayClient timedClient = new ReplayClient(new RestTemplateBuilder(), serviceProvider);
+        timedClient.setReplayClientProperties(replayClientProperties);
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(timedClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.createServer(replayRestTemplate);
+        
+        //@formatter:off
+        final ReplayClient.Request replayRequest = new ReplayClient.Request.Builder()
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withId("some-id")
+                .build();
+
+        mockServer.expect(requestTo(EXPECTED_REPLAY_URI + "/some-id/status"))
+                .andExpect(header(CallTimeLimiter.REMAINING_BUDGET_HEADER, "5000"))
+                .andRespond(withSuccess());
+
+        timedClient.status(replayRequest);
+        mockServer.verify();
+        //@formatter:on
+    }
+    
+    @Test
+    public void testOperationTimeoutExceeded() {
+        ReplayClientProperties replayClientProperties = new ReplayClientProperties();
+        replayClientProperties.getTimeouts().getOperations().put("status", Duration.ofMillis(50));
+        ReplayClient timedClient = new ReplayClient(new RestTemplateBuilder(), serviceProvider);
+        timedClient.setReplayClientProperties(replayClientProperties);
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(timedClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.createServer(replayRestTemplate);
+        
+        //@formatter:off
+        final ReplayClient.Request replayRequest = new ReplayClient.Request.Builder()
+                .withDatawaveUserDetails(defaultUserDetails)
+                .withId("some-id")
+                .build();
+
+        mockServer.expect(requestTo(EXPECTED_REPLAY_URI + "/some-id/status"))
+                .andRespond(request -> {
+                    try {
+                        Thread.sleep(2000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess().createResponse(request);
+                });
+        //@formatter:on
+        
+        long start = System.nanoTime();
+        assertThrows(AuditTimeoutException.class, () -> timedClient.status(replayRequest));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    @Test
+    public void testPartitionedReplayFanOut() throws IOException {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            instances.add(new DefaultServiceInstance(null, "audit", "audit-" + i, 11111, false));
+        }
+        AuditServiceProvider multiInstanceProvider = new AuditServiceProvider(new AuditServiceProperties()) {
+            @Override
+            public List<ServiceInstance> getServiceInstances() {
+                return instances;
+            }
+        };
+        ReplayFileSystem fileSystem = pathUri -> Arrays.asList(new FileEntry("audit-00", 300), new FileEntry("audit-01", 200), new FileEntry("audit-02", 100));
+        ReplayPartitioner partitioner = new ReplayPartitioner(replayClient, multiInstanceProvider, fileSystem);
+        ReplayPartitioner.Plan plan = partitioner.plan("hdfs://some-path", 3, 60L);
+        
+        RestTemplate replayRestTemplate = (RestTemplate) new DirectFieldAccessor(replayClient).getPropertyValue("jwtRestTemplate");
+        mockServer = MockRestServiceServer.bindTo(replayRestTemplate).ignoreExpectOrder(true).build();
+        long[] sendRates = {30L, 20L, 10L};
+        for (int i = 0; i < 3; i++) {
+            String instanceUri = "http://audit-" + i + ":11111/audit/v1/replay";
+            //@formatter:off
+            mockServer.expect(once(), requestTo(instanceUri + "/create"))
+                    .andExpect(method(HttpMethod.POST))
+                    .andExpect(content().formData(new ReplayClient.Request.Builder()
+                            .withPathUri("hdfs://some-path/audit-0" + i)
+                            .withSendRate(sendRates[i])
+                            .build().paramMap))
+                    .andRespond(withSuccess("id-" + i, MediaType.TEXT_PLAIN));
+            mockServer.expect(once(), requestTo(instanceUri + "/id-" + i + "/start"))
+                    .andExpect(method(HttpMethod.PUT))
+                    .andRespond(withSuccess("started", MediaType.TEXT_PLAIN));
+            mockServer.expect(once(), requestTo(instanceUri + "/id-" + i + "/stop"))
+                    .andExpect(method(HttpMethod.PUT))
+                    .andRespond(withSuccess("stopped", MediaType.TEXT_PLAIN));
+            //@formatter:on
+        }
+        
+        List<ReplayPartitioner.PartitionedReplay> replays = partitioner.execute(plan, defaultUserDetails, null, false);
+        assertEquals(Arrays.asList("started", "started", "started"), partitioner.start(replays, defaultUserDetails));
+        assertEquals(Arrays.asList("stopped", "stopped", "stopped"), partitioner.stop(replays, defaultUserDetails));
+        mockServer.verify();
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals("id-" + i, replays.get(i).getId());
+            assertEquals(instances.get(i), replays.get(i).getServiceInstance());
+        }
+    }
+    
     /**
      * Mocks the ReplayClient jwtRestTemplate field within the internal ReplayClient
      */
@@ -0,0 +1,92 @@
+package datawave.microservice.audit.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TTL expiry, request coalescing and invalidation in {@link ReplayStatusCache}
+ */
+public class ReplayStatusCacheTest {
+    
+    private static final ReplayStatusCache.Key KEY = new ReplayStatusCache.Key("userDn", "statusAll", null);
+    
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ReplayStatusCache cache = new ReplayStatusCache(Duration.ofSeconds(1), now::get);
+    
+    @Test
+    public void testTtl() {
+        assertEquals(1, cache.get(KEY, loads::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals(1, cache.get(KEY, loads::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(2, cache.get(KEY, loads::incrementAndGet));
+    }
+    
+    @Test
+    public void testFailuresAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(KEY, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals(1, cache.get(KEY, loads::incrementAndGet));
+    }
+    
+    @Test
+    public void testConcurrentLookupsAreCoalesced() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> cache.get(KEY, () -> {
+            loading.countDown();
+            await(release);
+            return loads.incrementAndGet();
+        }));
+        loading.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> cache.get(KEY, loads::incrementAndGet));
+        release.countDown();
+        
+        assertEquals(1, first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    public void testInvalidateAll() {
+        assertEquals(1, cache.get(KEY, loads::incrementAndGet));
+        cache.invalidateAll();
+        assertEquals(2, cache.get(KEY, loads::incrementAndGet));
+    }
+    
+    @Test
+    public void testLoadOverlappingInvalidationIsNotReused() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> stale = CompletableFuture.supplyAsync(() -> cache.get(KEY, () -> {
+            loading.countDown();
+            await(release);
+            return loads.incrementAndGet();
+        }));
+        loading.await(10, TimeUnit.SECONDS);
+        cache.invalidateAll();
+        release.countDown();
+        
+        assertEquals(1, stale.get(10, TimeUnit.SECONDS));
+        assertEquals(2, cache.get(KEY, loads::incrementAndGet));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
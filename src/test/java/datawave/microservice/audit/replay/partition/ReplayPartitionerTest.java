@@ -0,0 +1,106 @@
+package datawave.microservice.audit.replay.partition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.audit.replay.partition.ReplayFileSystem.FileEntry;
+
+/**
+ * Tests {@link ReplayPartitioner} planning against the local file system
+ */
+public class ReplayPartitionerTest {
+    
+    @TempDir
+    Path auditDir;
+    
+    @Test
+    public void testSizeBalancedPartitions() throws IOException {
+        writeFile("2024/01/01/audit-00", 700);
+        writeFile("2024/01/01/audit-01", 500);
+        writeFile("2024/01/01/audit-02", 400);
+        writeFile("2024/01/01/audit-03", 300);
+        writeFile("2024/01/01/audit-04", 100);
+        
+        ReplayPartitioner.Plan plan = partitioner().plan(auditDir.toString(), 2, 1000L);
+        
+        assertEquals(2, plan.getPartitions().size());
+        assertEquals(1000L, plan.getPartitions().get(0).getLength());
+        assertEquals(1000L, plan.getPartitions().get(1).getLength());
+        assertEquals(1000L, plan.getPartitions().stream().mapToLong(ReplayPartitioner.Partition::getSendRate).sum());
+        assertEquals(auditDir + "/{2024/01/01/audit-00,2024/01/01/audit-03}", plan.getPartitions().get(0).getPathUri());
+    }
+    
+    @Test
+    public void testFewerFilesThanPartitions() throws IOException {
+        writeFile("audit-00", 10);
+        
+        ReplayPartitioner.Plan plan = partitioner().plan(auditDir.toString() + "/", 4, null);
+        
+        assertEquals(1, plan.getPartitions().size());
+        assertEquals(auditDir + "/audit-00", plan.getPartitions().get(0).getPathUri());
+        assertNull(plan.getPartitions().get(0).getSendRate());
+    }
+    
+    @Test
+    public void testEmptyDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> partitioner().plan(auditDir.toString(), 2, null));
+    }
+    
+    @Test
+    public void testSendRateSplitIsProportional() {
+        List<List<FileEntry>> bins = Arrays.asList(Arrays.asList(new FileEntry("a", 1)), Arrays.asList(new FileEntry("b", 2)),
+                        Arrays.asList(new FileEntry("c", 0)));
+        long[] rates = ReplayPartitioner.splitSendRate(bins, 10);
+        
+        assertEquals(3L, rates[0]);
+        assertEquals(6L, rates[1]);
+        assertEquals(1L, rates[2]);
+        assertEquals(10L, Arrays.stream(rates).sum());
+    }
+    
+    @Test
+    public void testFewerPartitionsThanSendRate() throws IOException {
+        writeFile("audit-00", 10);
+        writeFile("audit-01", 20);
+        writeFile("audit-02", 30);
+        
+        ReplayPartitioner.Plan plan = partitioner().plan(auditDir.toString(), 3, 2L);
+        
+        assertEquals(2, plan.getPartitions().size());
+        assertEquals(2L, plan.getPartitions().stream().mapToLong(ReplayPartitioner.Partition::getSendRate).sum());
+        assertTrue(plan.getPartitions().stream().allMatch(p -> p.getSendRate() == 1L));
+    }
+    
+    @Test
+    public void testGlobEscaping() {
+        String pathUri = ReplayPartitioner.toPathUri("hdfs://audit/", Arrays.asList(new FileEntry("a,b", 1), new FileEntry("c{1}", 1)));
+        assertEquals("hdfs://audit/{a\\,b,c\\{1\\}}", pathUri);
+        assertTrue(ReplayPartitioner.toPathUri("hdfs://audit/file", Arrays.asList(new FileEntry("", 1))).endsWith("/file"));
+    }
+    
+    private ReplayPartitioner partitioner() {
+        AuditServiceProvider serviceProvider = new AuditServiceProvider(new AuditServiceProperties());
+        return new ReplayPartitioner(new ReplayClient(new RestTemplateBuilder(), serviceProvider), serviceProvider, new LocalReplayFileSystem());
+    }
+    
+    private void writeFile(String relativePath, int length) throws IOException {
+        Path file = auditDir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[length]);
+    }
+}
@@ -0,0 +1,158 @@
+package datawave.microservice.audit.replay.progress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.TestUtils;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.replay.ReplayClient;
+import datawave.microservice.audit.replay.status.Status;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link ReplayProgressTracker} rate and ETA computation, and the recording of polled statuses
+ */
+public class ReplayProgressTrackerTest {
+    
+    private static final String ID = "some-id";
+    
+    private SimpleMeterRegistry meterRegistry;
+    private ReplayProgressTracker tracker;
+    
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new ReplayProgressTracker(null, meterRegistry, 3, Duration.ofMinutes(10));
+    }
+    
+    @Test
+    public void testSingleSample() {
+        tracker.record(sample(0, 100, 0, 0, 4, 4, 0));
+        
+        ReplayProgress progress = tracker.getProgress(ID);
+        assertEquals(100, progress.getRecordsProcessed());
+        assertEquals(4, progress.getFilesRemaining());
+        assertTrue(Double.isNaN(progress.getInstantaneousRate()));
+        assertTrue(Double.isNaN(progress.getAverageRate()));
+        assertNull(progress.getEta());
+    }
+    
+    @Test
+    public void testRatesAndEta() {
+        tracker.record(sample(0, 0, 0, 0, 4, 4, 0));
+        tracker.record(sample(10_000, 1000, 1000, 0, 4, 3, 1));
+        tracker.record(sample(20_000, 3000, 1000, 2000, 4, 3, 1));
+        
+        ReplayProgress progress = tracker.getProgress(ID);
+        assertEquals(200.0, progress.getInstantaneousRate(), 0.001);
+        assertEquals(150.0, progress.getAverageRate(), 0.001);
+        
+        // 3 remaining files at 1000 records each, less the 2000 already read from them, at 150 records per second
+        assertEquals(Duration.ofMillis(6666), progress.getEta());
+    }
+    
+    @Test
+    public void testWindowIsBounded() {
+        tracker.record(sample(0, 0, 0, 0, 1, 1, 0));
+        tracker.record(sample(1000, 1000, 0, 1000, 1, 1, 0));
+        tracker.record(sample(2000, 3000, 0, 3000, 1, 1, 0));
+        tracker.record(sample(3000, 6000, 0, 6000, 1, 1, 0));
+        
+        // The first sample has been evicted, so the average is computed from 1000ms to 3000ms
+        assertEquals(2500.0, tracker.getProgress(ID).getAverageRate(), 0.001);
+    }
+    
+    @Test
+    public void testGauges() {
+        tracker.record(sample(0, 0, 0, 0, 2, 0, 2));
+        
+        assertNotNull(meterRegistry.find(ReplayProgressTracker.FILES_REMAINING_METRIC).tag("replayId", ID).gauge());
+        assertEquals(0.0, meterRegistry.find(ReplayProgressTracker.ETA_METRIC).tag("replayId", ID).gauge().value(), 0.001);
+        
+        tracker.remove(ID);
+        assertNull(meterRegistry.find(ReplayProgressTracker.FILES_REMAINING_METRIC).tag("replayId", ID).gauge());
+        assertNull(tracker.getProgress(ID));
+    }
+    
+    @Test
+    public void testRecordStatus() throws Exception {
+        tracker.record(status(ID, "FINISHED:100", "RUNNING:40", "QUEUED:0", "FAILED:5"));
+        
+        ReplayProgress progress = tracker.getProgress(ID);
+        assertEquals(145, progress.getRecordsProcessed());
+        assertEquals(4, progress.getFilesTotal());
+        assertEquals(2, progress.getFilesRemaining());
+    }
+    
+    @Test
+    public void testRefresh() throws Exception {
+        Status[][] responses = {{status(ID, "RUNNING:10"), status("other-id", "QUEUED:0")}, {status(ID, "FINISHED:20")}};
+        AtomicInteger calls = new AtomicInteger();
+        AuditServiceProvider serviceProvider = new AuditServiceProvider(new AuditServiceProperties());
+        ReplayClient replayClient = new ReplayClient(new RestTemplateBuilder(), serviceProvider) {
+            @Override
+            public Status[] statusAll(Request request) {
+                return responses[calls.getAndIncrement()];
+            }
+        };
+        tracker = new ReplayProgressTracker(replayClient, meterRegistry, 3, Duration.ofMinutes(10));
+        DatawaveUserDetails userDetails = TestUtils.userDetails(Collections.singleton("AuthorizedUser"), Collections.singleton("A"));
+        
+        tracker.refresh(userDetails);
+        assertEquals(new HashSet<>(Arrays.asList(ID, "other-id")), tracker.getTrackedIds());
+        
+        // Replays missing from the next response are no longer tracked, and their gauges are removed
+        tracker.refresh(userDetails);
+        assertEquals(Collections.singleton(ID), tracker.getTrackedIds());
+        assertEquals(20, tracker.getProgress(ID).getRecordsProcessed());
+        assertEquals(0, tracker.getProgress(ID).getFilesRemaining());
+        assertNull(meterRegistry.find(ReplayProgressTracker.FILES_REMAINING_METRIC).tag("replayId", "other-id").gauge());
+    }
+    
+    /**
+     * Builds a status the way the client receives it, from JSON. Each file is given as {@code STATE:linesRead}.
+     */
+    private static Status status(String id, String... files) throws Exception {
+        List<Map<String,Object>> fileStatuses = new ArrayList<>();
+        for (String file : files) {
+            String[] parts = file.split(":");
+            Map<String,Object> fileStatus = new LinkedHashMap<>();
+            fileStatus.put("pathUri", "hdfs://some-path/" + fileStatuses.size());
+            fileStatus.put("state", parts[0]);
+            fileStatus.put("linesRead", Long.parseLong(parts[1]));
+            fileStatuses.add(fileStatus);
+        }
+        Map<String,Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("state", "RUNNING");
+        status.put("files", fileStatuses);
+        ObjectMapper objectMapper = new ObjectMapper();
+        return objectMapper.readValue(objectMapper.writeValueAsString(status), Status.class);
+    }
+    
+    private static ReplayProgressTracker.Sample sample(long timestamp, long records, long recordsInFinishedFiles, long recordsInRemainingFiles, int filesTotal,
+                    int filesRemaining, int filesFinished) {
+        return new ReplayProgressTracker.Sample(ID, timestamp, records, recordsInFinishedFiles, recordsInRemainingFiles, filesTotal, filesRemaining,
+                        filesFinished);
+    }
+}
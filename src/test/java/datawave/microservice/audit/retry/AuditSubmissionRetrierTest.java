@@ -0,0 +1,66 @@
+package datawave.microservice.audit.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import datawave.microservice.audit.config.AuditRetryProperties;
+
+/**
+ * Tests that {@link AuditSubmissionRetrier} keeps its backoff within the submission's deadline
+ */
+public class AuditSubmissionRetrierTest {
+    
+    private final ServiceInstance instance = new DefaultServiceInstance("audit-1", "audit", "audit-host", 8443, true);
+    
+    @Test
+    public void testNotRetriedWhenBackoffOutlastsDeadline() {
+        AuditSubmissionRetrier retrier = retrier(TimeUnit.SECONDS.toMillis(10));
+        AtomicInteger attempts = new AtomicInteger();
+        
+        long start = System.nanoTime();
+        assertThrows(HttpServerErrorException.class, () -> retrier.submit(tried -> instance, unavailable(attempts), Instant.now().plusSeconds(1)));
+        assertEquals(1, attempts.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    @Test
+    public void testRetriedWithinDeadline() {
+        AuditSubmissionRetrier retrier = retrier(1);
+        AtomicInteger attempts = new AtomicInteger();
+        
+        retrier.submit(tried -> instance, auditService -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }, Instant.now().plusSeconds(60));
+        assertEquals(2, attempts.get());
+    }
+    
+    private static AuditSubmissionRetrier retrier(long backoffMillis) {
+        return new AuditSubmissionRetrier(new AuditRetryProperties()) {
+            @Override
+            long backoff(int attempt) {
+                return backoffMillis;
+            }
+        };
+    }
+    
+    private static Consumer<ServiceInstance> unavailable(AtomicInteger attempts) {
+        return auditService -> {
+            attempts.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package datawave.microservice.audit.retry;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the sliding window accounting of {@link RetryBudget}
+ */
+public class RetryBudgetTest {
+    
+    private final AtomicLong clock = new AtomicLong(-Duration.ofSeconds(3).toNanos());
+    private final RetryBudget budget = new RetryBudget(0.1, 2, Duration.ofSeconds(10), clock::get);
+    
+    @Test
+    public void testMinRetriesAlwaysPermitted() {
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+    }
+    
+    @Test
+    public void testRetriesScaleWithRequests() {
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+        // 2 + 0.1 * 100
+        for (int i = 0; i < 12; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+    }
+    
+    @Test
+    public void testBudgetReplenishedAsWindowSlides() {
+        assertTrue(budget.tryAcquireRetry());
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+        
+        // First retry leaves the window
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+        
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+    }
+}
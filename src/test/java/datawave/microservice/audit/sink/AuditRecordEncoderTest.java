@@ -0,0 +1,103 @@
+package datawave.microservice.audit.sink;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URLEncoder;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Tests that {@link AuditRecordEncoder} produces exactly what {@link URLEncoder} would
+ */
+public class AuditRecordEncoderTest {
+    
+    @Test
+    public void testMatchesUrlEncoder() {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add("query", "FIELD:\"a b\" AND (X == 'y') || z != 1 & q=2 + 100% ~`^[]{}\\|<>,;/?#@!$*._-");
+        params.add("query", "second value");
+        params.add("unicode", "caf\u00e9 \u65e5\u672c \ud83d\ude00 \u0000");
+        params.add("lone surrogates", "a\ud83db\ude00c\ud83d");
+        params.add("empty", "");
+        params.add("no value", null);
+        params.add("name with spaces & symbols=", "v");
+        assertEncodedLikeUrlEncoder(params);
+    }
+    
+    @Test
+    public void testMatchesUrlEncoderForRandomStrings() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+            params.add(randomString(random, 8), randomString(random, 64));
+            params.add(randomString(random, 8), randomString(random, 512));
+            assertEncodedLikeUrlEncoder(params);
+        }
+    }
+    
+    @Test
+    public void testBufferTooSmall() {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add("query", "FIELD:VALUE");
+        ByteBuffer buffer = ByteBuffer.allocate(AuditRecordEncoder.encodedLength(params) - 1);
+        assertThrows(BufferOverflowException.class, () -> AuditRecordEncoder.encode(params, buffer));
+    }
+    
+    private static void assertEncodedLikeUrlEncoder(MultiValueMap<String,String> params) {
+        byte[] expected = referenceEncode(params).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected.length, AuditRecordEncoder.encodedLength(params));
+        assertArrayEquals(expected, AuditRecordEncoder.encode(params));
+        
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length + 3);
+        direct.put((byte) 'x');
+        AuditRecordEncoder.encode(params, direct);
+        assertEquals(expected.length + 1, direct.position());
+    }
+    
+    private static String referenceEncode(MultiValueMap<String,String> params) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String,List<String>> entry : params.entrySet()) {
+            for (String value : entry.getValue()) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+                sb.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
+                if (null != value) {
+                    sb.append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return sb.toString();
+    }
+    
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    sb.append((char) random.nextInt(0x80));
+                    break;
+                case 1:
+                    sb.append((char) (0x80 + random.nextInt(0x780)));
+                    break;
+                case 2:
+                    sb.append((char) random.nextInt(0x10000));
+                    break;
+                default:
+                    sb.appendCodePoint(0x10000 + random.nextInt(0x100000));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package datawave.microservice.audit.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.webservice.common.audit.Auditor;
+
+/**
+ * Tests the completion policies of {@link FanOutAuditSink}
+ */
+public class FanOutAuditSinkTest {
+    
+    private static final String PATH = "/v1/audit";
+    
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AuditClient.Request request = new AuditClient.Request.Builder().withAuditType(Auditor.AuditType.ACTIVE).build();
+    private final AtomicInteger delivered = new AtomicInteger();
+    
+    private final AuditSink succeeding = (r, p) -> delivered.incrementAndGet();
+    private final IllegalStateException failure = new IllegalStateException("sink failed");
+    private final AuditSink failing = (r, p) -> {
+        throw failure;
+    };
+    
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void testAllDeliversToEverySink() {
+        new FanOutAuditSink(succeeding, Arrays.asList(succeeding, succeeding), FanOutAuditSink.Policy.ALL, executor).send(request, PATH);
+        assertEquals(3, delivered.get());
+    }
+    
+    @Test
+    public void testAllFailsIfSecondaryFails() {
+        FanOutAuditSink sink = new FanOutAuditSink(succeeding, Collections.singletonList(failing), FanOutAuditSink.Policy.ALL, executor);
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> sink.send(request, PATH)));
+        assertEquals(1, delivered.get());
+    }
+    
+    @Test
+    public void testAnySucceedsIfSecondarySucceeds() {
+        new FanOutAuditSink(failing, Arrays.asList(failing, succeeding), FanOutAuditSink.Policy.ANY, executor).send(request, PATH);
+        assertEquals(1, delivered.get());
+    }
+    
+    @Test
+    public void testAnyFailsIfEverySinkFails() {
+        IllegalStateException otherFailure = new IllegalStateException("other sink failed");
+        AuditSink otherFailing = (r, p) -> {
+            throw otherFailure;
+        };
+        FanOutAuditSink sink = new FanOutAuditSink(failing, Collections.singletonList(otherFailing), FanOutAuditSink.Policy.ANY, executor);
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> sink.send(request, PATH));
+        assertEquals(2, 1 + thrown.getSuppressed().length);
+    }
+    
+    @Test
+    public void testAnyDoesNotWaitForPrimary() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch primaryDone = new CountDownLatch(1);
+        AuditSink blocked = (r, p) -> {
+            await(release);
+            primaryDone.countDown();
+        };
+        
+        new FanOutAuditSink(blocked, Collections.singletonList(succeeding), FanOutAuditSink.Policy.ANY, executor).send(request, PATH);
+        assertEquals(1, delivered.get());
+        assertEquals(1, primaryDone.getCount());
+        
+        release.countDown();
+        assertTrue(primaryDone.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testAnyHandsOffLatePrimaryFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AuditSink blockedFailing = (r, p) -> {
+            await(release);
+            throw failure;
+        };
+        List<AuditClient.Request> undelivered = new CopyOnWriteArrayList<>();
+        CountDownLatch handedOff = new CountDownLatch(1);
+        FanOutAuditSink sink = new FanOutAuditSink(blockedFailing, Collections.singletonList(succeeding), FanOutAuditSink.Policy.ANY, executor);
+        sink.setUndeliveredHandler((r, p) -> {
+            undelivered.add(r);
+            handedOff.countDown();
+        });
+        
+        sink.send(request, PATH);
+        assertEquals(1, delivered.get());
+        assertTrue(undelivered.isEmpty());
+        
+        release.countDown();
+        assertTrue(handedOff.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(request), undelivered);
+    }
+    
+    @Test
+    public void testAnyHandsOffEarlierPrimaryFailure() throws Exception {
+        CountDownLatch primaryFailed = new CountDownLatch(1);
+        AuditSink failingFirst = (r, p) -> {
+            primaryFailed.countDown();
+            throw failure;
+        };
+        AuditSink succeedingAfter = (r, p) -> {
+            await(primaryFailed);
+            delivered.incrementAndGet();
+        };
+        List<AuditClient.Request> undelivered = new CopyOnWriteArrayList<>();
+        CountDownLatch handedOff = new CountDownLatch(1);
+        FanOutAuditSink sink = new FanOutAuditSink(failingFirst, Collections.singletonList(succeedingAfter), FanOutAuditSink.Policy.ANY, executor);
+        sink.setUndeliveredHandler((r, p) -> {
+            undelivered.add(r);
+            handedOff.countDown();
+        });
+        
+        sink.send(request, PATH);
+        assertEquals(1, delivered.get());
+        assertTrue(handedOff.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(request), undelivered);
+    }
+    
+    @Test
+    public void testFailuresThrownToCallerNotHandedOff() {
+        List<AuditClient.Request> undelivered = new CopyOnWriteArrayList<>();
+        FanOutAuditSink any = new FanOutAuditSink(failing, Collections.singletonList(failing), FanOutAuditSink.Policy.ANY, executor);
+        any.setUndeliveredHandler((r, p) -> undelivered.add(r));
+        assertThrows(IllegalStateException.class, () -> any.send(request, PATH));
+        
+        FanOutAuditSink primary = new FanOutAuditSink(failing, Collections.singletonList(succeeding), FanOutAuditSink.Policy.PRIMARY, executor);
+        primary.setUndeliveredHandler((r, p) -> undelivered.add(r));
+        assertThrows(IllegalStateException.class, () -> primary.send(request, PATH));
+        assertTrue(undelivered.isEmpty());
+    }
+    
+    @Test
+    public void testPrimaryRunsOnCallerIfRejected() {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("saturated");
+        };
+        new FanOutAuditSink(succeeding, Collections.singletonList(succeeding), FanOutAuditSink.Policy.PRIMARY, rejecting).send(request, PATH);
+        assertEquals(1, delivered.get());
+    }
+    
+    @Test
+    public void testPrimaryDoesNotWaitForSecondaries() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondaryDone = new CountDownLatch(1);
+        AuditSink blocked = (r, p) -> {
+            await(release);
+            secondaryDone.countDown();
+        };
+        
+        new FanOutAuditSink(succeeding, Arrays.asList(blocked, failing), FanOutAuditSink.Policy.PRIMARY, executor).send(request, PATH);
+        assertEquals(1, delivered.get());
+        
+        release.countDown();
+        assertTrue(secondaryDone.await(10, TimeUnit.SECONDS));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
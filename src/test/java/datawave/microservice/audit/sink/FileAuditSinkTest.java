@@ -0,0 +1,164 @@
+package datawave.microservice.audit.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.webservice.common.audit.Auditor;
+
+/**
+ * Tests that {@link FileAuditSink} persists every acknowledged record across rotated files, fails only unwritten records when rotation fails, and rejects
+ * records once closed
+ */
+public class FileAuditSinkTest {
+    
+    @TempDir
+    Path auditDir;
+    
+    @Test
+    public void testConcurrentProducersWithRotation() throws Exception {
+        int producers = 8;
+        int recordsPerProducer = 250;
+        
+        FileAuditSink sink = new FileAuditSink(auditDir, "audit-", 4096, Duration.ofMillis(1), 128, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerProducer; i++) {
+                        sink.send(request("query " + producer + "-" + i + " & more"), "/v1/audit");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            sink.close();
+        }
+        
+        List<String> records = readRecords();
+        assertEquals(producers * recordsPerProducer, records.size());
+        assertEquals(producers * recordsPerProducer, new HashSet<>(records).size());
+        assertTrue(records.contains("query=query+0-0+%26+more&auditType=ACTIVE"));
+        
+        try (Stream<Path> files = Files.list(auditDir)) {
+            Set<Path> rotated = files.collect(Collectors.toSet());
+            assertTrue(rotated.size() > 1, "Expected the sink to rotate files");
+            for (Path file : rotated) {
+                assertTrue(Files.size(file) <= 4096, "Expected " + file + " to be truncated to its written length");
+            }
+        }
+    }
+    
+    @Test
+    public void testSendAfterCloseFailsFast() throws Exception {
+        FileAuditSink sink = new FileAuditSink(auditDir, "audit-", 4096, Duration.ofMillis(1), 128, 64, Duration.ofSeconds(30));
+        sink.send(request("before close"), "/v1/audit");
+        sink.close();
+        
+        long start = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> sink.send(request("after close"), "/v1/audit"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Expected send to fail without waiting for the write timeout");
+        assertEquals(List.of("query=before+close&auditType=ACTIVE"), readRecords());
+    }
+    
+    @Test
+    public void testFailedRotationKeepsForcedRecordsAcknowledged() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        // Large enough for one record per file, and waits long enough for both records to be committed in one batch
+        FileAuditSink sink = new FileAuditSink(auditDir, "audit-", 64, Duration.ofSeconds(5), 128, 2) {
+            @Override
+            FileChannel open(Path file) throws IOException {
+                if (opened.incrementAndGet() > 1) {
+                    throw new IOException("Simulated failure opening " + file);
+                }
+                return super.open(file);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<String> written = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        try {
+            Map<String,Future<?>> futures = new LinkedHashMap<>();
+            for (String query : List.of("first", "second")) {
+                futures.put(query, executor.submit(() -> sink.send(request(query), "/v1/audit")));
+            }
+            for (Map.Entry<String,Future<?>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get(30, TimeUnit.SECONDS);
+                    written.add("query=" + entry.getKey() + "&auditType=ACTIVE");
+                } catch (ExecutionException e) {
+                    failed.add(entry.getKey());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            sink.close();
+        }
+        
+        assertEquals(2, opened.get(), "Expected the second record to rotate files");
+        assertEquals(1, written.size(), "Expected the record forced before rotating to be acknowledged");
+        assertEquals(1, failed.size(), "Expected only the record after the failed rotation to fail");
+        assertEquals(written, readRecords());
+    }
+    
+    private AuditClient.Request request(String query) {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add("query", query);
+        return new AuditClient.Request.Builder().withParams(params).withAuditType(Auditor.AuditType.ACTIVE).build();
+    }
+    
+    private List<String> readRecords() throws IOException {
+        List<String> records = new ArrayList<>();
+        try (Stream<Path> files = Files.list(auditDir)) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+                assertEquals(FileAuditSink.MAGIC, buffer.getInt());
+                while (buffer.hasRemaining()) {
+                    assertEquals(FileAuditSink.RECORD_MARKER, buffer.getInt());
+                    byte[] payload = new byte[buffer.getInt()];
+                    int checksum = buffer.getInt();
+                    buffer.get(payload);
+                    CRC32C crc = new CRC32C();
+                    crc.update(payload);
+                    assertEquals(checksum, (int) crc.getValue());
+                    records.add(new String(payload, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return records;
+    }
+}
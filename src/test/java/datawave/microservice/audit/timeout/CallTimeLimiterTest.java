@@ -0,0 +1,104 @@
+package datawave.microservice.audit.timeout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+public class CallTimeLimiterTest {
+    
+    private final CallTimeLimiter limiter = new CallTimeLimiter("callTimeLimiterTest-");
+    
+    @Test
+    public void testCallWithoutBudgetRunsOnCallerThread() {
+        assertSame(Thread.currentThread(), limiter.call(Thread::currentThread, null, "test call"));
+    }
+    
+    @Test
+    public void testCallWithinBudget() {
+        assertEquals("done", limiter.call(() -> "done", Duration.ofSeconds(5), "test call"));
+    }
+    
+    @Test
+    public void testCallExceedingBudget() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        AuditTimeoutException e = assertThrows(AuditTimeoutException.class, () -> limiter.call(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        }, Duration.ofMillis(50), "test call"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(e.getMessage().contains("test call timed out after 50ms"), e.getMessage());
+        release.countDown();
+    }
+    
+    @Test
+    public void testCallsBeyondMaxThreadsFailFast() {
+        CallTimeLimiter bounded = new CallTimeLimiter("callTimeLimiterTest-bounded-", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertThrows(AuditTimeoutException.class, () -> bounded.call(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    // abandoned calls keep running until their I/O completes
+                    Uninterruptibles.awaitUninterruptibly(release);
+                }
+                return "late";
+            }, Duration.ofMillis(50), "first call"));
+            
+            long start = System.nanoTime();
+            AtomicBoolean called = new AtomicBoolean();
+            AuditTimeoutException e = assertThrows(AuditTimeoutException.class,
+                            () -> bounded.call(() -> called.getAndSet(true), Duration.ofSeconds(5), "second call"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertTrue(e.getMessage().contains("too many calls"), e.getMessage());
+            assertFalse(called.get());
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test
+    public void testCallFailureRethrown() {
+        ResourceAccessException failure = new ResourceAccessException("connection refused");
+        assertSame(failure, assertThrows(ResourceAccessException.class, () -> limiter.call(() -> {
+            throw failure;
+        }, Duration.ofSeconds(5), "test call")));
+    }
+    
+    @Test
+    public void testSpentBudgetNotAttempted() {
+        AtomicBoolean called = new AtomicBoolean();
+        assertThrows(AuditTimeoutException.class, () -> limiter.call(() -> called.getAndSet(true), Duration.ZERO, "test call"));
+        assertFalse(called.get());
+    }
+    
+    @Test
+    public void testBudget() {
+        assertNull(CallTimeLimiter.budget(null, null));
+        assertEquals(Duration.ofSeconds(5), CallTimeLimiter.budget(null, Duration.ofSeconds(5)));
+        assertEquals(Duration.ofSeconds(5), CallTimeLimiter.budget(Instant.now().plusSeconds(60), Duration.ofSeconds(5)));
+        
+        Duration remaining = CallTimeLimiter.budget(Instant.now().plusSeconds(2), Duration.ofSeconds(5));
+        assertTrue(remaining.compareTo(Duration.ofSeconds(2)) <= 0 && remaining.compareTo(Duration.ZERO) > 0, remaining.toString());
+        assertTrue(CallTimeLimiter.budget(Instant.now().minusSeconds(1), null).isNegative());
+    }
+}
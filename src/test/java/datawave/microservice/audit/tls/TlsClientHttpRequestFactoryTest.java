@@ -0,0 +1,108 @@
+package datawave.microservice.audit.tls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifies that {@link TlsClientHttpRequestFactory} resumes TLS sessions across connections, that {@link HandshakeMetricsSSLSocketFactory} counts them, and
+ * that a configured pooling factory is kept
+ */
+public class TlsClientHttpRequestFactoryTest {
+    
+    private HttpsServer server;
+    
+    @BeforeEach
+    public void setup() throws Exception {
+        server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(SslContextLoader.load(ssl(), "TLS")));
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            // Force a new connection, and therefore a new handshake, for every request
+            exchange.getResponseHeaders().add("Connection", "close");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+    
+    @Test
+    public void testSessionResumption() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SSLContext sslContext = SslContextLoader.load(ssl(), "TLS");
+        TlsClientHttpRequestFactory requestFactory = new TlsClientHttpRequestFactory(new SimpleClientHttpRequestFactory(), sslContext, 10, 60,
+                        new HandshakeMetricsSSLSocketFactory(sslContext.getSocketFactory(), meterRegistry));
+        // The test certificate is not issued for localhost
+        requestFactory.setHostnameVerifier((hostname, session) -> true);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        
+        String uri = "https://localhost:" + server.getAddress().getPort() + "/";
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", restTemplate.getForObject(uri, String.class));
+        }
+        
+        // Handshake listeners are notified on a separate thread
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get(HandshakeMetricsSSLSocketFactory.HANDSHAKE_TIMER).timer().count() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        
+        double full = meterRegistry.get(HandshakeMetricsSSLSocketFactory.HANDSHAKE_COUNTER).tag("type", "full").counter().count();
+        double resumed = meterRegistry.get(HandshakeMetricsSSLSocketFactory.HANDSHAKE_COUNTER).tag("type", "resumed").counter().count();
+        assertEquals(1.0, full);
+        assertEquals(2.0, resumed);
+    }
+    
+    @Test
+    public void testPoolingFactoryIsKept() throws Exception {
+        SSLContext sslContext = SslContextLoader.load(ssl(), "TLS");
+        AtomicInteger created = new AtomicInteger();
+        ClientHttpRequestFactory pooling = (uri, httpMethod) -> {
+            created.incrementAndGet();
+            return new MockClientHttpRequest(httpMethod, uri);
+        };
+        TlsClientHttpRequestFactory requestFactory = new TlsClientHttpRequestFactory(pooling, sslContext, 10, 60, sslContext.getSocketFactory());
+        
+        requestFactory.createRequest(URI.create("https://localhost/"), HttpMethod.GET);
+        assertSame(pooling, requestFactory.getDelegate());
+        assertEquals(1, created.get());
+    }
+    
+    private static Ssl ssl() {
+        Ssl ssl = new Ssl();
+        ssl.setKeyStore("classpath:ssl/host.p12");
+        ssl.setKeyStoreType("PKCS12");
+        ssl.setKeyStorePassword("LetMeIn");
+        ssl.setTrustStore("classpath:ssl/rootCA.p12");
+        ssl.setTrustStoreType("PKCS12");
+        ssl.setTrustStorePassword("LetMeIn");
+        return ssl;
+    }
+}
@@ -0,0 +1,106 @@
+package datawave.microservice.audit.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.TestUtils;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Tests that {@link AuditClient} hands requests directly to an in-process {@link AuditRequestHandler}
+ */
+public class LoopbackAuditTransportTest {
+    
+    private final List<MultiValueMap<String,String>> handled = new ArrayList<>();
+    private final List<String> handledPaths = new ArrayList<>();
+    private final List<DatawaveUserDetails> handledUsers = new ArrayList<>();
+    private final AuditRequestHandler handler = (parameters, requestPath, userDetails) -> {
+        handled.add(parameters);
+        handledPaths.add(requestPath);
+        handledUsers.add(userDetails);
+    };
+    
+    private AuditServiceProperties properties;
+    private AuditClient auditClient;
+    private DatawaveUserDetails userDetails;
+    
+    @BeforeEach
+    public void setup() {
+        properties = new AuditServiceProperties();
+        auditClient = new AuditClient(new RestTemplateBuilder(), new AuditServiceProvider(properties));
+        auditClient.setValidationSupplier(AuditParameters::new);
+        userDetails = TestUtils.userDetails(Collections.singleton("AuthorizedUser"), Arrays.asList("A", "B"));
+    }
+    
+    @Test
+    public void testRequestHandedToLocalHandler() {
+        auditClient.setLocalRequestHandler(handler);
+        AuditClient.Request request = request();
+        auditClient.submit(request, "/v1/audit");
+        
+        assertEquals(Collections.singletonList(request.getParamMap()), handled);
+        assertEquals(Collections.singletonList("/v1/audit"), handledPaths);
+        assertSame(userDetails, handledUsers.get(0));
+    }
+    
+    @Test
+    public void testHandlerFailureFailsSubmission() {
+        auditClient.setLocalRequestHandler((parameters, requestPath, userDetails) -> {
+            throw new IllegalArgumentException("rejected");
+        });
+        assertThrows(IllegalArgumentException.class, () -> auditClient.submit(request()));
+    }
+    
+    @Test
+    public void testConfiguredTransportTakesPrecedence() {
+        List<AuditClient.Request> transported = new ArrayList<>();
+        auditClient.setLocalRequestHandler(handler);
+        auditClient.setTransport((request, requestPath) -> transported.add(request));
+        
+        auditClient.submit(request());
+        assertEquals(1, transported.size());
+        assertTrue(handled.isEmpty());
+    }
+    
+    @Test
+    public void testLoopbackCanBeDisabled() {
+        properties.setLoopbackEnabled(false);
+        auditClient.setLocalRequestHandler(handler);
+        
+        // With loopback disabled and no transport, the request goes over HTTP to an audit service which is not running
+        assertThrows(RuntimeException.class, () -> auditClient.submit(request()));
+        assertTrue(handled.isEmpty());
+    }
+    
+    private AuditClient.Request request() {
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "PUBLIC");
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withParams(params)
+                .withQueryExpression("FIELD:VALUE")
+                .withDatawaveUserDetails(userDetails)
+                .withAuditType(AuditType.ACTIVE)
+                .withQueryLogic("QueryLogic")
+                .build();
+        //@formatter:on
+    }
+}
@@ -0,0 +1,156 @@
+package datawave.microservice.audit.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.stream.binder.BinderHeaders;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.audit.config.AuditStreamConfiguration;
+import datawave.microservice.audit.config.AuditStreamProperties;
+import datawave.microservice.audit.sink.AuditRecordEncoder;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.SubjectIssuerDNPair;
+import datawave.webservice.common.audit.AuditParameters;
+import datawave.webservice.common.audit.Auditor.AuditType;
+
+/**
+ * Tests {@link StreamAuditTransport} against the Spring Cloud Stream test binder
+ */
+public class StreamAuditTransportTest {
+    
+    private static final String DESTINATION = "audit";
+    
+    private static ConfigurableApplicationContext context;
+    private static StreamBridge streamBridge;
+    private static OutputDestination output;
+    
+    @BeforeAll
+    public static void startBinder() {
+        //@formatter:off
+        context = new SpringApplicationBuilder(TestChannelBinderConfiguration.getCompleteConfiguration(StreamTestConfiguration.class))
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.cloud.stream.bindings.audit.producer.partition-count=4",
+                        "spring.cloud.stream.bindings.audit.producer.partition-key-expression=headers['" + StreamAuditTransport.USER_HEADER + "']")
+                .run();
+        //@formatter:on
+        streamBridge = context.getBean(StreamBridge.class);
+        output = context.getBean(OutputDestination.class);
+    }
+    
+    @AfterAll
+    public static void stopBinder() {
+        context.close();
+    }
+    
+    @Test
+    public void testPublishesFormEncodedRequest() {
+        StreamAuditTransport transport = new StreamAuditTransport(streamBridge, DESTINATION, null);
+        AuditClient.Request request = request("cn=alice", "FIELD:VALUE");
+        transport.send(request, "/v1/audit");
+        
+        Message<byte[]> message = output.receive(TimeUnit.SECONDS.toMillis(10), DESTINATION);
+        assertNotNull(message);
+        assertArrayEquals(AuditRecordEncoder.encode(request.getParamMap()), message.getPayload());
+        assertEquals("cn=alice<issuerDn>", message.getHeaders().get(StreamAuditTransport.USER_HEADER));
+        assertEquals(AuditType.ACTIVE.name(), message.getHeaders().get(StreamAuditTransport.AUDIT_TYPE_HEADER));
+        assertEquals("/v1/audit", message.getHeaders().get(StreamAuditTransport.REQUEST_PATH_HEADER));
+    }
+    
+    @Test
+    public void testPartitionedByUser() {
+        StreamAuditTransport transport = new StreamAuditTransport(streamBridge, DESTINATION, null);
+        for (String user : Arrays.asList("cn=alice", "cn=bob", "cn=alice", "cn=bob")) {
+            transport.send(request(user, "FIELD:VALUE"), "/v1/audit");
+        }
+        Object[] partitions = new Object[4];
+        for (int i = 0; i < 4; i++) {
+            partitions[i] = output.receive(TimeUnit.SECONDS.toMillis(10), DESTINATION).getHeaders().get(BinderHeaders.PARTITION_HEADER);
+            assertNotNull(partitions[i]);
+        }
+        assertEquals(partitions[0], partitions[2]);
+        assertEquals(partitions[1], partitions[3]);
+    }
+    
+    @Test
+    public void testSendCompletesOnConfirm() throws Exception {
+        StreamAuditTransport transport = new StreamAuditTransport(streamBridge, DESTINATION, Duration.ofSeconds(10));
+        
+        // Play the broker: confirm each message once it reaches the destination
+        CompletableFuture<Void> broker = CompletableFuture.runAsync(() -> transport.handleMessage(output.receive(TimeUnit.SECONDS.toMillis(10), DESTINATION)));
+        transport.send(request("cn=alice", "FIELD:VALUE"), "/v1/audit");
+        broker.get(10, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void testSendFailsOnRejectOrMissingConfirm() throws Exception {
+        StreamAuditTransport transport = new StreamAuditTransport(streamBridge, DESTINATION, Duration.ofSeconds(10));
+        CompletableFuture<Void> broker = CompletableFuture.runAsync(() -> {
+            Message<byte[]> message = output.receive(TimeUnit.SECONDS.toMillis(10), DESTINATION);
+            transport.handleMessage(new ErrorMessage(new MessagingException(message, "rejected by broker")));
+        });
+        IllegalStateException rejected = assertThrows(IllegalStateException.class, () -> transport.send(request("cn=alice", "FIELD:VALUE"), "/v1/audit"));
+        assertEquals("rejected by broker", rejected.getCause().getMessage());
+        broker.get(10, TimeUnit.SECONDS);
+        
+        StreamAuditTransport impatient = new StreamAuditTransport(streamBridge, DESTINATION, Duration.ofMillis(50));
+        assertThrows(IllegalStateException.class, () -> impatient.send(request("cn=alice", "FIELD:VALUE"), "/v1/audit"));
+        assertNotNull(output.receive(TimeUnit.SECONDS.toMillis(10), DESTINATION));
+    }
+    
+    @Test
+    public void testRefusedWithoutBrokerAuthentication() {
+        AuditStreamProperties properties = new AuditStreamProperties();
+        AuditStreamConfiguration configuration = new AuditStreamConfiguration();
+        assertThrows(IllegalStateException.class, () -> configuration.streamAuditTransport(streamBridge, properties, context));
+        
+        properties.setBrokerAuthenticated(true);
+        assertNotNull(configuration.streamAuditTransport(streamBridge, properties, context));
+    }
+    
+    private static AuditClient.Request request(String user, String query) {
+        DatawaveUser dwUser = new DatawaveUser(SubjectIssuerDNPair.of(user, "issuerDn"), DatawaveUser.UserType.USER, Collections.singleton("A"),
+                        Collections.singleton("AuthorizedUser"), null, System.currentTimeMillis());
+        MultiValueMap<String,String> params = new LinkedMultiValueMap<>();
+        params.add(AuditParameters.QUERY_SECURITY_MARKING_COLVIZ, "PUBLIC");
+        //@formatter:off
+        return new AuditClient.Request.Builder()
+                .withParams(params)
+                .withQueryExpression(query)
+                .withDatawaveUserDetails(new DatawaveUserDetails(Collections.singleton(dwUser), dwUser.getCreationTime()))
+                .withAuditType(AuditType.ACTIVE)
+                .withQueryLogic("QueryLogic")
+                .build();
+        //@formatter:on
+    }
+    
+    @Configuration
+    @EnableAutoConfiguration
+    public static class StreamTestConfiguration {}
+}
@@ -0,0 +1,130 @@
+package datawave.microservice.audit.zone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import datawave.microservice.audit.AuditServiceProvider;
+import datawave.microservice.audit.config.AuditHealthProperties;
+import datawave.microservice.audit.config.AuditServiceProperties;
+import datawave.microservice.audit.config.AuditZoneProperties;
+import datawave.microservice.audit.health.InstanceHealthTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests local zone preference and spillover of {@link ZonePreference}
+ */
+public class ZonePreferenceTest {
+    
+    private final ServiceInstance remote1 = instance("audit-1", "zone-b");
+    private final ServiceInstance local1 = instance("audit-2", "zone-a");
+    private final ServiceInstance local2 = instance("audit-3", "zone-a");
+    private final ServiceInstance unzoned = instance("audit-4", null);
+    private final List<ServiceInstance> instances = Arrays.asList(remote1, local1, local2, unzoned);
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuditZoneProperties properties;
+    
+    @BeforeEach
+    public void setup() {
+        properties = new AuditZoneProperties();
+    }
+    
+    @Test
+    public void testPrefersLocalZone() {
+        ZonePreference preference = new ZonePreference("zone-a", properties, meterRegistry);
+        assertEquals(Arrays.asList(local1, local2), preference.prefer(instances));
+        assertEquals(1.0, meterRegistry.get(ZonePreference.SELECTION_COUNTER).tag("locality", "local").counter().count());
+    }
+    
+    @Test
+    public void testSpilloverWhenTooFewLocal() {
+        properties.setMinLocalInstances(3);
+        ZonePreference preference = new ZonePreference("zone-a", properties, meterRegistry);
+        assertEquals(instances, preference.prefer(instances));
+        assertEquals(instances, new ZonePreference("zone-c", new AuditZoneProperties(), null).prefer(instances));
+        assertEquals(1.0, meterRegistry.get(ZonePreference.SELECTION_COUNTER).tag("locality", "spillover").counter().count());
+    }
+    
+    @Test
+    public void testSpilloverWhenLocalSaturated() {
+        properties.setMaxInFlightPerInstance(1);
+        ZonePreference preference = new ZonePreference("zone-a", properties, meterRegistry);
+        
+        preference.requestStarted(local1);
+        assertEquals(Collections.singletonList(local2), preference.prefer(instances));
+        
+        preference.requestStarted(local2);
+        assertEquals(Arrays.asList(remote1, unzoned, local1, local2), preference.prefer(instances));
+        
+        preference.requestFinished(local1);
+        assertEquals(Collections.singletonList(local1), preference.prefer(instances));
+    }
+    
+    @Test
+    public void testSpilloverSkipsSaturatedLocalLeadingDiscoveryOrder() {
+        properties.setMaxInFlightPerInstance(1);
+        ZonePreference preference = new ZonePreference("zone-a", properties, meterRegistry);
+        List<ServiceInstance> localFirst = Arrays.asList(local1, remote1, local2, unzoned);
+        
+        preference.requestStarted(local1);
+        preference.requestStarted(local2);
+        assertEquals(remote1, preference.prefer(localFirst).get(0));
+        assertEquals(Arrays.asList(remote1, unzoned, local1, local2), preference.prefer(localFirst));
+        
+        // Once everything is saturated, saturated instances are still selected rather than none
+        preference.requestStarted(remote1);
+        preference.requestStarted(unzoned);
+        assertEquals(localFirst, preference.prefer(localFirst));
+    }
+    
+    @Test
+    public void testSpilloverWhenLocalEjected() {
+        DiscoveryClient discoveryClient = new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+            
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return instances;
+            }
+            
+            @Override
+            public List<String> getServices() {
+                return Collections.singletonList("audit");
+            }
+        };
+        AuditServiceProvider provider = new AuditServiceProvider(new AuditServiceProperties(), discoveryClient);
+        AuditHealthProperties healthProperties = new AuditHealthProperties();
+        healthProperties.setConsecutiveErrors(1);
+        InstanceHealthTracker healthTracker = new InstanceHealthTracker(healthProperties);
+        provider.setHealthTracker(healthTracker);
+        provider.setZonePreference(new ZonePreference("zone-a", properties, null));
+        healthTracker.available(instances);
+        assertEquals(local1, provider.getServiceInstance(Collections.emptyList()));
+        provider.recordStart(local1);
+        provider.recordFailure(local1);
+        assertEquals(local2, provider.getServiceInstance(Collections.emptyList()));
+        provider.recordStart(local2);
+        provider.recordFailure(local2);
+        assertEquals(remote1, provider.getServiceInstance(Collections.emptyList()));
+    }
+    
+    private static ServiceInstance instance(String id, String zone) {
+        DefaultServiceInstance instance = new DefaultServiceInstance(id, "audit", id, 8443, true);
+        if (null != zone) {
+            instance.getMetadata().put("zone", zone);
+        }
+        return instance;
+    }
+}